@@ -0,0 +1,284 @@
+package org.openpaas.servicebroker.container.platform.common;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.openpaas.servicebroker.container.platform.exception.CallNotPermittedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 통신 대상(k8s, keycloak, cp-api, common-api) 별 circuit breaker 와 semaphore bulkhead
+ * 최근 window-size 개의 요청 중 실패(failurePredicate 에 해당하는 오류 또는 slow-call-duration 을 넘긴 요청) 비율이
+ * failure-rate-threshold 이상이면 OPEN 되어 open-duration 동안 요청하지 않고 바로 CallNotPermittedException 을 던진다.
+ * 이후 HALF_OPEN 에서 half-open-calls 개의 요청이 모두 성공하면 CLOSED 로 돌아간다.
+ * 동시에 진행 중인 요청은 max-concurrent 개로 제한하여, 느려진 대상 하나가 요청 thread 를 모두 점유하지 않도록 한다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+public class CircuitBreaker implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String destination;
+    private final Settings settings;
+    private final Predicate<Throwable> failurePredicate;
+    private final Semaphore bulkhead;
+
+    // 최근 요청 결과 (true : 실패)
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(String destination, Settings settings, Predicate<Throwable> failurePredicate) {
+        this.destination = destination;
+        this.settings = settings;
+        this.failurePredicate = failurePredicate;
+        this.bulkhead = new Semaphore(settings.getMaxConcurrent());
+        this.window = new boolean[settings.getWindowSize()];
+
+        logger.info("CircuitBreaker [{}] created : {}", CommonUtils.loggerReplace(destination), CommonUtils.loggerReplace(settings));
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * call 을 실행한다. OPEN 상태이거나 동시 요청 수가 가득 찼으면 실행하지 않고 CallNotPermittedException 을 던진다.
+     */
+    public <T> T execute(Supplier<T> call) {
+        return execute(call, result -> false);
+    }
+
+    /**
+     * @param failedResult 오류 없이 반환되었지만 실패로 볼 결과 (ex. 5xx status 의 Response)
+     */
+    public <T> T execute(Supplier<T> call, Predicate<T> failedResult) {
+        acquirePermission();
+        try {
+            if (!bulkhead.tryAcquire(settings.getMaxWait(), TimeUnit.MILLISECONDS)) {
+                releasePermission();
+                record("rejected-bulkhead");
+                throw new CallNotPermittedException(destination, "too many concurrent calls");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releasePermission();
+            throw new CallNotPermittedException(destination, "interrupted");
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            T result = call.get();
+            onResult(failedResult.test(result), startTime);
+            return result;
+        } catch (RuntimeException e) {
+            onResult(failurePredicate.test(e), startTime);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private synchronized void acquirePermission() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                record("rejected-open");
+                throw new CallNotPermittedException(destination, "circuit breaker is open");
+            }
+            transitionTo(State.HALF_OPEN);
+            halfOpenPermits = settings.getHalfOpenCalls();
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                record("rejected-open");
+                throw new CallNotPermittedException(destination, "circuit breaker is half open");
+            }
+            halfOpenPermits--;
+        }
+    }
+
+    /**
+     * 요청하지 못한 경우 HALF_OPEN 시험 요청 기회를 돌려준다.
+     */
+    private synchronized void releasePermission() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    private void onResult(boolean failed, long startTime) {
+        boolean slow = System.nanoTime() - startTime > TimeUnit.MILLISECONDS.toNanos(settings.getSlowCallDuration());
+        record(failed ? "failure" : slow ? "slow" : "success");
+        onResult(failed || slow);
+    }
+
+    private synchronized void onResult(boolean failed) {
+        if (state == State.HALF_OPEN) {
+            if (failed) {
+                open();
+            } else if (++halfOpenSuccesses >= settings.getHalfOpenCalls()) {
+                close();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+
+        if (windowCount == window.length) {
+            windowFailures -= window[windowIndex] ? 1 : 0;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failed;
+        windowFailures += failed ? 1 : 0;
+        windowIndex = (windowIndex + 1) % window.length;
+
+        if (windowCount >= settings.getMinimumCalls() && windowFailures * 100 >= settings.getFailureRateThreshold() * windowCount) {
+            open();
+        }
+    }
+
+    private void open() {
+        transitionTo(State.OPEN);
+        openUntil = System.currentTimeMillis() + settings.getOpenDuration();
+    }
+
+    private void close() {
+        transitionTo(State.CLOSED);
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+
+    private void transitionTo(State newState) {
+        if (state != newState) {
+            logger.info("CircuitBreaker [{}] {} -> {}", CommonUtils.loggerReplace(destination), state, newState);
+            state = newState;
+        }
+    }
+
+    private void record(String outcome) {
+        Metrics.counter("circuit.breaker.calls", "destination", destination, "outcome", outcome).increment();
+    }
+
+    public synchronized State getState() {
+        // open-duration 이 지났으면 다음 요청에서 HALF_OPEN 으로 바뀐다.
+        return (state == State.OPEN && System.currentTimeMillis() >= openUntil) ? State.HALF_OPEN : state;
+    }
+
+    public int getInFlight() {
+        return settings.getMaxConcurrent() - bulkhead.availablePermits();
+    }
+
+    /**
+     * 상태 조회 endpoint 용 요약 정보
+     */
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("state", getState());
+        snapshot.put("failureRate", windowCount == 0 ? 0 : windowFailures * 100 / windowCount);
+        snapshot.put("bufferedCalls", windowCount);
+        snapshot.put("inFlight", getInFlight());
+        snapshot.put("maxConcurrent", settings.getMaxConcurrent());
+        if (state == State.OPEN) {
+            snapshot.put("openRemainingMillis", Math.max(0, openUntil - System.currentTimeMillis()));
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("circuit.breaker.state", this, breaker -> breaker.getState().ordinal())
+                .description("Circuit breaker state (0 : closed, 1 : half open, 2 : open)")
+                .tag("destination", destination)
+                .register(registry);
+        Gauge.builder("circuit.breaker.bulkhead.in-flight", this, CircuitBreaker::getInFlight)
+                .description("Calls currently in flight to the destination")
+                .tag("destination", destination)
+                .register(registry);
+    }
+
+
+    /**
+     * 통신 대상별 circuit breaker / bulkhead 설정 값 (시간 단위 : ms)
+     */
+    public static class Settings {
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private int failureRateThreshold = 50;
+        private long slowCallDuration = 10000;
+        private long openDuration = 30000;
+        private int halfOpenCalls = 3;
+        private int maxConcurrent = 20;
+        private long maxWait = 1000;
+
+        public int getWindowSize() { return windowSize; }
+
+        public void setWindowSize(int windowSize) { this.windowSize = windowSize; }
+
+        public int getMinimumCalls() { return minimumCalls; }
+
+        public void setMinimumCalls(int minimumCalls) { this.minimumCalls = minimumCalls; }
+
+        public int getFailureRateThreshold() { return failureRateThreshold; }
+
+        public void setFailureRateThreshold(int failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+
+        public long getSlowCallDuration() { return slowCallDuration; }
+
+        public void setSlowCallDuration(long slowCallDuration) { this.slowCallDuration = slowCallDuration; }
+
+        public long getOpenDuration() { return openDuration; }
+
+        public void setOpenDuration(long openDuration) { this.openDuration = openDuration; }
+
+        public int getHalfOpenCalls() { return halfOpenCalls; }
+
+        public void setHalfOpenCalls(int halfOpenCalls) { this.halfOpenCalls = halfOpenCalls; }
+
+        public int getMaxConcurrent() { return maxConcurrent; }
+
+        public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+
+        public long getMaxWait() { return maxWait; }
+
+        public void setMaxWait(long maxWait) { this.maxWait = maxWait; }
+
+        @Override
+        public String toString() {
+            return "Settings{" +
+                    "windowSize=" + windowSize +
+                    ", minimumCalls=" + minimumCalls +
+                    ", failureRateThreshold=" + failureRateThreshold +
+                    ", slowCallDuration=" + slowCallDuration +
+                    ", openDuration=" + openDuration +
+                    ", halfOpenCalls=" + halfOpenCalls +
+                    ", maxConcurrent=" + maxConcurrent +
+                    ", maxWait=" + maxWait +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.openpaas.servicebroker.container.platform.common;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * SQL 실행 시간을 측정하는 DataSource
+ * Connection 과 Statement 를 proxy 로 감싸 execute / executeQuery / executeUpdate / executeBatch 의 소요 시간을 listener 로 전달한다.
+ * bind parameter 값은 전달하지 않는다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private final StatementListener listener;
+
+    public InstrumentedDataSource(DataSource target, StatementListener listener) {
+        super(target);
+        this.listener = listener;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * SQL 실행 결과를 받는 listener
+     */
+    @FunctionalInterface
+    public interface StatementListener {
+        /**
+         * @param sql         실행한 SQL (bind parameter 는 ? 그대로)
+         * @param elapsedNanos 소요 시간
+         * @param failed      SQLException 발생 여부
+         */
+        void executed(String sql, long elapsedNanos, boolean failed);
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            String name = method.getName();
+            if (result instanceof Statement && (name.equals("prepareStatement") || name.equals("prepareCall") || name.equals("createStatement"))) {
+                String sql = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0] : null;
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, new StatementHandler((Statement) result, sql));
+            }
+            return result;
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+
+        private String sql;
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("addBatch") && args != null && args.length == 1 && args[0] instanceof String) {
+                sql = (String) args[0];
+            }
+            if (!name.startsWith("execute")) {
+                return InstrumentedDataSource.invoke(target, method, args);
+            }
+
+            // Statement.execute(sql) 는 실행할 SQL 을 인자로 받는다.
+            String executed = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0] : sql;
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = InstrumentedDataSource.invoke(target, method, args);
+                failed = false;
+                return result;
+            } finally {
+                if (executed != null) {
+                    listener.executed(executed, System.nanoTime() - start, failed);
+                }
+            }
+        }
+    }
+}
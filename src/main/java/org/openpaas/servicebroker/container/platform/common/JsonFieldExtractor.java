@@ -0,0 +1,134 @@
+package org.openpaas.servicebroker.container.platform.common;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResponseExtractor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 응답 body 를 String 이나 JSON 전체 객체로 만들지 않고, stream 에서 필요한 값만 읽어오는 ResponseExtractor
+ * 읽을 값은 JSON Pointer(RFC 6901) 로 지정하며 (ex. /secrets/0/name, /status/hard/limits.cpu)
+ * 지정한 값을 모두 찾으면 나머지는 읽지 않는다. 찾지 못한 값은 결과에 포함되지 않는다.
+ * 생성 후에는 변경되지 않으므로 상수로 두고 여러 thread 에서 같이 사용한다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+public final class JsonFieldExtractor implements ResponseExtractor<Map<String, String>> {
+
+    private final Node root = new Node();
+
+    private final int fieldCount;
+
+    private JsonFieldExtractor(String... pointers) {
+        for (String pointer : pointers) {
+            if (!pointer.startsWith("/")) {
+                throw new IllegalArgumentException("Invalid JSON pointer : " + pointer);
+            }
+            Node node = root;
+            for (String token : pointer.substring(1).split("/", -1)) {
+                node = node.children.computeIfAbsent(token.replace("~1", "/").replace("~0", "~"), key -> new Node());
+            }
+            node.pointer = pointer;
+        }
+        this.fieldCount = pointers.length;
+    }
+
+    public static JsonFieldExtractor of(String... pointers) {
+        return new JsonFieldExtractor(pointers);
+    }
+
+    @Override
+    public Map<String, String> extractData(ClientHttpResponse response) throws IOException {
+        return extract(response.getBody());
+    }
+
+    public Map<String, String> extract(InputStream body) throws IOException {
+        Map<String, String> values = new HashMap<>(fieldCount * 2);
+        if (body == null) {
+            return values;
+        }
+        JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        try {
+            read(reader, root, values);
+        } catch (EOFException e) {
+            // body 가 비어 있는 경우
+        }
+        return values;
+    }
+
+    /**
+     * 찾을 값이 있는 경로만 따라 내려가고 나머지는 skip 한다.
+     * 모든 값을 찾으면 닫는 괄호까지 읽지 않고 바로 반환한다.
+     */
+    private void read(JsonReader reader, Node node, Map<String, String> values) throws IOException {
+        if (node.pointer != null) {
+            String value = readScalar(reader);
+            if (value != null) {
+                values.put(node.pointer, value);
+            }
+            return;
+        }
+
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_OBJECT) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                Node child = node.children.get(reader.nextName());
+                if (child == null) {
+                    reader.skipValue();
+                    continue;
+                }
+                read(reader, child, values);
+                if (values.size() == fieldCount) {
+                    return;
+                }
+            }
+            reader.endObject();
+        } else if (token == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            for (int index = 0; reader.hasNext(); index++) {
+                Node child = node.children.get(Integer.toString(index));
+                if (child == null) {
+                    reader.skipValue();
+                    continue;
+                }
+                read(reader, child, values);
+                if (values.size() == fieldCount) {
+                    return;
+                }
+            }
+            reader.endArray();
+        } else {
+            reader.skipValue();
+        }
+    }
+
+    private String readScalar(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return Boolean.toString(reader.nextBoolean());
+            default:
+                // null, object, array 는 값으로 취급하지 않는다.
+                reader.skipValue();
+                return null;
+        }
+    }
+
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>(4);
+        private String pointer;
+    }
+}
@@ -0,0 +1,358 @@
+package org.openpaas.servicebroker.container.platform.common;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 브로커가 k8s api 에 생성 요청하는 객체(Namespace, ResourceQuota, LimitRange, Role, RoleBinding, ServiceAccount, Secret)를
+ * FreeMarker YAML 템플릿 대신 compact JSON byte 배열로 바로 만드는 클래스
+ * 요청시 Content-Type 은 application/json 이며, 생성되는 내용은 templates/instance/*.ftl 과 동일하다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+public final class K8sManifest {
+
+    private static final String[] READ_VERBS = { "get", "list", "watch" };
+
+    private static final String[] ALL_VERBS = { "get", "list", "watch", "create", "update", "patch", "delete", "deletecollection" };
+
+    /**
+     * create_init_role.ftl 과 동일한 권한 (모두 조회만 가능)
+     */
+    public static final List<PolicyRule> INIT_ROLE_RULES = roleRules(false);
+
+    /**
+     * create_admin_role.ftl, create_role.ftl 과 동일한 권한
+     */
+    public static final List<PolicyRule> ADMIN_ROLE_RULES = roleRules(true);
+
+    // 고정된 rules 는 Role 의 뒷부분(,"rules":[...]}) 을 미리 인코딩해 둔다.
+    private static final byte[] INIT_ROLE_RULES_SUFFIX = rulesSuffix(INIT_ROLE_RULES);
+
+    private static final byte[] ADMIN_ROLE_RULES_SUFFIX = rulesSuffix(ADMIN_ROLE_RULES);
+
+    private K8sManifest() {
+    }
+
+    public static byte[] namespace(String name) {
+        Manifest manifest = new Manifest("v1", "Namespace");
+        manifest.metadata(name, null);
+        return manifest.toBytes();
+    }
+
+    /**
+     * label 을 가진 Namespace (namespace pool 용)
+     */
+    public static byte[] namespace(String name, Map<String, String> labels) {
+        Manifest manifest = new Manifest("v1", "Namespace");
+        manifest.write(writer -> {
+            writer.name("metadata").beginObject();
+            writer.name("name").value(name);
+            writeLabels(writer, labels);
+            writer.endObject();
+        });
+        return manifest.toBytes();
+    }
+
+    /**
+     * metadata.labels 만 바꾸는 JSON merge patch (application/merge-patch+json), 값이 null 인 label 은 삭제된다.
+     * resourceVersion 을 넣으면 그 사이 다른 곳에서 변경된 경우 apiserver 가 409 Conflict 로 거절한다.
+     */
+    public static byte[] labelsPatch(String resourceVersion, Map<String, String> labels) {
+        StringWriter out = new StringWriter(192);
+        JsonWriter writer = new JsonWriter(out);
+        try {
+            writer.setSerializeNulls(true);
+            writer.beginObject();
+            writer.name("metadata").beginObject();
+            if (resourceVersion != null) {
+                writer.name("resourceVersion").value(resourceVersion);
+            }
+            writeLabels(writer, labels);
+            writer.endObject();
+            writer.endObject();
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] serviceAccount(String namespace, String name) {
+        Manifest manifest = new Manifest("v1", "ServiceAccount");
+        manifest.metadata(name, namespace);
+        return manifest.toBytes();
+    }
+
+    public static byte[] resourceQuota(String name, String cpu, String memory, String storage) {
+        Manifest manifest = new Manifest("v1", "ResourceQuota");
+        manifest.metadata(name, null);
+        manifest.write(writer -> {
+            writer.name("spec").beginObject();
+            writer.name("hard").beginObject();
+            writer.name("limits.cpu").value(cpu);
+            writer.name("limits.memory").value(memory);
+            writer.name("requests.storage").value(storage);
+            writer.endObject();
+            writer.endObject();
+        });
+        return manifest.toBytes();
+    }
+
+    /**
+     * ResourceQuota 의 spec.hard 만 바꾸는 JSON merge patch (application/merge-patch+json)
+     * resourceVersion 을 넣으면 그 사이 다른 곳에서 변경된 경우 apiserver 가 409 Conflict 로 거절한다.
+     */
+    public static byte[] resourceQuotaPatch(String resourceVersion, String cpu, String memory, String storage) {
+        StringWriter out = new StringWriter(192);
+        JsonWriter writer = new JsonWriter(out);
+        try {
+            writer.beginObject();
+            if (resourceVersion != null) {
+                writer.name("metadata").beginObject();
+                writer.name("resourceVersion").value(resourceVersion);
+                writer.endObject();
+            }
+            writer.name("spec").beginObject();
+            writer.name("hard").beginObject();
+            writer.name("limits.cpu").value(cpu);
+            writer.name("limits.memory").value(memory);
+            writer.name("requests.storage").value(storage);
+            writer.endObject();
+            writer.endObject();
+            writer.endObject();
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] limitRange(String name, String defaultCpu, String defaultMemory) {
+        Manifest manifest = new Manifest("v1", "LimitRange");
+        manifest.metadata(name, null);
+        manifest.write(writer -> {
+            writer.name("spec").beginObject();
+            writer.name("limits").beginArray().beginObject();
+            writer.name("default").beginObject();
+            writer.name("cpu").value(defaultCpu);
+            writer.name("memory").value(defaultMemory);
+            writer.endObject();
+            writer.name("type").value("Container");
+            writer.endObject().endArray();
+            writer.endObject();
+        });
+        return manifest.toBytes();
+    }
+
+    public static byte[] role(String namespace, String name, List<PolicyRule> rules) {
+        Manifest manifest = new Manifest("rbac.authorization.k8s.io/v1", "Role");
+        manifest.metadata(name, namespace);
+        byte[] suffix = (rules == INIT_ROLE_RULES) ? INIT_ROLE_RULES_SUFFIX : (rules == ADMIN_ROLE_RULES) ? ADMIN_ROLE_RULES_SUFFIX : rulesSuffix(rules);
+        return manifest.toBytes(suffix);
+    }
+
+    private static byte[] rulesSuffix(List<PolicyRule> rules) {
+        StringWriter out = new StringWriter(2048);
+        JsonWriter writer = new JsonWriter(out);
+        try {
+            writer.beginArray();
+            for (PolicyRule rule : rules) {
+                writer.beginObject();
+                writeArray(writer.name("apiGroups"), rule.getApiGroups());
+                writeArray(writer.name("resources"), rule.getResources());
+                writeArray(writer.name("verbs"), rule.getVerbs());
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return (",\"rules\":" + out + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] roleBinding(String namespace, String name, String roleName, String serviceAccountName) {
+        Manifest manifest = new Manifest("rbac.authorization.k8s.io/v1", "RoleBinding");
+        manifest.metadata(name, namespace);
+        manifest.write(writer -> {
+            writer.name("subjects").beginArray().beginObject();
+            writer.name("kind").value("ServiceAccount");
+            writer.name("name").value(serviceAccountName);
+            writer.endObject().endArray();
+            writer.name("roleRef").beginObject();
+            writer.name("kind").value("Role");
+            writer.name("name").value(roleName);
+            writer.name("apiGroup").value("rbac.authorization.k8s.io");
+            writer.endObject();
+        });
+        return manifest.toBytes();
+    }
+
+    /**
+     * private docker repository 인증 정보를 가진 Secret (create_private_docker_secret.ftl)
+     *
+     * @param dockerConfigJson base64 로 인코딩된 .dockerconfigjson 값
+     */
+    public static byte[] dockerConfigSecret(String namespace, String name, String dockerConfigJson) {
+        Manifest manifest = new Manifest("v1", "Secret");
+        manifest.metadata(name, namespace);
+        manifest.write(writer -> {
+            writer.name("data").beginObject();
+            writer.name(".dockerconfigjson").value(dockerConfigJson);
+            writer.endObject();
+            writer.name("type").value("kubernetes.io/dockerconfigjson");
+        });
+        return manifest.toBytes();
+    }
+
+    /**
+     * ServiceAccount 의 token 을 담는 Secret (create_secret.ftl)
+     */
+    public static byte[] serviceAccountTokenSecret(String namespace, String name, String serviceAccountName) {
+        Manifest manifest = new Manifest("v1", "Secret");
+        manifest.write(writer -> {
+            writer.name("metadata").beginObject();
+            writer.name("name").value(name);
+            writer.name("namespace").value(namespace);
+            writer.name("annotations").beginObject();
+            writer.name("kubernetes.io/service-account.name").value(serviceAccountName);
+            writer.endObject();
+            writer.endObject();
+            writer.name("type").value("kubernetes.io/service-account-token");
+        });
+        return manifest.toBytes();
+    }
+
+    private static void writeLabels(JsonWriter writer, Map<String, String> labels) throws IOException {
+        writer.name("labels").beginObject();
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            writer.name(label.getKey()).value(label.getValue());
+        }
+        writer.endObject();
+    }
+
+    private static void writeArray(JsonWriter writer, List<String> values) throws IOException {
+        writer.beginArray();
+        for (String value : values) {
+            writer.value(value);
+        }
+        writer.endArray();
+    }
+
+    private static List<PolicyRule> roleRules(boolean admin) {
+        String[] verbs = admin ? ALL_VERBS : READ_VERBS;
+        List<PolicyRule> rules = new ArrayList<>();
+        rules.add(new PolicyRule("", verbs, "pods", "pods/attach", "pods/exec", "pods/portforward", "pods/proxy"));
+        rules.add(new PolicyRule("", verbs, "configmaps", "endpoints", "persistentvolumeclaims", "replicationcontrollers", "replicationcontrollers/scale",
+                "secrets", "serviceaccounts", "services", "services/proxy"));
+        rules.add(new PolicyRule("apps", verbs, "daemonsets", "deployments", "deployments/rollback", "deployments/scale", "replicasets",
+                "replicasets/scale", "statefulsets", "statefulsets/scale"));
+        rules.add(new PolicyRule("", READ_VERBS, "bindings", "events", "limitranges", "namespaces/status", "pods/log", "pods/status",
+                "replicationcontrollers/status", "resourcequotas", "resourcequotas/status"));
+        rules.add(new PolicyRule("", READ_VERBS, "namespaces"));
+        rules.add(new PolicyRule("apps", verbs, "daemonsets", "deployments", "deployments/rollback", "deployments/scale", "replicasets",
+                "replicasets/scale", "statefulsets", "statefulsets/scale"));
+        rules.add(new PolicyRule("autoscaling", verbs, "horizontalpodautoscalers"));
+        rules.add(new PolicyRule("batch", verbs, "cronjobs", "jobs"));
+        rules.add(new PolicyRule("extensions", verbs, "deployments", "deployments", "deployments/rollback", "deployments/scale", "ingresses",
+                "networkpolicies", "replicasets", "replicasets/scale", "replicationcontrollers", "replicationcontrollers/scale"));
+        rules.add(new PolicyRule("policy", verbs, "poddisruptionbudgets"));
+        rules.add(new PolicyRule("rbac.authorization.k8s.io", verbs, "rolebindings", "roles"));
+        rules.add(new PolicyRule("core", verbs, "serviceaccount"));
+        return Collections.unmodifiableList(rules);
+    }
+
+
+    /**
+     * Role 의 rules 항목
+     */
+    public static class PolicyRule {
+        private final List<String> apiGroups;
+        private final List<String> resources;
+        private final List<String> verbs;
+
+        public PolicyRule(String apiGroup, String[] verbs, String... resources) {
+            this.apiGroups = Collections.singletonList(apiGroup);
+            this.resources = Collections.unmodifiableList(Arrays.asList(resources));
+            this.verbs = Collections.unmodifiableList(Arrays.asList(verbs));
+        }
+
+        public List<String> getApiGroups() { return apiGroups; }
+
+        public List<String> getResources() { return resources; }
+
+        public List<String> getVerbs() { return verbs; }
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    /**
+     * apiVersion, kind 로 시작하는 객체 하나를 JsonWriter 로 작성한다.
+     * 작은 write 가 많으므로 문자열로 모은 뒤 마지막에 한번만 UTF-8 로 인코딩한다.
+     */
+    private static class Manifest {
+        private final StringWriter out = new StringWriter(256);
+        private final JsonWriter writer = new JsonWriter(out);
+
+        Manifest(String apiVersion, String kind) {
+            write(json -> {
+                json.beginObject();
+                json.name("apiVersion").value(apiVersion);
+                json.name("kind").value(kind);
+            });
+        }
+
+        void metadata(String name, String namespace) {
+            write(json -> {
+                json.name("metadata").beginObject();
+                json.name("name").value(name);
+                if (namespace != null) {
+                    json.name("namespace").value(namespace);
+                }
+                json.endObject();
+            });
+        }
+
+        void write(Body body) {
+            try {
+                body.write(writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 지금까지 작성한 내용 뒤에 이미 인코딩된 나머지 부분(닫는 괄호 포함)을 붙인다.
+         */
+        byte[] toBytes(byte[] suffix) {
+            write(JsonWriter::flush);
+            byte[] prefix = out.toString().getBytes(StandardCharsets.UTF_8);
+            byte[] bytes = new byte[prefix.length + suffix.length];
+            System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+            System.arraycopy(suffix, 0, bytes, prefix.length, suffix.length);
+            return bytes;
+        }
+
+        byte[] toBytes() {
+            write(json -> {
+                json.endObject();
+                json.close();
+            });
+            return out.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.openpaas.servicebroker.container.platform.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 최대 개수와 ttl 을 갖는 cache
+ * 최대 개수를 넘으면 가장 오래 사용하지 않은 값(LRU)부터 버리고, ttl 이 지난 값은 조회시 버린다.
+ * 값마다 ttl 을 다르게 지정할 수 있다. (ex. 조회 결과가 없는 경우는 짧게 보관)
+ * 조회 hit / miss, eviction(최대 개수 초과, ttl 만료) 횟수를 기록한다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+public class LruCache<K, V> {
+
+    private final BoundedMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive : " + maxSize);
+        }
+        this.entries = new BoundedMap<>(maxSize, evictions);
+    }
+
+    /**
+     * 보관중인 값. 없거나 만료되었으면 null 을 반환하고 miss 로 기록한다.
+     * 보관중인 값이 null 인 경우(조회 결과 없음)와 구분하기 위해 Entry 를 반환한다.
+     */
+    public synchronized Entry<V> get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            evictions.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    public synchronized void put(K key, V value, long ttlMillis) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * 접근 순서로 정렬되어 maxSize 를 넘으면 가장 오래 사용하지 않은 값을 버리는 map
+     */
+    private static final class BoundedMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+        private final transient LongAdder evictions;
+
+        BoundedMap(int maxSize, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        public V getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.openpaas.servicebroker.container.platform.common;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 통신 대상(k8s, cp-api, common-api 등) 별로 분리된 connection pool 을 가지는 HttpClient 클래스
+ * keep-alive 재사용, idle connection 정리, connect/read/pool 대기 timeout 을 대상별로 설정하며
+ * pool 상태(leased/pending/available/max)를 metric 으로 노출한다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+public class PooledHttpClient implements MeterBinder, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledHttpClient.class);
+
+    private final String destination;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    public PooledHttpClient(String destination, Settings settings, SSLContext sslContext) {
+        this.destination = destination;
+
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(sslContext, NoopHostnameVerifier.INSTANCE))
+                .build();
+
+        this.connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry, null, null, null,
+                settings.getConnectionTimeToLive(), TimeUnit.MILLISECONDS);
+        this.connectionManager.setMaxTotal(settings.getMaxTotal());
+        this.connectionManager.setDefaultMaxPerRoute(settings.getMaxPerRoute());
+        this.connectionManager.setValidateAfterInactivity(settings.getValidateAfterInactivity());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(settings.getConnectTimeout())
+                .setSocketTimeout(settings.getReadTimeout())
+                .setConnectionRequestTimeout(settings.getPoolAcquireTimeout())
+                .build();
+
+        // 서버가 Keep-Alive timeout 을 알려주면 따르되, 설정값을 넘지 않도록 한다.
+        long maxKeepAlive = settings.getKeepAlive();
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return (serverKeepAlive > 0) ? Math.min(serverKeepAlive, maxKeepAlive) : maxKeepAlive;
+        };
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(settings.getIdleEvictAfter(), TimeUnit.MILLISECONDS)
+                .build();
+
+        logger.info("HttpClient pool [{}] created : {}", CommonUtils.loggerReplace(destination), CommonUtils.loggerReplace(settings));
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * 이 pool 을 사용하는 RestTemplate 을 생성한다.
+     * timeout 은 HttpClient 의 기본 RequestConfig 를 따른다.
+     *
+     * @return RestTemplate
+     */
+    public RestTemplate createRestTemplate() {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        gauge(registry, "http.client.pool.leased", "Connections currently leased from the pool", PoolStats::getLeased);
+        gauge(registry, "http.client.pool.pending", "Requests waiting for a pooled connection", PoolStats::getPending);
+        gauge(registry, "http.client.pool.available", "Idle connections kept alive in the pool", PoolStats::getAvailable);
+        gauge(registry, "http.client.pool.max", "Maximum connections of the pool", PoolStats::getMax);
+    }
+
+    private void gauge(MeterRegistry registry, String name, String description, ToDoubleFunction<PoolStats> value) {
+        Gauge.builder(name, this, client -> value.applyAsDouble(client.getTotalStats()))
+                .description(description)
+                .tag("destination", destination)
+                .register(registry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        logger.info("HttpClient pool [{}] closing..", CommonUtils.loggerReplace(destination));
+        httpClient.close();
+    }
+
+
+    /**
+     * 통신 대상별 connection pool / timeout 설정 값 (단위 : ms)
+     */
+    public static class Settings {
+        private int maxTotal = 100;
+        private int maxPerRoute = 50;
+        private int connectTimeout = 5000;
+        private int readTimeout = 30000;
+        private int poolAcquireTimeout = 5000;
+        private long keepAlive = 30000;
+        private long idleEvictAfter = 60000;
+        private long connectionTimeToLive = -1;
+        private int validateAfterInactivity = 2000;
+
+        public int getMaxTotal() { return maxTotal; }
+
+        public void setMaxTotal(int maxTotal) { this.maxTotal = maxTotal; }
+
+        public int getMaxPerRoute() { return maxPerRoute; }
+
+        public void setMaxPerRoute(int maxPerRoute) { this.maxPerRoute = maxPerRoute; }
+
+        public int getConnectTimeout() { return connectTimeout; }
+
+        public void setConnectTimeout(int connectTimeout) { this.connectTimeout = connectTimeout; }
+
+        public int getReadTimeout() { return readTimeout; }
+
+        public void setReadTimeout(int readTimeout) { this.readTimeout = readTimeout; }
+
+        public int getPoolAcquireTimeout() { return poolAcquireTimeout; }
+
+        public void setPoolAcquireTimeout(int poolAcquireTimeout) { this.poolAcquireTimeout = poolAcquireTimeout; }
+
+        public long getKeepAlive() { return keepAlive; }
+
+        public void setKeepAlive(long keepAlive) { this.keepAlive = keepAlive; }
+
+        public long getIdleEvictAfter() { return idleEvictAfter; }
+
+        public void setIdleEvictAfter(long idleEvictAfter) { this.idleEvictAfter = idleEvictAfter; }
+
+        public long getConnectionTimeToLive() { return connectionTimeToLive; }
+
+        public void setConnectionTimeToLive(long connectionTimeToLive) { this.connectionTimeToLive = connectionTimeToLive; }
+
+        public int getValidateAfterInactivity() { return validateAfterInactivity; }
+
+        public void setValidateAfterInactivity(int validateAfterInactivity) { this.validateAfterInactivity = validateAfterInactivity; }
+
+        @Override
+        public String toString() {
+            return "Settings{" +
+                    "maxTotal=" + maxTotal +
+                    ", maxPerRoute=" + maxPerRoute +
+                    ", connectTimeout=" + connectTimeout +
+                    ", readTimeout=" + readTimeout +
+                    ", poolAcquireTimeout=" + poolAcquireTimeout +
+                    ", keepAlive=" + keepAlive +
+                    ", idleEvictAfter=" + idleEvictAfter +
+                    ", connectionTimeToLive=" + connectionTimeToLive +
+                    ", validateAfterInactivity=" + validateAfterInactivity +
+                    '}';
+        }
+    }
+}
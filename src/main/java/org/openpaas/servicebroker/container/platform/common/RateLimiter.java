@@ -0,0 +1,40 @@
+package org.openpaas.servicebroker.container.platform.common;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 초당 요청 수를 제한하는 클래스
+ * 요청마다 다음 요청 가능 시각을 1/permitsPerSecond 초씩 뒤로 미루고, 그 시각까지 호출한 thread 를 대기시킨다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+public final class RateLimiter {
+
+    private final long intervalNanos;
+
+    private long nextFreeTime = System.nanoTime();
+
+    public RateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive : " + permitsPerSecond);
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    /**
+     * 요청 가능할 때까지 대기한다.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextFreeTime);
+            nextFreeTime = slot + intervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.openpaas.servicebroker.container.platform.common;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * key 의 hash 로 고정된 개수의 lock 중 하나를 선택하는 클래스
+ * 같은 key 는 항상 같은 lock 을 사용하므로 서로 배타적으로 실행되고, 다른 key 는 (hash 가 충돌하지 않는 한) 동시에 실행된다.
+ * key 마다 lock 을 만들지 않으므로 key 가 늘어나도 메모리가 증가하지 않는다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+public final class StripedLock {
+
+    private final Lock[] locks;
+
+    private final int mask;
+
+    /**
+     * @param stripes lock 개수 (2의 거듭제곱으로 올림)
+     */
+    public StripedLock(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be positive : " + stripes);
+        }
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.locks = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * key 에 해당하는 lock
+     */
+    public Lock get(Object key) {
+        int hash = key.hashCode();
+        // 하위 bit 만 사용하므로 상위 bit 를 섞는다.
+        hash ^= (hash >>> 16);
+        return locks[hash & mask];
+    }
+
+    public int size() {
+        return locks.length;
+    }
+}
@@ -0,0 +1,100 @@
+package org.openpaas.servicebroker.container.platform.common;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 값을 ttl 동안만 보관하는 간단한 cache
+ * 만료된 값은 다음 조회시 loader 로 다시 읽는다. loader 가 null 을 반환하면 보관하지 않는다.
+ * 같은 key 를 여러 thread 가 동시에 읽는 경우 loader 가 중복 호출될 수 있다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+public class TtlCache<K, V> {
+
+    private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final long ttlMillis;
+
+    public TtlCache(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        Entry<V> entry = entries.get(key);
+        long now = System.currentTimeMillis();
+        if (entry != null && entry.expiresAt > now) {
+            return entry.value;
+        }
+
+        V value = loader.apply(key);
+        if (value == null) {
+            entries.remove(key);
+        } else {
+            entries.put(key, new Entry<>(value, now + ttlMillis));
+        }
+        return value;
+    }
+
+    /**
+     * 보관중인 값. 없거나 만료되었으면 null
+     */
+    public V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        return (entry != null && entry.expiresAt > System.currentTimeMillis()) ? entry.value : null;
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * 조건에 맞는 값을 모두 버린다. (key 를 모르고 값만 아는 경우)
+     */
+    public void invalidateIf(Predicate<V> predicate) {
+        entries.values().removeIf(entry -> predicate.test(entry.value));
+    }
+
+    /**
+     * 조건에 맞는 key 의 값을 모두 버린다.
+     */
+    public void invalidateKeysIf(Predicate<K> predicate) {
+        entries.keySet().removeIf(predicate);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * 만료된 값을 버린다. 다시 조회되지 않는 key 가 계속 쌓이는 경우 주기적으로 호출한다.
+     */
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+    }
+
+    /**
+     * 보관중인 값의 수 (만료되었지만 아직 버리지 않은 값 포함)
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -5,23 +5,29 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 /**
  * 기본 Spring boot packages의 component 검색하고,
  * jpa사용을 위해서 @EntityScan, @EnableJpaRepositories를 추가
+ * 주기적인 작업(admin token 갱신 등)을 위해 @EnableScheduling을 추가
+ * 서비스 인스턴스 API 는 비동기 처리를 지원하는 AsyncServiceInstanceController 가 처리하므로 라이브러리의 ServiceInstanceController 는 제외
  *
  * @author 박혜린
  * @since 2018.07.24
  * @version 20180724
  */
 @Configuration
-@ComponentScan(basePackages = { "org.openpaas.servicebroker" })
+@ComponentScan(basePackages = { "org.openpaas.servicebroker" },
+        excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = "org\\.openpaas\\.servicebroker\\.controller\\.ServiceInstanceController"))
 @EnableJpaRepositories("org.openpaas.servicebroker.container.platform.repo")
 @EntityScan(value = "org.openpaas.servicebroker.container.platform.model")
+@EnableScheduling
 public class BrokerConfig {
 
     @Bean
@@ -0,0 +1,78 @@
+package org.openpaas.servicebroker.container.platform.config;
+
+import org.openpaas.servicebroker.container.platform.common.CircuitBreaker;
+import org.openpaas.servicebroker.container.platform.model.Constants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import javax.ws.rs.ClientErrorException;
+import java.util.function.Predicate;
+
+/**
+ * 통신 대상(k8s api, keycloak, cp-api, cp-common-api)별 CircuitBreaker Bean 을 생성하는 설정 클래스
+ * 대상별 설정은 circuit-breaker.{destination}.* 로 지정하며, 지정하지 않은 값은 기본값을 사용한다.
+ * 4xx 응답은 대상이 정상적으로 응답한 것이므로 실패로 보지 않는다. (429 제외)
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Configuration
+public class CircuitBreakerConfig {
+
+    private static final String PROPERTY_PREFIX = "circuit-breaker.";
+
+    private static final Predicate<Throwable> HTTP_FAILURE = exception -> exception instanceof HttpServerErrorException
+            || exception instanceof ResourceAccessException
+            || (exception instanceof HttpClientErrorException
+                && ((HttpClientErrorException) exception).getRawStatusCode() == HttpStatus.TOO_MANY_REQUESTS.value());
+
+    // keycloak admin client(RESTEasy) 는 4xx 응답을 ClientErrorException 으로 던진다.
+    private static final Predicate<Throwable> KEYCLOAK_FAILURE = exception -> !(exception instanceof ClientErrorException)
+            || ((ClientErrorException) exception).getResponse().getStatus() == HttpStatus.TOO_MANY_REQUESTS.value();
+
+    @Autowired
+    private Environment environment;
+
+    @Bean
+    public CircuitBreaker k8sCircuitBreaker() {
+        return createCircuitBreaker(Constants.HTTP_CLIENT_K8S, 40, HTTP_FAILURE);
+    }
+
+    @Bean
+    public CircuitBreaker keycloakCircuitBreaker() {
+        return createCircuitBreaker(Constants.DESTINATION_KEYCLOAK, 10, KEYCLOAK_FAILURE);
+    }
+
+    @Bean
+    public CircuitBreaker cpApiCircuitBreaker() {
+        return createCircuitBreaker(Constants.HTTP_CLIENT_CP_API, 10, HTTP_FAILURE);
+    }
+
+    @Bean
+    public CircuitBreaker commonApiCircuitBreaker() {
+        return createCircuitBreaker(Constants.HTTP_CLIENT_COMMON_API, 10, HTTP_FAILURE);
+    }
+
+
+    private CircuitBreaker createCircuitBreaker(String destination, int defaultMaxConcurrent, Predicate<Throwable> failurePredicate) {
+        String prefix = PROPERTY_PREFIX + destination + ".";
+        CircuitBreaker.Settings settings = new CircuitBreaker.Settings();
+
+        settings.setWindowSize(environment.getProperty(prefix + "window-size", Integer.class, settings.getWindowSize()));
+        settings.setMinimumCalls(environment.getProperty(prefix + "minimum-calls", Integer.class, settings.getMinimumCalls()));
+        settings.setFailureRateThreshold(environment.getProperty(prefix + "failure-rate-threshold", Integer.class, settings.getFailureRateThreshold()));
+        settings.setSlowCallDuration(environment.getProperty(prefix + "slow-call-duration", Long.class, settings.getSlowCallDuration()));
+        settings.setOpenDuration(environment.getProperty(prefix + "open-duration", Long.class, settings.getOpenDuration()));
+        settings.setHalfOpenCalls(environment.getProperty(prefix + "half-open-calls", Integer.class, settings.getHalfOpenCalls()));
+        settings.setMaxConcurrent(environment.getProperty(prefix + "max-concurrent", Integer.class, defaultMaxConcurrent));
+        settings.setMaxWait(environment.getProperty(prefix + "max-wait", Long.class, settings.getMaxWait()));
+
+        return new CircuitBreaker(destination, settings, failurePredicate);
+    }
+}
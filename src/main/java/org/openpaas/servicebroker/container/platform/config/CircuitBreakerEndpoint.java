@@ -0,0 +1,34 @@
+package org.openpaas.servicebroker.container.platform.config;
+
+import org.openpaas.servicebroker.container.platform.common.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 통신 대상별 circuit breaker 상태 조회 endpoint (GET /actuator/circuitbreakers)
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Component
+@Endpoint(id = "circuitbreakers")
+public class CircuitBreakerEndpoint {
+
+    @Autowired
+    private List<CircuitBreaker> circuitBreakers;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> circuitBreakers() {
+        Map<String, Map<String, Object>> states = new TreeMap<>();
+        for (CircuitBreaker circuitBreaker : circuitBreakers) {
+            states.put(circuitBreaker.getDestination(), circuitBreaker.snapshot());
+        }
+        return states;
+    }
+}
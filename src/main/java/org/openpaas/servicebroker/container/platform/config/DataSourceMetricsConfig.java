@@ -0,0 +1,39 @@
+package org.openpaas.servicebroker.container.platform.config;
+
+import org.openpaas.servicebroker.container.platform.common.InstrumentedDataSource;
+import org.openpaas.servicebroker.container.platform.service.impl.SqlStatementStatistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource 의 SQL 실행 시간 측정 설정 (show-sql 대체)
+ * DataSource bean 을 InstrumentedDataSource 로 감싸 SqlStatementStatistics 에 실행 시간을 전달한다.
+ * InstrumentedDataSource 는 DelegatingDataSource 이므로 connection pool metric 은 기존과 같이 수집된다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Configuration
+@ConditionalOnProperty(name = "jdbc.statement-metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class DataSourceMetricsConfig {
+
+    // BeanPostProcessor 는 다른 bean 보다 먼저 생성되므로 static 으로 등록하고 SqlStatementStatistics 는 첫 SQL 실행시 찾는다.
+    @Bean
+    public static BeanPostProcessor dataSourceInstrumentationPostProcessor(ObjectProvider<SqlStatementStatistics> statementStatistics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof InstrumentedDataSource)) {
+                    return new InstrumentedDataSource((DataSource) bean,
+                            (sql, elapsedNanos, failed) -> statementStatistics.getObject().executed(sql, elapsedNanos, failed));
+                }
+                return bean;
+            }
+        };
+    }
+}
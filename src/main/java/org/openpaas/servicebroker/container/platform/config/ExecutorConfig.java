@@ -0,0 +1,107 @@
+package org.openpaas.servicebroker.container.platform.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 브로커 내부 병렬 작업에 사용하는 Executor Bean 을 생성하는 설정 클래스
+ * pool 크기와 대기 queue 는 제한되어 있으며, queue 가 가득 차면 요청한 thread 에서 직접 실행한다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * namespace 하위 resource(ResourceQuota, LimitRange, Role) 생성 요청용 Executor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor namespaceTaskExecutor(@Value("${k8s.namespace.parallelism:8}") int parallelism,
+                                                        @Value("${k8s.namespace.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("k8s-namespace-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * namespace pool 을 채우는(warm up) 작업용 Executor
+     * 생성 요청의 namespace 하위 resource 생성이 pool 채우기에 밀리지 않도록 namespaceTaskExecutor 와 같은 pool 을 사용하지 않는다.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor namespacePoolTaskExecutor(@Value("${k8s.namespace-pool.parallelism:2}") int parallelism,
+                                                            @Value("${k8s.namespace-pool.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("k8s-namespace-pool-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * 서비스 인스턴스 생성시 서로 의존하지 않는 단계(keycloak 계정 생성 등)를 요청 thread 와 동시에 실행하기 위한 Executor
+     * namespace 생성은 namespaceTaskExecutor 의 작업을 기다리므로 같은 pool 을 사용하지 않는다.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor provisioningTaskExecutor(@Value("${provisioning.parallelism:8}") int parallelism,
+                                                           @Value("${provisioning.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("provisioning-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * 비동기(accepts_incomplete=true) 서비스 인스턴스 생성/변경/삭제 작업용 Executor
+     * 대기 queue 가 가득 차면 요청 thread 에서 실행하지 않고 거절한다. (ServiceOperationService 에서 실패 처리)
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor operationTaskExecutor(@Value("${provisioning.async.workers:4}") int workers,
+                                                        @Value("${provisioning.async.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("operation-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Keycloak 사용자 일괄 가져오기(partialImport) 요청용 Executor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor keycloakTaskExecutor(@Value("${keycloak.admin.cp.import.parallelism:2}") int parallelism,
+                                                       @Value("${keycloak.admin.cp.import.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("keycloak-import-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,106 @@
+package org.openpaas.servicebroker.container.platform.config;
+
+import org.apache.http.conn.ssl.TrustStrategy;
+import org.openpaas.servicebroker.container.platform.common.PooledHttpClient;
+import org.openpaas.servicebroker.container.platform.model.Constants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.web.client.RestTemplate;
+
+import javax.net.ssl.SSLContext;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+
+/**
+ * 통신 대상(k8s api, cp-api, cp-common-api, keycloak)별 HttpClient pool 과 RestTemplate Bean 을 생성하는 설정 클래스
+ * 대상별 설정은 http-client.{destination}.* 로 지정하며, 지정하지 않은 값은 기본값을 사용한다. (단, SSL은 무시)
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Configuration
+public class HttpClientConfig {
+
+    private static final String PROPERTY_PREFIX = "http-client.";
+
+    @Autowired
+    private Environment environment;
+
+    @Bean(destroyMethod = "close")
+    public PooledHttpClient k8sHttpClient() throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
+        return createPooledHttpClient(Constants.HTTP_CLIENT_K8S, 100, 50);
+    }
+
+    @Bean(destroyMethod = "close")
+    public PooledHttpClient cpApiHttpClient() throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
+        return createPooledHttpClient(Constants.HTTP_CLIENT_CP_API, 40, 20);
+    }
+
+    @Bean(destroyMethod = "close")
+    public PooledHttpClient commonApiHttpClient() throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
+        return createPooledHttpClient(Constants.HTTP_CLIENT_COMMON_API, 40, 20);
+    }
+
+    /**
+     * keycloak admin client 용 pool (KeycloakConfig 참고)
+     */
+    @Bean(destroyMethod = "close")
+    public PooledHttpClient keycloakHttpClient() throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
+        return createPooledHttpClient(Constants.DESTINATION_KEYCLOAK, 20, 20);
+    }
+
+    /**
+     * k8s api 통신용 RestTemplate (기본 RestTemplate)
+     */
+    @Bean
+    @Primary
+    public RestTemplate restTemplate(@Qualifier("k8sHttpClient") PooledHttpClient k8sHttpClient) {
+        return k8sHttpClient.createRestTemplate();
+    }
+
+    /**
+     * cp-api 통신용 RestTemplate
+     */
+    @Bean
+    public RestTemplate cpApiRestTemplate(@Qualifier("cpApiHttpClient") PooledHttpClient cpApiHttpClient) {
+        return cpApiHttpClient.createRestTemplate();
+    }
+
+    /**
+     * cp-common-api 통신용 RestTemplate
+     */
+    @Bean
+    public RestTemplate commonApiRestTemplate(@Qualifier("commonApiHttpClient") PooledHttpClient commonApiHttpClient) {
+        return commonApiHttpClient.createRestTemplate();
+    }
+
+
+    private PooledHttpClient createPooledHttpClient(String destination, int defaultMaxTotal, int defaultMaxPerRoute)
+            throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
+        String prefix = PROPERTY_PREFIX + destination + ".";
+        PooledHttpClient.Settings settings = new PooledHttpClient.Settings();
+
+        settings.setMaxTotal(environment.getProperty(prefix + "max-total", Integer.class, defaultMaxTotal));
+        settings.setMaxPerRoute(environment.getProperty(prefix + "max-per-route", Integer.class, defaultMaxPerRoute));
+        settings.setConnectTimeout(environment.getProperty(prefix + "connect-timeout", Integer.class, settings.getConnectTimeout()));
+        settings.setReadTimeout(environment.getProperty(prefix + "read-timeout", Integer.class, settings.getReadTimeout()));
+        settings.setPoolAcquireTimeout(environment.getProperty(prefix + "pool-acquire-timeout", Integer.class, settings.getPoolAcquireTimeout()));
+        settings.setKeepAlive(environment.getProperty(prefix + "keep-alive", Long.class, settings.getKeepAlive()));
+        settings.setIdleEvictAfter(environment.getProperty(prefix + "idle-evict-after", Long.class, settings.getIdleEvictAfter()));
+        settings.setConnectionTimeToLive(environment.getProperty(prefix + "connection-time-to-live", Long.class, settings.getConnectionTimeToLive()));
+        settings.setValidateAfterInactivity(environment.getProperty(prefix + "validate-after-inactivity", Integer.class, settings.getValidateAfterInactivity()));
+
+        return new PooledHttpClient(destination, settings, trustAllSslContext());
+    }
+
+    private SSLContext trustAllSslContext() throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
+        TrustStrategy acceptingTrustStrategy = (X509Certificate[] chain, String authType) -> true;
+        return org.apache.http.ssl.SSLContexts.custom().loadTrustMaterial(null, acceptingTrustStrategy).build();
+    }
+}
@@ -0,0 +1,91 @@
+package org.openpaas.servicebroker.container.platform.config;
+
+import io.micrometer.core.instrument.Metrics;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
+import org.keycloak.admin.client.JacksonProvider;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.KeycloakBuilder;
+import org.openpaas.servicebroker.container.platform.common.PooledHttpClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.core.Form;
+
+/**
+ * Keycloak admin client Bean 을 생성하는 설정 클래스
+ * 요청마다 Keycloak 객체(RESTEasy client, connection pool, token 발급)를 새로 만들지 않도록 하나의 객체를 공유한다.
+ * RESTEasy client 는 keycloakHttpClient pool (http-client.keycloak.*) 을 사용하므로 connection 과 TLS session 을 재사용하고,
+ * admin access token 은 TokenManager 가 보관하다가 만료 min-token-validity 초 전부터 refresh token 으로 갱신한다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Configuration
+public class KeycloakConfig {
+
+    private static final String TOKEN_PATH = "/protocol/openid-connect/token";
+
+    @Value("${keycloak.admin.client.grantType}")
+    private String grantType;
+
+    @Value("${keycloak.admin.client.username}")
+    private String username;
+
+    @Value("${keycloak.admin.client.password}")
+    private String password;
+
+    @Value("${keycloak.admin.client.serverUrl}")
+    private String serverUrl;
+
+    @Value("${keycloak.admin.client.realm}")
+    private String realm;
+
+    @Value("${keycloak.admin.client.clientId}")
+    private String clientId;
+
+    @Value("${keycloak.admin.client.min-token-validity:30}")
+    private long minTokenValidity;
+
+    @Bean(destroyMethod = "close")
+    public Keycloak keycloak(@Qualifier("keycloakHttpClient") PooledHttpClient keycloakHttpClient) {
+        // http client 는 keycloakHttpClient Bean 이 닫는다.
+        ResteasyClient resteasyClient = new ResteasyClientBuilder()
+                .httpEngine(new ApacheHttpClient43Engine(keycloakHttpClient.getHttpClient(), false))
+                .register(new JacksonProvider(), 100)
+                .register(tokenMetricsFilter())
+                .build();
+
+        Keycloak keycloak = KeycloakBuilder.builder()
+                .serverUrl(serverUrl)
+                .realm(realm)
+                .grantType(grantType)
+                .username(username)
+                .password(password)
+                .clientId(clientId)
+                .resteasyClient(resteasyClient)
+                .build();
+        keycloak.tokenManager().setMinTokenValidity(minTokenValidity);
+        return keycloak;
+    }
+
+    /**
+     * token 발급(password 등)/갱신(refresh_token) 요청 수를 metric 으로 남긴다.
+     */
+    private static ClientResponseFilter tokenMetricsFilter() {
+        return (requestContext, responseContext) -> {
+            if (!requestContext.getUri().getPath().endsWith(TOKEN_PATH)) {
+                return;
+            }
+            Object entity = requestContext.getEntity();
+            String requestGrantType = (entity instanceof Form) ? ((Form) entity).asMap().getFirst("grant_type") : null;
+            Metrics.counter("keycloak.admin.token.requests",
+                    "grant_type", requestGrantType == null ? "unknown" : requestGrantType,
+                    "status", String.valueOf(responseContext.getStatus())).increment();
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package org.openpaas.servicebroker.container.platform.config;
+
+import org.openpaas.servicebroker.container.platform.service.impl.InstanceServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 사용자 포탈 namespace 의 ResourceQuota 를 broker DB 의 plan 으로 일괄 맞추는 endpoint (POST /actuator/resourcequotas)
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Component
+@Endpoint(id = "resourcequotas")
+public class ResourceQuotaEndpoint {
+
+    @Autowired
+    private InstanceServiceImpl instanceService;
+
+    @WriteOperation
+    public Map<String, String> reconcile() {
+        return instanceService.reconcileResourceQuotas();
+    }
+}
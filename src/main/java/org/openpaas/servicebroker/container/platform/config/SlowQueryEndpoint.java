@@ -0,0 +1,34 @@
+package org.openpaas.servicebroker.container.platform.config;
+
+import org.openpaas.servicebroker.container.platform.service.impl.SqlStatementStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 누적 실행 시간이 긴 SQL 형태 조회 endpoint (GET /actuator/slowqueries?limit=20)
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    @Autowired
+    private SqlStatementStatistics statementStatistics;
+
+    @Value("${jdbc.statement-metrics.top:20}")
+    private int top;
+
+    @ReadOperation
+    public List<Map<String, Object>> slowQueries(@Nullable Integer limit) {
+        return statementStatistics.top(limit == null ? top : limit);
+    }
+}
@@ -0,0 +1,220 @@
+package org.openpaas.servicebroker.container.platform.controller;
+
+import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.exception.ConcurrentOperationException;
+import org.openpaas.servicebroker.container.platform.model.Constants;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceOperation;
+import org.openpaas.servicebroker.container.platform.service.impl.IdempotencyService;
+import org.openpaas.servicebroker.container.platform.service.impl.InstanceServiceImpl;
+import org.openpaas.servicebroker.container.platform.service.impl.ServiceOperationService;
+import org.openpaas.servicebroker.controller.BaseController;
+import org.openpaas.servicebroker.exception.ServiceBrokerException;
+import org.openpaas.servicebroker.exception.ServiceDefinitionDoesNotExistException;
+import org.openpaas.servicebroker.exception.ServiceInstanceDoesNotExistException;
+import org.openpaas.servicebroker.exception.ServiceInstanceExistsException;
+import org.openpaas.servicebroker.exception.ServiceInstanceUpdateNotSupportedException;
+import org.openpaas.servicebroker.model.CreateServiceInstanceRequest;
+import org.openpaas.servicebroker.model.CreateServiceInstanceResponse;
+import org.openpaas.servicebroker.model.DeleteServiceInstanceRequest;
+import org.openpaas.servicebroker.model.ErrorMessage;
+import org.openpaas.servicebroker.model.OperationState;
+import org.openpaas.servicebroker.model.ServiceDefinition;
+import org.openpaas.servicebroker.model.ServiceInstance;
+import org.openpaas.servicebroker.model.ServiceInstanceLastOperation;
+import org.openpaas.servicebroker.model.UpdateServiceInstanceRequest;
+import org.openpaas.servicebroker.service.CatalogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 서비스 인스턴스 생성/변경/삭제 및 last_operation API 컨트롤러 (라이브러리의 ServiceInstanceController 대체)
+ * accepts_incomplete=true 요청은 작업 상태를 저장한 뒤 202 Accepted 로 바로 응답하고, 실제 작업은 ServiceOperationService 의 worker 에서 실행한다.
+ * accepts_incomplete 가 없으면 기존과 같이 요청 thread 에서 처리한다.
+ * 생성/삭제 요청은 IdempotencyService 를 거치므로 플랫폼이 다시 보낸 같은 요청은 처음 요청의 결과로 응답한다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Controller
+public class AsyncServiceInstanceController extends BaseController {
+
+    public static final String BASE_PATH = "/v2/service_instances";
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncServiceInstanceController.class);
+
+    @Autowired
+    private InstanceServiceImpl instanceService;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private ServiceOperationService serviceOperationService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+
+    @RequestMapping(value = BASE_PATH + "/{instanceId}", method = RequestMethod.PUT)
+    public ResponseEntity<?> createServiceInstance(@PathVariable("instanceId") String serviceInstanceId,
+                                                   @RequestParam(value = "accepts_incomplete", required = false, defaultValue = "false") boolean acceptsIncomplete,
+                                                   @Valid @RequestBody CreateServiceInstanceRequest request) throws Exception {
+        logger.info("PUT: {}/{}, accepts_incomplete : {}", BASE_PATH, CommonUtils.loggerReplace(serviceInstanceId), acceptsIncomplete);
+
+        String fingerprint = String.join(",", request.getServiceDefinitionId(), request.getPlanId(), request.getOrganizationGuid(), request.getSpaceGuid(),
+                String.valueOf(request.getParameters() == null ? null : new TreeMap<>(request.getParameters())), String.valueOf(acceptsIncomplete));
+        return idempotencyService.execute(IdempotencyService.key(serviceInstanceId, "PUT", fingerprint),
+                () -> doCreateServiceInstance(serviceInstanceId, acceptsIncomplete, request));
+    }
+
+    private ResponseEntity<?> doCreateServiceInstance(String serviceInstanceId, boolean acceptsIncomplete, CreateServiceInstanceRequest request)
+            throws ServiceDefinitionDoesNotExistException, ServiceInstanceExistsException, ServiceBrokerException {
+        ServiceDefinition serviceDefinition = catalogService.getServiceDefinition(request.getServiceDefinitionId());
+        if (serviceDefinition == null) {
+            throw new ServiceDefinitionDoesNotExistException(request.getServiceDefinitionId());
+        }
+        CreateServiceInstanceRequest createRequest = request.withServiceDefinition(serviceDefinition).and().withServiceInstanceId(serviceInstanceId);
+
+        if (!isAsync(acceptsIncomplete)) {
+            ServiceInstance instance = instanceService.createServiceInstance(createRequest);
+            return new ResponseEntity<>(new CreateServiceInstanceResponse(instance), instance.getHttpStatus());
+        }
+
+        ServiceInstance existing = instanceService.getServiceInstance(serviceInstanceId);
+        if (existing != null) {
+            throw new ServiceInstanceExistsException(existing);
+        }
+
+        JpaServiceOperation operation = serviceOperationService.submit(serviceInstanceId, Constants.OPERATION_TYPE_CREATE,
+                () -> instanceService.createServiceInstance(createRequest));
+        return accepted(instanceService.getDashboardUrl(createRequest), operation);
+    }
+
+    @RequestMapping(value = BASE_PATH + "/{instanceId}", method = RequestMethod.PATCH)
+    public ResponseEntity<?> updateServiceInstance(@PathVariable("instanceId") String serviceInstanceId,
+                                                   @RequestParam(value = "accepts_incomplete", required = false, defaultValue = "false") boolean acceptsIncomplete,
+                                                   @Valid @RequestBody UpdateServiceInstanceRequest request)
+            throws ServiceInstanceUpdateNotSupportedException, ServiceInstanceDoesNotExistException, ServiceBrokerException {
+        logger.info("PATCH: {}/{}, accepts_incomplete : {}", BASE_PATH, CommonUtils.loggerReplace(serviceInstanceId), acceptsIncomplete);
+
+        UpdateServiceInstanceRequest updateRequest = request.withInstanceId(serviceInstanceId);
+        if (!isAsync(acceptsIncomplete)) {
+            instanceService.updateServiceInstance(updateRequest);
+            return new ResponseEntity<>("{}", HttpStatus.OK);
+        }
+
+        JpaServiceOperation operation = serviceOperationService.submit(serviceInstanceId, Constants.OPERATION_TYPE_UPDATE,
+                () -> instanceService.updateServiceInstance(updateRequest));
+        return accepted(null, operation);
+    }
+
+    @RequestMapping(value = BASE_PATH + "/{instanceId}", method = RequestMethod.DELETE)
+    public ResponseEntity<?> deleteServiceInstance(@PathVariable("instanceId") String serviceInstanceId,
+                                                   @RequestParam("service_id") String serviceId,
+                                                   @RequestParam("plan_id") String planId,
+                                                   @RequestParam(value = "accepts_incomplete", required = false, defaultValue = "false") boolean acceptsIncomplete)
+            throws Exception {
+        logger.info("DELETE: {}/{}, accepts_incomplete : {}", BASE_PATH, CommonUtils.loggerReplace(serviceInstanceId), acceptsIncomplete);
+
+        String fingerprint = String.join(",", serviceId, planId, String.valueOf(acceptsIncomplete));
+        return idempotencyService.execute(IdempotencyService.key(serviceInstanceId, "DELETE", fingerprint),
+                () -> doDeleteServiceInstance(serviceInstanceId, serviceId, planId, acceptsIncomplete));
+    }
+
+    private ResponseEntity<?> doDeleteServiceInstance(String serviceInstanceId, String serviceId, String planId, boolean acceptsIncomplete)
+            throws ServiceBrokerException {
+        DeleteServiceInstanceRequest deleteRequest = new DeleteServiceInstanceRequest(serviceInstanceId, serviceId, planId);
+
+        // DB 에 없는 인스턴스는 남은 namespace 만 정리하므로 바로 처리한다.
+        if (!isAsync(acceptsIncomplete) || instanceService.getServiceInstance(serviceInstanceId) == null) {
+            ServiceInstance instance = instanceService.deleteServiceInstance(deleteRequest);
+            return new ResponseEntity<>("{}", instance == null ? HttpStatus.GONE : HttpStatus.OK);
+        }
+
+        JpaServiceOperation operation = serviceOperationService.submit(serviceInstanceId, Constants.OPERATION_TYPE_DELETE,
+                () -> instanceService.deleteServiceInstance(deleteRequest));
+        return accepted(null, operation);
+    }
+
+    /**
+     * 저장된 작업 상태로 응답한다.
+     * 작업 기록이 없는 인스턴스(동기로 생성된 인스턴스)는 인스턴스가 있으면 succeeded, 없으면 410 Gone 으로 응답한다.
+     * 삭제 작업이 끝난 경우에도 410 Gone 으로 응답한다.
+     */
+    @RequestMapping(value = BASE_PATH + "/{instanceId}/last_operation", method = RequestMethod.GET)
+    public ResponseEntity<?> getServiceInstanceLastOperation(@PathVariable("instanceId") String serviceInstanceId,
+                                                             @RequestParam(value = "operation", required = false) String operationId) {
+        JpaServiceOperation operation = serviceOperationService.getLastOperation(serviceInstanceId, operationId);
+
+        if (operation == null) {
+            if (instanceService.getServiceInstance(serviceInstanceId) == null) {
+                return new ResponseEntity<>("{}", HttpStatus.GONE);
+            }
+            return new ResponseEntity<>(new ServiceInstanceLastOperation(null, OperationState.SUCCEEDED), HttpStatus.OK);
+        }
+
+        if (Constants.OPERATION_TYPE_DELETE.equals(operation.getOperationType()) && operation.getState() == OperationState.SUCCEEDED) {
+            return new ResponseEntity<>("{}", HttpStatus.GONE);
+        }
+        return new ResponseEntity<>(new ServiceInstanceLastOperation(operation.getDescription(), operation.getState()), HttpStatus.OK);
+    }
+
+
+    @ExceptionHandler(ServiceDefinitionDoesNotExistException.class)
+    @ResponseBody
+    public ResponseEntity<ErrorMessage> handleException(ServiceDefinitionDoesNotExistException ex, HttpServletResponse response) {
+        return getErrorResponse(ex.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @ExceptionHandler(ServiceInstanceExistsException.class)
+    @ResponseBody
+    public ResponseEntity<String> handleException(ServiceInstanceExistsException ex, HttpServletResponse response) {
+        return new ResponseEntity<>("{}", HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceInstanceUpdateNotSupportedException.class)
+    @ResponseBody
+    public ResponseEntity<ErrorMessage> handleException(ServiceInstanceUpdateNotSupportedException ex, HttpServletResponse response) {
+        return getErrorResponse(ex.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @ExceptionHandler(ConcurrentOperationException.class)
+    @ResponseBody
+    public ResponseEntity<Map<String, String>> handleException(ConcurrentOperationException ex, HttpServletResponse response) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("error", "ConcurrencyError");
+        body.put("description", ex.getMessage());
+        return new ResponseEntity<>(body, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+
+    private boolean isAsync(boolean acceptsIncomplete) {
+        return acceptsIncomplete && serviceOperationService.isEnabled();
+    }
+
+    private ResponseEntity<Map<String, String>> accepted(String dashboardUrl, JpaServiceOperation operation) {
+        Map<String, String> body = new LinkedHashMap<>();
+        if (dashboardUrl != null) {
+            body.put("dashboard_url", dashboardUrl);
+        }
+        body.put("operation", operation.getOperationId());
+        return new ResponseEntity<>(body, HttpStatus.ACCEPTED);
+    }
+}
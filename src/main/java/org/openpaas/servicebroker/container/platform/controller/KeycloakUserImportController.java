@@ -0,0 +1,94 @@
+package org.openpaas.servicebroker.container.platform.controller;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.model.Constants;
+import org.openpaas.servicebroker.container.platform.model.KeycloakUserStatus;
+import org.openpaas.servicebroker.container.platform.service.impl.KeycloakAdminClientService;
+import org.openpaas.servicebroker.controller.BaseController;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 조직 단위 온보딩을 위한 Keycloak 사용자 일괄 생성 API 컨트롤러 (POST /v2/keycloak/users/import)
+ * 미리 생성한 사용자는 이후 서비스 인스턴스 생성시 Keycloak 계정 생성 요청을 생략한다. (KeycloakAdminClientService.importKeycloakUsers)
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Controller
+public class KeycloakUserImportController extends BaseController {
+
+    public static final String BASE_PATH = "/v2/keycloak/users";
+
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakUserImportController.class);
+
+    @Autowired
+    private KeycloakAdminClientService keycloakAdminClientService;
+
+    @Value("${keycloak.admin.cp.import.max-users:1000}")
+    private int maxUsers;
+
+
+    /**
+     * 사용자별 결과로 응답한다. (신규 생성 201, 이미 존재 409, 실패 FAIL)
+     *
+     * @param request usernames (UAA 사용자 Id 목록), user_type (NAMESPACE_ADMIN / CLUSTER_ADMIN, 기본 NAMESPACE_ADMIN)
+     * @return username 별 결과
+     */
+    @RequestMapping(value = BASE_PATH + "/import", method = RequestMethod.POST)
+    public ResponseEntity<?> importKeycloakUsers(@RequestBody ImportRequest request) {
+        List<String> usernames = request.getUsernames();
+        String userType = request.getUserType() == null ? Constants.AUTH_NAMESPACE_ADMIN : request.getUserType();
+        logger.info("POST: {}/import, users : {}, user_type : {}", BASE_PATH, usernames == null ? 0 : usernames.size(), CommonUtils.loggerReplace(userType));
+
+        if (usernames == null || usernames.isEmpty() || usernames.contains(null)) {
+            return getErrorResponse("usernames is required.", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        if (usernames.size() > maxUsers) {
+            return getErrorResponse("Too many usernames. (max: " + maxUsers + ")", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        if (!Constants.AUTH_NAMESPACE_ADMIN.equals(userType) && !Constants.AUTH_CLUSTER_ADMIN.equals(userType)) {
+            return getErrorResponse("Unsupported user_type : " + userType, HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+
+        Map<String, KeycloakUserStatus> results = keycloakAdminClientService.importKeycloakUsers(usernames, userType);
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    public static class ImportRequest {
+
+        @JsonProperty("usernames")
+        private List<String> usernames;
+
+        @JsonProperty("user_type")
+        private String userType;
+
+        public List<String> getUsernames() {
+            return usernames;
+        }
+
+        public void setUsernames(List<String> usernames) {
+            this.usernames = usernames;
+        }
+
+        public String getUserType() {
+            return userType;
+        }
+
+        public void setUserType(String userType) {
+            this.userType = userType;
+        }
+    }
+}
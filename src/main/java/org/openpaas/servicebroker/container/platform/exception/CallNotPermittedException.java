@@ -0,0 +1,23 @@
+package org.openpaas.servicebroker.container.platform.exception;
+
+/**
+ * circuit breaker 가 열려 있거나 bulkhead 의 동시 요청 수가 가득 차서 통신 대상에 요청하지 않고 바로 실패할 때 발생하는 Exception 클래스
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+public class CallNotPermittedException extends RuntimeException {
+
+    private static final long serialVersionUID = -2318806374925180112L;
+
+    private final String destination;
+
+    public CallNotPermittedException(String destination, String reason) {
+        super("Call to [" + destination + "] not permitted : " + reason);
+        this.destination = destination;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+}
@@ -0,0 +1,16 @@
+package org.openpaas.servicebroker.container.platform.exception;
+
+/**
+ * 같은 서비스 인스턴스에 다른 비동기 작업이 진행 중일 때 발생하는 Exception 클래스 (OSB ConcurrencyError, 422)
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+public class ConcurrentOperationException extends RuntimeException {
+
+    private static final long serialVersionUID = 4410907215730128316L;
+
+    public ConcurrentOperationException(String serviceInstanceId, String operationType) {
+        super("Another operation (" + operationType + ") for service instance [" + serviceInstanceId + "] is in progress.");
+    }
+}
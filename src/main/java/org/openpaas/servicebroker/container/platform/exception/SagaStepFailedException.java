@@ -0,0 +1,24 @@
+package org.openpaas.servicebroker.container.platform.exception;
+
+/**
+ * 서비스 인스턴스 생성 saga 의 단계가 실패했을 때 발생하는 Exception 클래스
+ * 이미 완료된 단계의 보상(rollback) 처리가 끝난 뒤에 발생하며, 실패한 단계 이름을 포함한다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+public class SagaStepFailedException extends RuntimeException {
+
+    private static final long serialVersionUID = -3160718562436810272L;
+
+    private final String stepName;
+
+    public SagaStepFailedException(String stepName, Throwable cause) {
+        super("Provisioning step [" + stepName + "] failed : " + cause.getMessage(), cause);
+        this.stepName = stepName;
+    }
+
+    public String getStepName() {
+        return stepName;
+    }
+}
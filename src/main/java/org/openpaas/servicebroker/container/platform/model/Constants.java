@@ -23,6 +23,15 @@ public class Constants {
 
     public static final String NULL_REPLACE_TEXT = "-";
 
+    public static final String HTTP_CLIENT_K8S = "k8s";
+    public static final String HTTP_CLIENT_CP_API = "cp-api";
+    public static final String HTTP_CLIENT_COMMON_API = "common-api";
+    public static final String DESTINATION_KEYCLOAK = "keycloak";
+
+    public static final String OPERATION_TYPE_CREATE = "create";
+    public static final String OPERATION_TYPE_UPDATE = "update";
+    public static final String OPERATION_TYPE_DELETE = "delete";
+
 
     public static final String URL_API_SIGNUP = "/signUp";
     public static final String URL_API_SIGNUP_ADMIN_PARAMS = "?isAdmin=true&param=";
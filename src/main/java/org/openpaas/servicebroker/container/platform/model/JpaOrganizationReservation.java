@@ -0,0 +1,43 @@
+package org.openpaas.servicebroker.container.platform.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * 사용자 포탈 서비스 인스턴스를 생성 중이거나 생성한 organization 을 저장하기 위한 Entity 모델 클래스
+ * organization_guid 가 primary key 이므로 한 organization 에 하나의 서비스 인스턴스만 예약할 수 있다. (여러 broker 간 동시 생성 방지)
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Entity
+@Table(name = "organization_reservation")
+public class JpaOrganizationReservation {
+
+    @Id
+    @Column(name = "organization_guid")
+    private String organizationGuid;
+
+    @Column(name = "service_instance_id", nullable = false)
+    private String serviceInstanceId;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    public JpaOrganizationReservation() {
+    }
+
+    public String getOrganizationGuid() {
+        return organizationGuid;
+    }
+
+    public String getServiceInstanceId() {
+        return serviceInstanceId;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,127 @@
+package org.openpaas.servicebroker.container.platform.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * 서비스 인스턴스 생성 saga 의 진행 상태를 저장하기 위한 Entity 모델 클래스
+ * context 에는 보상(rollback) 처리에 필요한 값(namespace, keycloak 계정 id 등)을 JSON 으로 저장한다. 시각은 모두 epoch millis 이다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Entity
+@Table(name = "provisioning_saga", indexes = @Index(name = "idx_provisioning_saga_state", columnList = "state, updated_at"))
+public class JpaProvisioningSaga {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        COMPENSATING,
+        COMPENSATED,
+        COMPENSATION_FAILED
+    }
+
+    @Id
+    @Column(name = "saga_id", length = 36)
+    private String sagaId;
+
+    @Column(name = "service_instance_id", nullable = false)
+    private String serviceInstanceId;
+
+    @Column(name = "saga_type", length = 32, nullable = false)
+    private String sagaType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", length = 24, nullable = false)
+    private State state;
+
+    @Column(name = "owner", length = 100)
+    private String owner;
+
+    @Column(name = "context", length = 4000)
+    private String context;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private long updatedAt;
+
+    public JpaProvisioningSaga() {
+    }
+
+    public JpaProvisioningSaga(String sagaId, String serviceInstanceId, String sagaType, String owner, long createdAt) {
+        this.sagaId = sagaId;
+        this.serviceInstanceId = serviceInstanceId;
+        this.sagaType = sagaType;
+        this.owner = owner;
+        this.state = State.RUNNING;
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
+    }
+
+    public String getSagaId() {
+        return sagaId;
+    }
+
+    public String getServiceInstanceId() {
+        return serviceInstanceId;
+    }
+
+    public String getSagaType() {
+        return sagaType;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getContext() {
+        return context;
+    }
+
+    public void setContext(String context) {
+        this.context = context;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "JpaProvisioningSaga{" +
+                "sagaId='" + sagaId + '\'' +
+                ", serviceInstanceId='" + serviceInstanceId + '\'' +
+                ", sagaType='" + sagaType + '\'' +
+                ", state=" + state +
+                ", owner='" + owner + '\'' +
+                '}';
+    }
+}
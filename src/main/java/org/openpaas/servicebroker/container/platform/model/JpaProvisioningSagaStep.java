@@ -0,0 +1,85 @@
+package org.openpaas.servicebroker.container.platform.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * 서비스 인스턴스 생성 saga 의 단계별 실행 기록을 저장하기 위한 Entity 모델 클래스
+ * 단계 실행 전에 STARTED, 실행 후에 DONE / FAILED 로 기록한다. id 는 "saga id:단계 이름" 이다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Entity
+@Table(name = "provisioning_saga_step", indexes = @Index(name = "idx_provisioning_saga_step_saga", columnList = "saga_id"))
+public class JpaProvisioningSagaStep {
+
+    public enum Status {
+        STARTED,
+        DONE,
+        FAILED,
+        COMPENSATED
+    }
+
+    @Id
+    @Column(name = "step_id", length = 100)
+    private String stepId;
+
+    @Column(name = "saga_id", length = 36, nullable = false)
+    private String sagaId;
+
+    @Column(name = "step_name", length = 60, nullable = false)
+    private String stepName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 16, nullable = false)
+    private Status status;
+
+    @Column(name = "updated_at", nullable = false)
+    private long updatedAt;
+
+    public JpaProvisioningSagaStep() {
+    }
+
+    public JpaProvisioningSagaStep(String sagaId, String stepName, Status status, long updatedAt) {
+        this.stepId = sagaId + ":" + stepName;
+        this.sagaId = sagaId;
+        this.stepName = stepName;
+        this.status = status;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getStepId() {
+        return stepId;
+    }
+
+    public String getSagaId() {
+        return sagaId;
+    }
+
+    public String getStepName() {
+        return stepName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "JpaProvisioningSagaStep{" +
+                "sagaId='" + sagaId + '\'' +
+                ", stepName='" + stepName + '\'' +
+                ", status=" + status +
+                '}';
+    }
+}
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.openpaas.servicebroker.container.platform.service.impl.ServiceInstanceCache;
 import org.openpaas.servicebroker.model.CreateServiceInstanceRequest;
 import org.openpaas.servicebroker.model.DeleteServiceInstanceRequest;
 import org.openpaas.servicebroker.model.ServiceInstance;
@@ -24,7 +25,12 @@ import java.util.Map;
  */
 @JsonAutoDetect(getterVisibility = JsonAutoDetect.Visibility.NONE)
 @Entity
-@Table(name = "service_instance")
+@EntityListeners(ServiceInstanceCache.EntityListener.class)
+// getter 에 mapping 하므로(property access) index 의 column 은 property 이름으로 지정한다. (DB column : organization_guid, dashboard_type, caas_namespace)
+@Table(name = "service_instance", indexes = {
+        @Index(name = "idx_service_instance_org_dashboard", columnList = "organizationGuid, dashboardType"),
+        @Index(name = "idx_service_instance_namespace", columnList = "caasNamespace"),
+        @Index(name = "idx_service_instance_dashboard_type", columnList = "dashboardType")})
 public class JpaServiceInstance extends ServiceInstance {
     @JsonSerialize
     @JsonProperty("service_id")
@@ -72,6 +78,9 @@ public class JpaServiceInstance extends ServiceInstance {
     private String dashboardType;
 
 
+    // 낙관적 잠금(optimistic lock) version, 다른 요청이 먼저 저장한 row 를 덮어쓰지 않는다.
+    private long version;
+
     @JsonIgnore
     @Transient
     private String organizationName;
@@ -256,6 +265,16 @@ public class JpaServiceInstance extends ServiceInstance {
         this.dashboardType = dashboardType;
     }
 
+    @Version
+    @Column(name = "version")
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Transient
     public Map<String, Object> getParameters() {
         return parameters;
@@ -0,0 +1,117 @@
+package org.openpaas.servicebroker.container.platform.model;
+
+import org.openpaas.servicebroker.model.OperationState;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * 비동기(accepts_incomplete=true)로 처리하는 서비스 인스턴스 생성/변경/삭제 작업의 상태를 저장하기 위한 Entity 모델 클래스
+ * last_operation 요청은 이 테이블의 값으로 응답한다. 시각은 모두 epoch millis 이다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Entity
+@Table(name = "service_operation", indexes = @Index(name = "idx_service_operation_instance", columnList = "service_instance_id"))
+public class JpaServiceOperation {
+
+    @Id
+    @Column(name = "operation_id", length = 36)
+    private String operationId;
+
+    @Column(name = "service_instance_id", nullable = false)
+    private String serviceInstanceId;
+
+    @Column(name = "operation_type", length = 16, nullable = false)
+    private String operationType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", length = 16, nullable = false)
+    private OperationState state;
+
+    @Column(name = "description", length = 1000)
+    private String description;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private long updatedAt;
+
+    @Column(name = "deadline", nullable = false)
+    private long deadline;
+
+    public JpaServiceOperation() {
+    }
+
+    public JpaServiceOperation(String operationId, String serviceInstanceId, String operationType, long createdAt, long deadline) {
+        this.operationId = operationId;
+        this.serviceInstanceId = serviceInstanceId;
+        this.operationType = operationType;
+        this.state = OperationState.IN_PROGRESS;
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
+        this.deadline = deadline;
+    }
+
+    public String getOperationId() {
+        return operationId;
+    }
+
+    public String getServiceInstanceId() {
+        return serviceInstanceId;
+    }
+
+    public String getOperationType() {
+        return operationType;
+    }
+
+    public OperationState getState() {
+        return state;
+    }
+
+    public void setState(OperationState state) {
+        this.state = state;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    @Override
+    public String toString() {
+        return "JpaServiceOperation{" +
+                "operationId='" + operationId + '\'' +
+                ", serviceInstanceId='" + serviceInstanceId + '\'' +
+                ", operationType='" + operationType + '\'' +
+                ", state=" + state +
+                ", description='" + description + '\'' +
+                '}';
+    }
+}
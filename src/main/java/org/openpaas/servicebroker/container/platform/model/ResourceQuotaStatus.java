@@ -0,0 +1,90 @@
+package org.openpaas.servicebroker.container.platform.model;
+
+/**
+ * namespace ResourceQuota 의 현재 상태 model 클래스
+ * 할당량(hard) 과 사용량(used) 중 브로커 plan 에 해당하는 항목(limits.cpu, limits.memory, requests.storage)만 가진다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+public class ResourceQuotaStatus {
+    private String resourceVersion;
+    private String hardCpu;
+    private String hardMemory;
+    private String hardStorage;
+    private String usedCpu;
+    private String usedMemory;
+    private String usedStorage;
+
+    /**
+     * 할당량(hard)이 주어진 값과 같은지 확인한다.
+     */
+    public boolean hasHard(String cpu, String memory, String storage) {
+        return cpu.equals(hardCpu) && memory.equals(hardMemory) && storage.equals(hardStorage);
+    }
+
+    public String getResourceVersion() {
+        return resourceVersion;
+    }
+
+    public void setResourceVersion(String resourceVersion) {
+        this.resourceVersion = resourceVersion;
+    }
+
+    public String getHardCpu() {
+        return hardCpu;
+    }
+
+    public void setHardCpu(String hardCpu) {
+        this.hardCpu = hardCpu;
+    }
+
+    public String getHardMemory() {
+        return hardMemory;
+    }
+
+    public void setHardMemory(String hardMemory) {
+        this.hardMemory = hardMemory;
+    }
+
+    public String getHardStorage() {
+        return hardStorage;
+    }
+
+    public void setHardStorage(String hardStorage) {
+        this.hardStorage = hardStorage;
+    }
+
+    public String getUsedCpu() {
+        return usedCpu;
+    }
+
+    public void setUsedCpu(String usedCpu) {
+        this.usedCpu = usedCpu;
+    }
+
+    public String getUsedMemory() {
+        return usedMemory;
+    }
+
+    public void setUsedMemory(String usedMemory) {
+        this.usedMemory = usedMemory;
+    }
+
+    public String getUsedStorage() {
+        return usedStorage;
+    }
+
+    public void setUsedStorage(String usedStorage) {
+        this.usedStorage = usedStorage;
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceQuotaStatus{" +
+                "resourceVersion='" + resourceVersion + '\'' +
+                ", hard=[cpu=" + hardCpu + ", memory=" + hardMemory + ", storage=" + hardStorage + ']' +
+                ", used=[cpu=" + usedCpu + ", memory=" + usedMemory + ", storage=" + usedStorage + ']' +
+                '}';
+    }
+}
@@ -0,0 +1,46 @@
+package org.openpaas.servicebroker.container.platform.repo;
+
+import org.openpaas.servicebroker.container.platform.model.JpaOrganizationReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * organization 예약(organization_reservation) JPA Repository 클래스
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Repository
+public interface JpaOrganizationReservationRepository extends JpaRepository<JpaOrganizationReservation, String> {
+
+    /**
+     * 예약을 insert 한다. (save 는 이미 있는 key 를 update 하므로 사용하지 않는다)
+     * 이미 예약된 organization 이면 DataIntegrityViolationException 이 발생한다.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "insert into organization_reservation (organization_guid, service_instance_id, created_at) " +
+            "values (:organizationGuid, :serviceInstanceId, :createdAt)", nativeQuery = true)
+    int insert(@Param("organizationGuid") String organizationGuid, @Param("serviceInstanceId") String serviceInstanceId,
+               @Param("createdAt") long createdAt);
+
+    /**
+     * 조회한 이후 바뀌지 않은 예약을 다른 서비스 인스턴스로 넘긴다. 다른 broker 가 먼저 넘겨 받았으면 0 을 반환한다.
+     */
+    @Modifying
+    @Transactional
+    @Query("update JpaOrganizationReservation r set r.serviceInstanceId = :serviceInstanceId, r.createdAt = :createdAt " +
+            "where r.organizationGuid = :organizationGuid and r.serviceInstanceId = :expectedServiceInstanceId and r.createdAt = :expectedCreatedAt")
+    int takeOver(@Param("organizationGuid") String organizationGuid, @Param("expectedServiceInstanceId") String expectedServiceInstanceId,
+                 @Param("expectedCreatedAt") long expectedCreatedAt, @Param("serviceInstanceId") String serviceInstanceId,
+                 @Param("createdAt") long createdAt);
+
+    @Modifying
+    @Transactional
+    @Query("delete from JpaOrganizationReservation r where r.organizationGuid = :organizationGuid and r.serviceInstanceId = :serviceInstanceId")
+    int release(@Param("organizationGuid") String organizationGuid, @Param("serviceInstanceId") String serviceInstanceId);
+}
@@ -0,0 +1,35 @@
+package org.openpaas.servicebroker.container.platform.repo;
+
+import org.openpaas.servicebroker.container.platform.model.JpaProvisioningSaga;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 서비스 인스턴스 생성 saga(provisioning_saga) JPA Repository 클래스
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Repository
+public interface JpaProvisioningSagaRepository extends JpaRepository<JpaProvisioningSaga, String> {
+
+    List<JpaProvisioningSaga> findAllByStateIn(Collection<JpaProvisioningSaga.State> states);
+
+    /**
+     * 복구할 saga 를 선점한다. 조회한 이후 상태나 갱신 시각이 바뀌었으면(다른 broker 가 선점) 0 을 반환한다.
+     */
+    @Modifying
+    @Transactional
+    @Query("update JpaProvisioningSaga s set s.state = :state, s.owner = :owner, s.updatedAt = :updatedAt " +
+            "where s.sagaId = :sagaId and s.state = :expectedState and s.updatedAt = :expectedUpdatedAt")
+    int claim(@Param("sagaId") String sagaId, @Param("expectedState") JpaProvisioningSaga.State expectedState,
+              @Param("expectedUpdatedAt") long expectedUpdatedAt, @Param("state") JpaProvisioningSaga.State state,
+              @Param("owner") String owner, @Param("updatedAt") long updatedAt);
+}
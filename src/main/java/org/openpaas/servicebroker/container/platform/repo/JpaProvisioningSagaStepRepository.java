@@ -0,0 +1,19 @@
+package org.openpaas.servicebroker.container.platform.repo;
+
+import org.openpaas.servicebroker.container.platform.model.JpaProvisioningSagaStep;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 서비스 인스턴스 생성 saga 단계 기록(provisioning_saga_step) JPA Repository 클래스
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Repository
+public interface JpaProvisioningSagaStepRepository extends JpaRepository<JpaProvisioningSagaStep, String> {
+
+    List<JpaProvisioningSagaStep> findAllBySagaId(String sagaId);
+}
@@ -17,6 +17,8 @@ import java.util.List;
 public interface JpaServiceInstanceRepository extends JpaRepository<JpaServiceInstance, String>{
 
     JpaServiceInstance findByServiceInstanceId(String serviceInstanceId);
+
+    List<JpaServiceInstance> findAllByDashboardType(String dashboardType);
     
     boolean existsByOrganizationGuid(String organizationGuid);
 
@@ -24,5 +26,5 @@ public interface JpaServiceInstanceRepository extends JpaRepository<JpaServiceIn
 
     boolean existsByDashboardType(String dashboardType);
 
-    List<JpaServiceInstance> findAllByOrganizationGuidAndDashboardType(String organizationGuid, String dashboardType);
+    boolean existsByOrganizationGuidAndDashboardType(String organizationGuid, String dashboardType);
 }
@@ -0,0 +1,38 @@
+package org.openpaas.servicebroker.container.platform.repo;
+
+import org.openpaas.servicebroker.container.platform.model.JpaServiceOperation;
+import org.openpaas.servicebroker.model.OperationState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 비동기 작업 상태(service_operation) JPA Repository 클래스
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Repository
+public interface JpaServiceOperationRepository extends JpaRepository<JpaServiceOperation, String> {
+
+    JpaServiceOperation findFirstByServiceInstanceIdOrderByCreatedAtDesc(String serviceInstanceId);
+
+    JpaServiceOperation findFirstByServiceInstanceIdAndStateOrderByCreatedAtDesc(String serviceInstanceId, OperationState state);
+
+    List<JpaServiceOperation> findAllByStateAndDeadlineLessThan(OperationState state, long deadline);
+
+    /**
+     * 진행 중인 작업만 종료 상태로 바꾼다. 이미 종료된 작업(제한 시간 초과 등)이면 0 을 반환한다.
+     */
+    @Modifying
+    @Transactional
+    @Query("update JpaServiceOperation o set o.state = :state, o.description = :description, o.updatedAt = :updatedAt " +
+            "where o.operationId = :operationId and o.state = org.openpaas.servicebroker.model.OperationState.IN_PROGRESS")
+    int finish(@Param("operationId") String operationId, @Param("state") OperationState state,
+               @Param("description") String description, @Param("updatedAt") long updatedAt);
+}
@@ -0,0 +1,126 @@
+package org.openpaas.servicebroker.container.platform.service;
+
+import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.model.Constants;
+import org.openpaas.servicebroker.container.platform.model.JpaAdminToken;
+import org.openpaas.servicebroker.container.platform.repo.JpaAdminTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * k8s api 호출에 사용하는 admin bearer token 을 메모리에 보관하는 클래스
+ * 매 요청마다 admin_token 테이블을 조회하지 않고, 주기적으로 혹은 apiserver 가 401 을 응답했을 때만 다시 읽는다.
+ * k8s.admin-token.file 이 설정되어 있으면 (projected service account token 등) DB 대신 해당 파일을 읽는다.
+ * 조회는 AtomicReference 읽기만 하므로 lock 이 없다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Service
+public class AdminTokenProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminTokenProvider.class);
+
+    @Autowired
+    JpaAdminTokenRepository adminTokenRepository;
+
+    @Value("${k8s.admin-token.file:}")
+    private String tokenFile;
+
+    @Value("${k8s.admin-token.min-refresh-interval:5000}")
+    private long minRefreshInterval;
+
+    private final AtomicReference<String> token = new AtomicReference<>();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    private volatile long lastRefreshTime;
+
+
+    /**
+     * 메모리에 보관된 token 을 반환한다. 아직 읽은 적이 없다면 읽어온다.
+     *
+     * @return the token
+     */
+    public String getToken() {
+        String current = token.get();
+        return (current != null) ? current : refresh();
+    }
+
+    /**
+     * 설정된 주기마다 token 을 다시 읽는다. (token 교체, 파일 rotate 대응)
+     */
+    @Scheduled(initialDelayString = "${k8s.admin-token.refresh-interval:300000}", fixedDelayString = "${k8s.admin-token.refresh-interval:300000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            logger.info("### EXCEPTION OCCURRED DURING REFRESH ADMIN TOKEN : {}", CommonUtils.loggerReplace(e.getMessage()));
+        }
+    }
+
+    /**
+     * apiserver 가 401 을 응답했을 때 호출한다.
+     * 거절된 token 이 이미 다른 요청에 의해 교체되었거나, 최근에 다시 읽었다면 현재 token 을 그대로 반환한다.
+     *
+     * @param rejectedToken 401 을 받은 요청에 사용한 token
+     * @return the token
+     */
+    public String refreshOnUnauthorized(String rejectedToken) {
+        String current = token.get();
+        if (current != null && !current.equals(rejectedToken)) {
+            return current;
+        }
+
+        if (System.currentTimeMillis() - lastRefreshTime < minRefreshInterval || !refreshing.compareAndSet(false, true)) {
+            return current;
+        }
+
+        try {
+            logger.info("Admin token was rejected by k8s api. reload admin token.");
+            return refresh();
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * token 을 다시 읽어 교체한다.
+     *
+     * @return the token
+     */
+    public String refresh() {
+        String loaded = load();
+        token.set(loaded);
+        lastRefreshTime = System.currentTimeMillis();
+        return loaded;
+    }
+
+    private String load() {
+        if (StringUtils.hasText(tokenFile)) {
+            Path path = Paths.get(tokenFile);
+            try {
+                return new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+            } catch (IOException e) {
+                logger.info("Can't read admin token file [{}]. use broker DB token instead.", CommonUtils.loggerReplace(tokenFile));
+            }
+        }
+
+        return adminTokenRepository.findById(Constants.TOKEN_KEY)
+                .map(JpaAdminToken::getTokenValue)
+                .orElseThrow(() -> new IllegalStateException("Cannot find admin token : " + Constants.TOKEN_KEY));
+    }
+}
@@ -0,0 +1,261 @@
+package org.openpaas.servicebroker.container.platform.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.common.JsonFieldExtractor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * k8s apiserver 요청의 재시도 정책
+ * 429 (API Priority and Fairness), 502/503/504, 연결 오류(ResourceAccessException) 는 잠시 후 다시 요청한다.
+ * 대기 시간은 Retry-After header 가 있으면 그 값을, 없으면 지수 backoff 에 full jitter 를 적용한 값을 사용한다.
+ * 재시도는 전체 요청 수에 비례해 쌓이는 budget 안에서만 하므로 apiserver 장애시 재시도가 부하를 키우지 않는다.
+ *
+ * 요청 종류별 처리
+ * - IDEMPOTENT (GET, PUT, PATCH, DELETE) : 재요청해도 결과가 같다. 재요청한 DELETE 의 404 는 성공으로 본다.
+ * - CREATE (POST) : 멱등하지 않지만 브로커의 POST 는 모두 이름을 지정한 생성이므로, 재요청한 POST 의 409 AlreadyExists 는 앞선 요청이 반영된 것으로 보고 성공 처리한다.
+ * - STREAM : 응답 body 를 읽는 중에 난 오류는 body 를 이미 일부 처리했을 수 있으므로 재요청하지 않는다. (status code 오류만 재요청)
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Component
+public class K8sRetryPolicy implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(K8sRetryPolicy.class);
+
+    private static final JsonFieldExtractor STATUS_REASON = JsonFieldExtractor.of("/reason");
+
+    // budget 은 1/1000 단위로 관리한다.
+    private static final long UNIT = 1000;
+
+    public enum Operation {
+        IDEMPOTENT, CREATE, STREAM;
+
+        public static Operation of(HttpMethod httpMethod) {
+            return HttpMethod.POST.equals(httpMethod) ? CREATE : IDEMPOTENT;
+        }
+    }
+
+    @Value("${k8s.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${k8s.retry.initial-backoff:200}")
+    private long initialBackoff;
+
+    @Value("${k8s.retry.max-backoff:5000}")
+    private long maxBackoff;
+
+    @Value("${k8s.retry.max-retry-after:10000}")
+    private long maxRetryAfter;
+
+    @Value("${k8s.retry.budget.ratio:0.2}")
+    private double budgetRatio;
+
+    @Value("${k8s.retry.budget.max-tokens:20}")
+    private int budgetMaxTokens;
+
+    private final AtomicLong budget = new AtomicLong();
+
+
+    @PostConstruct
+    public void init() {
+        budget.set(budgetMaxTokens * UNIT);
+    }
+
+    /**
+     * request 를 실행하고 재시도 가능한 오류이면 정책에 따라 다시 실행한다.
+     * 재시도 후 409 AlreadyExists(CREATE) / 404(DELETE) 를 받으면 null 을 반환한다.
+     */
+    public <T> T execute(HttpMethod httpMethod, Operation operation, Supplier<T> request) {
+        deposit();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = request.get();
+                if (attempt > 1) {
+                    Metrics.counter("k8s.request.retry.result", "method", httpMethod.name(), "outcome", "recovered").increment();
+                }
+                return result;
+            } catch (RestClientException exception) {
+                if (attempt > 1 && isAlreadyApplied(httpMethod, operation, exception)) {
+                    logger.info("Retried {} request was already applied : {}", CommonUtils.loggerReplace(httpMethod), CommonUtils.loggerReplace(exception.getMessage()));
+                    Metrics.counter("k8s.request.retry.result", "method", httpMethod.name(), "outcome", "already-applied").increment();
+                    return null;
+                }
+
+                String reason = retryReason(operation, exception);
+                if (reason == null) {
+                    throw exception;
+                }
+                if (attempt >= maxAttempts) {
+                    giveUp(httpMethod, "attempts");
+                    throw exception;
+                }
+
+                long delay = backoff(attempt);
+                long retryAfter = retryAfter(exception);
+                if (retryAfter > maxRetryAfter) {
+                    giveUp(httpMethod, "retry-after");
+                    throw exception;
+                }
+                if (!withdraw()) {
+                    giveUp(httpMethod, "budget");
+                    throw exception;
+                }
+                if (retryAfter >= 0) {
+                    delay = retryAfter;
+                }
+
+                Metrics.counter("k8s.request.retry", "method", httpMethod.name(), "reason", reason).increment();
+                logger.info("Retry k8s {} request ({}/{}) after {} ms : {}", CommonUtils.loggerReplace(httpMethod), attempt, maxAttempts, delay, CommonUtils.loggerReplace(reason));
+                if (!sleep(delay)) {
+                    throw exception;
+                }
+            }
+        }
+    }
+
+    /**
+     * 재시도할 수 있는 오류이면 metric 에 남길 사유를, 아니면 null 을 반환한다.
+     */
+    private String retryReason(Operation operation, RestClientException exception) {
+        if (exception instanceof HttpStatusCodeException) {
+            int status = ((HttpStatusCodeException) exception).getRawStatusCode();
+            if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                return "429";
+            }
+            if (status == HttpStatus.BAD_GATEWAY.value() || status == HttpStatus.SERVICE_UNAVAILABLE.value() || status == HttpStatus.GATEWAY_TIMEOUT.value()) {
+                return "5xx";
+            }
+            return null;
+        }
+        if (exception instanceof ResourceAccessException && operation != Operation.STREAM) {
+            return "io";
+        }
+        return null;
+    }
+
+    private boolean isAlreadyApplied(HttpMethod httpMethod, Operation operation, RestClientException exception) {
+        if (!(exception instanceof HttpStatusCodeException)) {
+            return false;
+        }
+        HttpStatusCodeException statusException = (HttpStatusCodeException) exception;
+        if (operation == Operation.CREATE && statusException.getRawStatusCode() == HttpStatus.CONFLICT.value()) {
+            return "AlreadyExists".equals(statusReason(statusException));
+        }
+        return HttpMethod.DELETE.equals(httpMethod) && statusException.getRawStatusCode() == HttpStatus.NOT_FOUND.value();
+    }
+
+    /**
+     * k8s Status 응답의 reason (AlreadyExists, Conflict ...)
+     */
+    private String statusReason(HttpStatusCodeException exception) {
+        try {
+            return STATUS_REASON.extract(new ByteArrayInputStream(exception.getResponseBodyAsByteArray())).get("/reason");
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Retry-After header 의 대기 시간 (ms). header 가 없거나 읽을 수 없으면 -1
+     */
+    private long retryAfter(RestClientException exception) {
+        if (!(exception instanceof HttpStatusCodeException)) {
+            return -1;
+        }
+        HttpHeaders headers = ((HttpStatusCodeException) exception).getResponseHeaders();
+        String value = (headers == null) ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+            } catch (DateTimeParseException ignored) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * 0 ~ min(maxBackoff, initialBackoff * 2^(attempt-1)) 사이의 임의의 값 (full jitter)
+     */
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoff, initialBackoff << Math.min(attempt - 1, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * 요청마다 budget 을 ratio 만큼 채운다. (최대 max-tokens)
+     */
+    private void deposit() {
+        long max = budgetMaxTokens * UNIT;
+        long amount = (long) (budgetRatio * UNIT);
+        budget.updateAndGet(current -> Math.min(max, current + amount));
+    }
+
+    /**
+     * 재시도 한번에 budget 1 을 사용한다. 부족하면 false
+     */
+    private boolean withdraw() {
+        while (true) {
+            long current = budget.get();
+            if (current < UNIT) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    private void giveUp(HttpMethod httpMethod, String cause) {
+        Metrics.counter("k8s.request.retry.result", "method", httpMethod.name(), "outcome", "exhausted-" + cause).increment();
+    }
+
+    /**
+     * @return interrupt 되면 false
+     */
+    protected boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("k8s.request.retry.budget", budget, value -> value.get() / (double) UNIT)
+                .description("Retries currently allowed by the k8s retry budget")
+                .register(registry);
+    }
+}
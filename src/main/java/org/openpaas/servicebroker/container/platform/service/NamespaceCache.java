@@ -0,0 +1,385 @@
+package org.openpaas.servicebroker.container.platform.service;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpClientErrorException;
+
+import javax.annotation.PreDestroy;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 브로커가 생성한 namespace(paas-*-caas) 목록을 메모리에 보관하는 클래스
+ * 처음에는 namespace 목록을 page 단위로 조회(LIST)하고, 이후에는 마지막 resourceVersion 부터 WATCH 하여 변경 사항을 반영한다.
+ * WATCH 는 bookmark 를 요청하며, resourceVersion 이 만료(410 Gone)되면 다시 LIST 한다.
+ * 동기화된 상태(synced)일 때만 조회에 사용하고, 그렇지 않으면 호출하는 쪽에서 apiserver 에 직접 조회한다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Service
+public class NamespaceCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(NamespaceCache.class);
+
+    private static final Pattern MANAGED_NAMESPACE = Pattern.compile("^paas-.+-caas$");
+
+    private static final String NAMESPACES_PATH = "/api/v1/namespaces";
+
+    @Autowired
+    RestTemplateService restTemplateService;
+
+    @Autowired
+    PropertyService propertyService;
+
+    @Value("${k8s.namespace-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${k8s.namespace-cache.page-size:500}")
+    private int pageSize;
+
+    @Value("${k8s.namespace-cache.watch-timeout-seconds:25}")
+    private int watchTimeoutSeconds;
+
+    @Value("${k8s.namespace-cache.retry-interval:1000}")
+    private long retryInterval;
+
+    private volatile Set<String> namespaces = ConcurrentHashMap.newKeySet();
+
+    private volatile String resourceVersion;
+
+    private volatile boolean synced;
+
+    private volatile long lastSyncTime;
+
+    private volatile boolean running;
+
+    private Thread watchThread;
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        watchThread = new Thread(this::run, "k8s-namespace-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        synced = false;
+        if (watchThread != null) {
+            watchThread.interrupt();
+            watchThread = null;
+        }
+    }
+
+    /**
+     * 브로커가 관리하는 namespace 이름인지 확인한다. (paas-*-caas)
+     */
+    public boolean isManaged(String namespace) {
+        return namespace != null && MANAGED_NAMESPACE.matcher(namespace).matches();
+    }
+
+    /**
+     * LIST 이후 WATCH 가 연결되어 있어 메모리의 목록을 신뢰할 수 있는지 여부
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    public boolean contains(String namespace) {
+        return namespaces.contains(namespace);
+    }
+
+    /**
+     * 브로커가 namespace 를 생성한 직후 WATCH 이벤트를 기다리지 않고 목록에 반영한다.
+     */
+    public void add(String namespace) {
+        if (isManaged(namespace)) {
+            namespaces.add(namespace);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (resourceVersion == null) {
+                    list();
+                }
+                watch();
+            } catch (HttpClientErrorException.Gone exception) {
+                logger.info("Namespace watch resourceVersion expired. relist namespaces.");
+                resourceVersion = null;
+            } catch (Exception exception) {
+                synced = false;
+                if (!running) {
+                    break;
+                }
+                logger.info("### EXCEPTION OCCURRED DURING WATCH NAMESPACES : {}", CommonUtils.loggerReplace(exception.getMessage()));
+                try {
+                    Thread.sleep(retryInterval);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * namespace 목록을 page 단위로 조회하여 메모리의 목록을 교체한다.
+     */
+    public void list() {
+        Set<String> listed = ConcurrentHashMap.newKeySet();
+        String continueToken = null;
+        ListPage page;
+
+        do {
+            String url = propertyService.getContainerPlatformUrl() + NAMESPACES_PATH + "?limit=" + pageSize
+                    + (continueToken == null ? "" : "&continue=" + continueToken);
+            page = restTemplateService.stream(url, HttpMethod.GET, response -> readListPage(new JsonReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8)), listed));
+            continueToken = page.continueToken;
+        } while (StringUtils.hasText(continueToken));
+
+        namespaces = listed;
+        resourceVersion = page.resourceVersion;
+        lastSyncTime = System.currentTimeMillis();
+        logger.info("Namespace cache listed {} namespaces at resourceVersion {}", listed.size(), CommonUtils.loggerReplace(resourceVersion));
+    }
+
+    /**
+     * 마지막 resourceVersion 부터 WATCH 한다. 서버가 timeoutSeconds 후 연결을 끊으면 반환한다.
+     * timeoutSeconds 는 k8s http-client read-timeout 보다 작아야 한다.
+     */
+    public void watch() {
+        String url = propertyService.getContainerPlatformUrl() + NAMESPACES_PATH + "?watch=1&allowWatchBookmarks=true"
+                + "&timeoutSeconds=" + watchTimeoutSeconds + "&resourceVersion=" + resourceVersion;
+
+        restTemplateService.watch(url, response -> {
+            synced = true;
+            lastSyncTime = System.currentTimeMillis();
+            JsonReader reader = new JsonReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+            reader.setLenient(true);
+            try {
+                while (reader.peek() != JsonToken.END_DOCUMENT) {
+                    apply(readEvent(reader));
+                }
+            } catch (EOFException e) {
+                // 이벤트 없이 timeoutSeconds 가 지나 연결이 끝난 경우. 마지막 resourceVersion 부터 다시 WATCH 한다.
+                logger.debug("Namespace watch stream closed.");
+            }
+            return null;
+        });
+    }
+
+    private void apply(WatchEvent event) {
+        lastSyncTime = System.currentTimeMillis();
+
+        if ("ERROR".equals(event.type)) {
+            if (event.code == 410) {
+                throw HttpClientErrorException.create(HttpStatus.GONE, HttpStatus.GONE.getReasonPhrase(), null, null, null);
+            }
+            throw new IllegalStateException("Namespace watch error : " + event.code);
+        }
+
+        if (event.resourceVersion != null) {
+            resourceVersion = event.resourceVersion;
+        }
+        if ("BOOKMARK".equals(event.type) || !isManaged(event.name)) {
+            return;
+        }
+
+        if ("DELETED".equals(event.type)) {
+            namespaces.remove(event.name);
+            recordLag(event.deletionTimestamp);
+        } else {
+            namespaces.add(event.name);
+            if ("ADDED".equals(event.type)) {
+                recordLag(event.creationTimestamp);
+            }
+        }
+    }
+
+    private void recordLag(String timestamp) {
+        if (timestamp == null) {
+            return;
+        }
+        try {
+            Duration lag = Duration.between(Instant.parse(timestamp), Instant.now());
+            Metrics.timer("k8s.namespace.cache.event.lag").record(Math.max(0, lag.toMillis()), TimeUnit.MILLISECONDS);
+        } catch (DateTimeParseException e) {
+            logger.debug("Can't parse namespace timestamp {}", CommonUtils.loggerReplace(timestamp));
+        }
+    }
+
+    private ListPage readListPage(JsonReader reader, Set<String> listed) throws IOException {
+        ListPage page = new ListPage();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if ("metadata".equals(field)) {
+                ObjectMeta meta = readMetadata(reader);
+                page.resourceVersion = meta.resourceVersion;
+                page.continueToken = meta.continueToken;
+            } else if ("items".equals(field) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    String name = readObjectName(reader);
+                    if (isManaged(name)) {
+                        listed.add(name);
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return page;
+    }
+
+    private WatchEvent readEvent(JsonReader reader) throws IOException {
+        WatchEvent event = new WatchEvent();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if ("type".equals(field)) {
+                event.type = reader.nextString();
+            } else if ("object".equals(field)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String objectField = reader.nextName();
+                    if ("metadata".equals(objectField)) {
+                        ObjectMeta meta = readMetadata(reader);
+                        event.name = meta.name;
+                        event.resourceVersion = meta.resourceVersion;
+                        event.creationTimestamp = meta.creationTimestamp;
+                        event.deletionTimestamp = meta.deletionTimestamp;
+                    } else if ("code".equals(objectField) && reader.peek() == JsonToken.NUMBER) {
+                        event.code = reader.nextInt();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return event;
+    }
+
+    private String readObjectName(JsonReader reader) throws IOException {
+        String name = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("metadata".equals(reader.nextName())) {
+                name = readMetadata(reader).name;
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return name;
+    }
+
+    private ObjectMeta readMetadata(JsonReader reader) throws IOException {
+        ObjectMeta meta = new ObjectMeta();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() != JsonToken.STRING) {
+                reader.skipValue();
+                continue;
+            }
+            switch (field) {
+                case "name":
+                    meta.name = reader.nextString();
+                    break;
+                case "resourceVersion":
+                    meta.resourceVersion = reader.nextString();
+                    break;
+                case "continue":
+                    meta.continueToken = reader.nextString();
+                    break;
+                case "creationTimestamp":
+                    meta.creationTimestamp = reader.nextString();
+                    break;
+                case "deletionTimestamp":
+                    meta.deletionTimestamp = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return meta;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("k8s.namespace.cache.synced", this, cache -> cache.synced ? 1 : 0)
+                .description("Whether the namespace cache is listed and watching")
+                .register(registry);
+        Gauge.builder("k8s.namespace.cache.size", this, cache -> cache.namespaces.size())
+                .description("Broker owned namespaces in the cache")
+                .register(registry);
+        Gauge.builder("k8s.namespace.cache.staleness", this, cache -> cache.lastSyncTime == 0 ? -1 : (System.currentTimeMillis() - cache.lastSyncTime) / 1000.0)
+                .description("Seconds since the last list, watch event or bookmark")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+
+    private static class ListPage {
+        private String resourceVersion;
+        private String continueToken;
+    }
+
+    private static class ObjectMeta {
+        private String name;
+        private String resourceVersion;
+        private String continueToken;
+        private String creationTimestamp;
+        private String deletionTimestamp;
+    }
+
+    private static class WatchEvent {
+        private String type;
+        private String name;
+        private String resourceVersion;
+        private String creationTimestamp;
+        private String deletionTimestamp;
+        private int code;
+    }
+}
@@ -1,34 +1,25 @@
 package org.openpaas.servicebroker.container.platform.service;
 
-import java.security.KeyManagementException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.cert.X509Certificate;
-
-import javax.net.ssl.SSLContext;
-
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.conn.ssl.TrustStrategy;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import java.util.Base64;
 import java.util.Base64.Encoder;
+import java.util.Collections;
+import java.util.function.Function;
 
+import org.openpaas.servicebroker.container.platform.common.CircuitBreaker;
 import org.openpaas.servicebroker.container.platform.common.CommonUtils;
-import org.openpaas.servicebroker.container.platform.model.Constants;
 import org.openpaas.servicebroker.container.platform.model.Users;
-import org.openpaas.servicebroker.container.platform.repo.JpaAdminTokenRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Bean;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -38,6 +29,10 @@ import org.springframework.web.client.RestTemplate;
  * 2. kuber api와 통신하기 위한 메소드
  * 3. common DB에 저장하기 위해 common-api와통신하는 메소드
  * 4. api와 통신하는 메소드
+ * 통신 대상별로 분리된 connection pool 의 RestTemplate 을 사용한다. (HttpClientConfig 참고)
+ * 통신 대상별 CircuitBreaker 를 거쳐 요청하므로 느려지거나 장애가 난 대상은 바로 실패한다. (CircuitBreakerConfig 참고)
+ * 요청 header 는 대상별로 미리 만들어 둔 읽기 전용 template 을 복사하고 인증 header 만 요청마다 추가한다.
+ * (singleton bean 이므로 요청 간에 공유되는 변경 가능한 header 필드를 두지 않는다.)
  * @author Hyerin
  * @since 2018.08.22
  * @version 20180822
@@ -47,41 +42,48 @@ public class RestTemplateService {
     
     private static final Logger logger = LoggerFactory.getLogger(RestTemplateService.class);
 
+    private static final HttpHeaders K8S_HEADERS = headerTemplate("application/json,application/yaml,text/html", "application/yaml;charset=UTF-8");
+
+    private static final HttpHeaders K8S_JSON_HEADERS = headerTemplate("application/json", "application/json");
+
+    private static final HttpHeaders K8S_MERGE_PATCH_HEADERS = headerTemplate("application/json", "application/merge-patch+json");
+
+    private static final HttpHeaders CP_API_HEADERS = headerTemplate("application/json", "application/json;charset=UTF-8");
+
     @Autowired
     RestTemplate restTemplate;
+
+    @Autowired
+    @Qualifier("cpApiRestTemplate")
+    RestTemplate cpApiRestTemplate;
+
+    @Autowired
+    @Qualifier("commonApiRestTemplate")
+    RestTemplate commonApiRestTemplate;
     
     @Autowired
     PropertyService propertyService;
     
     @Autowired
-    JpaAdminTokenRepository adminTokenRepository;
-    
-    HttpHeaders headers;
-        
-    /**
-     * RestTemplate Bean 객체를 생성하는 메소드 (단, SSL은 무시) <br>
-     * create restTemplate ignore ssl
-     *
-     * @author Hyerin
-     * @since 2018.07.24
-     */
-    @Bean
-    public RestTemplate restTemplate() throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
-        TrustStrategy acceptingTrustStrategy = (X509Certificate[] chain, String authType) -> true;
+    AdminTokenProvider adminTokenProvider;
 
-        SSLContext sslContext = org.apache.http.ssl.SSLContexts.custom().loadTrustMaterial(null, acceptingTrustStrategy)
-                .build();
+    @Autowired
+    K8sRetryPolicy k8sRetryPolicy;
 
-        SSLConnectionSocketFactory csf = new SSLConnectionSocketFactory(sslContext, SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+    @Autowired
+    @Qualifier("k8sCircuitBreaker")
+    CircuitBreaker k8sCircuitBreaker;
 
-        CloseableHttpClient httpClient = HttpClients.custom().setSSLSocketFactory(csf).build();
+    @Autowired
+    @Qualifier("cpApiCircuitBreaker")
+    CircuitBreaker cpApiCircuitBreaker;
 
-        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
+    @Autowired
+    @Qualifier("commonApiCircuitBreaker")
+    CircuitBreaker commonApiCircuitBreaker;
 
-        requestFactory.setHttpClient(httpClient);
-        RestTemplate restTemplate = new RestTemplate(requestFactory);
-        return restTemplate;
-    }
+    // common-api 의 Basic 인증 값은 변하지 않으므로 처음 사용할 때 한번만 만든다.
+    private volatile HttpHeaders commonApiHeaders;
 
 
     /**
@@ -93,20 +95,29 @@ public class RestTemplateService {
      */
     public boolean tokenValidation() {
         
-        headers = new HttpHeaders();
-        headers.add("Authorization", "Bearer " + adminTokenRepository.getOne(Constants.TOKEN_KEY).getTokenValue());
-        headers.add("Accept", "application/json,application/yaml,text/html");
-        headers.add("Content-Type", "application/yaml;charset=UTF-8");
-        HttpEntity<String> reqEntity = new HttpEntity<>(headers);
-        
+        String token = adminTokenProvider.getToken();
         try {
-            restTemplate.exchange(propertyService.getContainerPlatformUrl() + "/api/v1/nodes", HttpMethod.GET, reqEntity, String.class);
+            sendNodes(token);
+        } catch (HttpClientErrorException.Unauthorized exception) {
+            // token 이 교체되었을 수 있으므로 다시 읽어서 한번 더 확인한다.
+            String refreshedToken = adminTokenProvider.refreshOnUnauthorized(token);
+            if (refreshedToken != null && !refreshedToken.equals(token)) {
+                return tokenValidation();
+            }
+            logger.info("Maybe token was changed. {} : {}", CommonUtils.loggerReplace(exception.getStatusCode().value()), CommonUtils.loggerReplace(exception.getMessage()));
+            return false;
         } catch (HttpStatusCodeException exception) {
             logger.info("Maybe token was changed. {} : {}", CommonUtils.loggerReplace(exception.getStatusCode().value()), CommonUtils.loggerReplace(exception.getMessage()));
             return false;
         }
         return true;
     }
+
+    private void sendNodes(String token) {
+        HttpEntity<String> reqEntity = new HttpEntity<>(k8sHeaders(K8S_HEADERS, token));
+
+        restTemplate.exchange(propertyService.getContainerPlatformUrl() + "/api/v1/nodes", HttpMethod.GET, reqEntity, String.class);
+    }
     
     public <T> T send(String url, HttpMethod httpMethod, Class<T> responseType) {
         return send(url, null, httpMethod, responseType);
@@ -115,18 +126,21 @@ public class RestTemplateService {
     /**
      * k8s api와 통신하기 위한 메소드
      * get의 경우 body가 필요 없기 때문에 yml로 get,delete의 유무판별하여 body를 넣고 안넣고를 정함.
+     * admin token 은 AdminTokenProvider 에서 가져오며, 401 을 받으면 token 을 다시 읽어 한번 더 요청한다.
+     * 429, 5xx, 연결 오류는 K8sRetryPolicy 에 따라 다시 요청한다.
+     * CircuitBreaker 는 재요청을 포함한 한 번의 요청을 하나의 결과로 집계한다. (재요청마다 실패로 집계하거나 bulkhead 자리를 다시 기다리지 않도록)
      * @author Hyerin
      * @since 2018.08.22
      */
     public <T> T send(String url, String yml, HttpMethod httpMethod, Class<T> responseType) {
+        return k8sCircuitBreaker.execute(() -> k8sRetryPolicy.execute(httpMethod, K8sRetryPolicy.Operation.of(httpMethod),
+                () -> withAdminToken(token -> send(url, yml, httpMethod, responseType, token))));
+    }
+
+    private <T> T send(String url, String yml, HttpMethod httpMethod, Class<T> responseType, String token) {
         
-        headers = new HttpHeaders();
-        //headers.add("Authorization", "Basic " + propertyService.getAuthBasic());
-        headers.add("Authorization", "Bearer " + adminTokenRepository.getOne(Constants.TOKEN_KEY).getTokenValue());
-        headers.add("Accept", "application/json,application/yaml,text/html");
-        headers.add("Content-Type", "application/yaml;charset=UTF-8");
-        
-        
+        HttpHeaders headers = k8sHeaders(K8S_HEADERS, token);
+
         HttpEntity<String> reqEntity;
         if(yml == null) {  //null이면 
             reqEntity = new HttpEntity<>(headers);
@@ -142,6 +156,106 @@ public class RestTemplateService {
     }
     
 
+    /**
+     * k8s api 응답을 String 으로 버퍼링하지 않고 responseExtractor 로 body stream 을 직접 읽는다.
+     * (namespace list/watch 등 응답이 크거나 끝나지 않는 요청에 사용)
+     * admin token 처리는 send 와 동일하며, 재요청은 body 를 읽기 전의 status code 오류(429, 5xx)만 한다.
+     */
+    public <T> T stream(String url, HttpMethod httpMethod, ResponseExtractor<T> responseExtractor) {
+        return k8sCircuitBreaker.execute(() -> k8sRetryPolicy.execute(httpMethod, K8sRetryPolicy.Operation.STREAM,
+                () -> withAdminToken(token -> execute(url, httpMethod, responseExtractor, token))));
+    }
+
+    /**
+     * k8s WATCH 요청. 응답이 timeoutSeconds 동안 이어지므로 CircuitBreaker 를 거치지 않는다.
+     * (slow call 로 집계되고 bulkhead 자리를 오래 점유하기 때문)
+     */
+    public <T> T watch(String url, ResponseExtractor<T> responseExtractor) {
+        return k8sRetryPolicy.execute(HttpMethod.GET, K8sRetryPolicy.Operation.STREAM,
+                () -> withAdminToken(token -> execute(url, HttpMethod.GET, responseExtractor, token)));
+    }
+
+    private <T> T execute(String url, HttpMethod httpMethod, ResponseExtractor<T> responseExtractor, String token) {
+        HttpHeaders headers = k8sHeaders(K8S_HEADERS, token);
+        return restTemplate.execute(url, httpMethod, request -> request.getHeaders().putAll(headers), responseExtractor);
+    }
+
+    /**
+     * K8sManifest 로 만든 JSON body 를 application/json 으로 k8s api 에 전송한다.
+     * admin token 처리와 재요청은 send 와 동일하다.
+     */
+    public <T> T sendJson(String url, byte[] json, HttpMethod httpMethod, Class<T> responseType) {
+        return sendJson(url, json, httpMethod, responseType, K8S_JSON_HEADERS);
+    }
+
+    /**
+     * JSON merge patch (application/merge-patch+json) 를 k8s api 에 PATCH 로 전송한다.
+     * admin token 처리와 재요청은 send 와 동일하다.
+     */
+    public <T> T sendMergePatch(String url, byte[] patch, Class<T> responseType) {
+        return sendJson(url, patch, HttpMethod.PATCH, responseType, K8S_MERGE_PATCH_HEADERS);
+    }
+
+    private <T> T sendJson(String url, byte[] json, HttpMethod httpMethod, Class<T> responseType, HttpHeaders template) {
+        return k8sCircuitBreaker.execute(() -> k8sRetryPolicy.execute(httpMethod, K8sRetryPolicy.Operation.of(httpMethod), () -> withAdminToken(token -> {
+            HttpEntity<byte[]> reqEntity = new HttpEntity<>(json, k8sHeaders(template, token));
+            return restTemplate.exchange(url, httpMethod, reqEntity, responseType).getBody();
+        })));
+    }
+
+    /**
+     * admin token 으로 요청한다. 401 을 받으면 token 을 다시 읽어 token 이 바뀐 경우에만 한번 더 요청한다.
+     */
+    private <T> T withAdminToken(Function<String, T> request) {
+        String token = adminTokenProvider.getToken();
+        try {
+            return request.apply(token);
+        } catch (HttpClientErrorException.Unauthorized exception) {
+            String refreshedToken = adminTokenProvider.refreshOnUnauthorized(token);
+            if (refreshedToken == null || refreshedToken.equals(token)) {
+                throw exception;
+            }
+            return request.apply(refreshedToken);
+        }
+    }
+
+    /**
+     * k8s api 요청 header 를 만든다. template 을 복사하고 Bearer token 만 추가한다.
+     */
+    private HttpHeaders k8sHeaders(HttpHeaders template, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(template);
+        headers.put(HttpHeaders.AUTHORIZATION, Collections.singletonList("Bearer " + token));
+        return headers;
+    }
+
+    private HttpHeaders commonApiHeaders() {
+        HttpHeaders template = commonApiHeaders;
+        if (template == null) {
+            template = headerTemplate("application/json", "application/json;charset=UTF-8", "Basic " + createAuthKey());
+            commonApiHeaders = template;
+        }
+        return template;
+    }
+
+    private static HttpHeaders headerTemplate(String accept, String contentType) {
+        return headerTemplate(accept, contentType, null);
+    }
+
+    /**
+     * 대상별 읽기 전용 header template 을 만든다.
+     * 값은 불변 list 로 넣어 요청 header 로 복사된 뒤에도 template 이 변경될 수 없도록 한다.
+     */
+    private static HttpHeaders headerTemplate(String accept, String contentType, String authorization) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.put(HttpHeaders.ACCEPT, Collections.singletonList(accept));
+        headers.put(HttpHeaders.CONTENT_TYPE, Collections.singletonList(contentType));
+        if (authorization != null) {
+            headers.put(HttpHeaders.AUTHORIZATION, Collections.singletonList(authorization));
+        }
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
     private String createAuthKey() {
         logger.info("createAuthKey() start!!!");
         String primitiveKey = propertyService.getCommonId() + ":" + propertyService.getCommonPassword();
@@ -157,17 +271,13 @@ public class RestTemplateService {
      */
     public <T> T requestCpApi(Users users, String path, HttpMethod httpMethod, Class<T> responseType) throws HttpStatusCodeException{
 
-        headers = new HttpHeaders();
-        headers.add("Accept", "application/json");
-        headers.add("Content-Type", "application/json;charset=UTF-8");
-
-        HttpEntity<Users> reqEntity = new HttpEntity<Users>(users, headers);
+        HttpEntity<Users> reqEntity = new HttpEntity<Users>(users, CP_API_HEADERS);
 
         ResponseEntity<T> resEntity = null;
 
         if(HttpMethod.POST.equals(httpMethod)) {
             logger.info("## ** SEND USER SIGNUP REQUEST TO API");
-            resEntity = restTemplate.exchange(propertyService.getCpApiUrl() + path, httpMethod, reqEntity, responseType);
+            resEntity = cpApiCircuitBreaker.execute(() -> cpApiRestTemplate.exchange(propertyService.getCpApiUrl() + path, httpMethod, reqEntity, responseType));
         }
 
         return resEntity.getBody();
@@ -182,18 +292,13 @@ public class RestTemplateService {
      */
     public <T> T requestCpCommonApi(String reqUrl, HttpMethod httpMethod, Class<T> responseType) throws HttpStatusCodeException{
 
-        headers = new HttpHeaders();
-        headers.add("Accept", "application/json");
-        headers.add("Content-Type", "application/json;charset=UTF-8");
-        headers.add("authorization", "Basic " + createAuthKey());
-
-        HttpEntity<Users> reqEntity = new HttpEntity<Users>(null, headers);
+        HttpEntity<Users> reqEntity = new HttpEntity<Users>(null, commonApiHeaders());
         ResponseEntity<T> resEntity = null;
 
 
         if(HttpMethod.DELETE.equals(httpMethod)) {
             logger.info("## ** SEND DELETE REQUEST TO COMMON API");
-            resEntity = restTemplate.exchange(reqUrl, httpMethod, reqEntity, responseType);
+            resEntity = commonApiCircuitBreaker.execute(() -> commonApiRestTemplate.exchange(reqUrl, httpMethod, reqEntity, responseType));
         }
 
         return resEntity.getBody();
@@ -1,12 +1,16 @@
 package org.openpaas.servicebroker.container.platform.service.impl;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
+import io.micrometer.core.instrument.Metrics;
 import org.json.JSONObject;
 import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.common.JsonFieldExtractor;
+import org.openpaas.servicebroker.container.platform.common.K8sManifest;
+import org.openpaas.servicebroker.container.platform.common.RateLimiter;
 import org.openpaas.servicebroker.container.platform.exception.ContainerPlatformException;
 import org.openpaas.servicebroker.container.platform.model.Constants;
 import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.model.ResourceQuotaStatus;
+import org.openpaas.servicebroker.container.platform.service.NamespaceCache;
 import org.openpaas.servicebroker.container.platform.service.PropertyService;
 import org.openpaas.servicebroker.container.platform.service.RestTemplateService;
 import org.openpaas.servicebroker.container.platform.service.TemplateService;
@@ -14,14 +18,28 @@ import org.openpaas.servicebroker.model.Plan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Base64Utils;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpStatusCodeException;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * 이 서비스 브로커에서 접근하는 Caas에 대한 서비스를 위한 클래스이다.
@@ -36,6 +54,22 @@ public class ContainerPlatformService {
 
     private static final Logger logger = LoggerFactory.getLogger(ContainerPlatformService.class);
 
+    // k8s 응답에서 필요한 값만 stream 으로 읽는다. (JSON Pointer)
+    private static final String SECRET_NAME = "/secrets/0/name";
+    private static final String NAMESPACE_PHASE = "/status/phase";
+    private static final String RESOURCE_VERSION = "/metadata/resourceVersion";
+    private static final String HARD_CPU = "/status/hard/limits.cpu";
+    private static final String HARD_MEMORY = "/status/hard/limits.memory";
+    private static final String HARD_STORAGE = "/status/hard/requests.storage";
+    private static final String USED_CPU = "/status/used/limits.cpu";
+    private static final String USED_MEMORY = "/status/used/limits.memory";
+    private static final String USED_STORAGE = "/status/used/requests.storage";
+
+    private static final JsonFieldExtractor SERVICE_ACCOUNT_SECRET = JsonFieldExtractor.of(SECRET_NAME);
+    private static final JsonFieldExtractor NAMESPACE_STATUS = JsonFieldExtractor.of(NAMESPACE_PHASE);
+    private static final JsonFieldExtractor RESOURCE_QUOTA_STATUS = JsonFieldExtractor.of(RESOURCE_VERSION,
+            HARD_CPU, HARD_MEMORY, HARD_STORAGE, USED_CPU, USED_MEMORY, USED_STORAGE);
+
     @Autowired
     private TemplateService templateService;
 
@@ -45,6 +79,25 @@ public class ContainerPlatformService {
     @Autowired
     private RestTemplateService restTemplateService;
 
+    @Autowired
+    private NamespaceCache namespaceCache;
+
+    @Autowired
+    @Qualifier("namespaceTaskExecutor")
+    private Executor namespaceTaskExecutor;
+
+    @Value("${k8s.namespace.create-timeout:30000}")
+    private long namespaceCreateTimeout;
+
+    @Value("${k8s.manifest.format:json}")
+    private String manifestFormat;
+
+    @Value("${k8s.quota.max-conflict-retries:3}")
+    private int quotaMaxConflictRetries;
+
+    @Value("${k8s.quota.patch-rate:10}")
+    private double quotaPatchRate;
+
     /**
      * 1. namespace 생성
      * 2. namespace에 quota 할당
@@ -55,7 +108,7 @@ public class ContainerPlatformService {
      * @author Hyerin
      * @since 2018.07.30
      */
-    public JpaServiceInstance createNamespaceUser(JpaServiceInstance instance, Plan plan) {
+    public JpaServiceInstance createNamespaceUser(JpaServiceInstance instance, Plan plan) throws ContainerPlatformException {
         logger.info("In createNamespaceUser !!!");
 
         String spaceName = createNamespace(instance.getServiceInstanceId());
@@ -87,50 +140,38 @@ public class ContainerPlatformService {
      * @author Hyerin
      * @since 2018.07.30
      */
-    public String createNamespace(String serviceInstanceId) {
+    public String createNamespace(String serviceInstanceId) throws ContainerPlatformException {
         logger.debug("create namespace!!! {}", CommonUtils.loggerReplace(serviceInstanceId));
 
         Map<String, Object> model = new HashMap<>();
         String spaceName = "paas-" + serviceInstanceId.toLowerCase() + "-caas";
         model.put("name", spaceName);
-        String yml = null;
-        try {
-            yml = templateService.convert("instance/create_namespace.ftl", model);
-        } catch (ContainerPlatformException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
-        logger.debug("Here is your yml file!!! {}", CommonUtils.loggerReplace(yml));
-
-        restTemplateService.send(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces", yml, HttpMethod.POST, String.class);
+        sendManifest(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces", HttpMethod.POST,
+                "instance/create_namespace.ftl", model, () -> K8sManifest.namespace(spaceName));
+        namespaceCache.add(spaceName);
 
         return spaceName;
     }
 
     /**
-     * namespace에 quota를 할당한다. quota는 plan 정보대로 할당한다. plan정보의 B -> i 로 바꾼 후에
+     * namespace에 quota를 할당한다. quota는 plan 정보대로 할당한다. plan정보의 B -> i 로 바꾼 값으로 (plan 객체는 catalog 의 것이므로 변경하지 않는다)
      * instance/create_resource_quota.ftl의 변수를 채운 후 restTemplateService로 rest 통신한다.
      *
      * @author Hyerin
      * @since 2018.07.30
      */
-    public void createResourceQuota(String spaceName, Plan plan) {
+    public void createResourceQuota(String spaceName, Plan plan) throws ContainerPlatformException {
         logger.info("### ** Create ResourceQuota in namespace [{}].. plan : {}", CommonUtils.loggerReplace(spaceName), CommonUtils.loggerReplace(plan));
 
+        String cpu = String.valueOf(plan.getCpu());
+        String memory = toQuantity(plan.getMemory());
+        String storage = toQuantity(plan.getDisk());
+
         Map<String, Object> model = new HashMap<>();
-        plan.setMemory(plan.getMemory().replace("B", "i"));
-        plan.setDisk(plan.getDisk().replace("B", "i"));
         model.put("quotaName", spaceName + "-resourcequota");
-        model.put("plan", plan);
-        String yml = null;
-        try {
-            yml = templateService.convert("instance/create_resource_quota.ftl", model);
-        } catch (ContainerPlatformException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
-
-        restTemplateService.send(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + spaceName + "/resourcequotas", yml, HttpMethod.POST, String.class);
+        model.put("plan", quotaModel(cpu, memory, storage));
+        sendManifest(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + spaceName + "/resourcequotas", HttpMethod.POST,
+                "instance/create_resource_quota.ftl", model, () -> K8sManifest.resourceQuota(spaceName + "-resourcequota", cpu, memory, storage));
 
     }
 
@@ -141,21 +182,13 @@ public class ContainerPlatformService {
      * @author Hyerin
      * @since 2018.09.03
      */
-    public void createLimitRange(String spaceName) {
+    public void createLimitRange(String spaceName) throws ContainerPlatformException {
         logger.info("### ** Create LimitRange in namespace [{}]..", CommonUtils.loggerReplace(spaceName));
 
         Map<String, Object> model = new HashMap<>();
         model.put("rangeName", spaceName + "-limitrange");
-        String yml = null;
-        try {
-            yml = templateService.convert("instance/create_limit_range.ftl", model);
-        } catch (ContainerPlatformException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
-
-
-        restTemplateService.send(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + spaceName + "/limitranges", yml, HttpMethod.POST, String.class);
+        sendManifest(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + spaceName + "/limitranges", HttpMethod.POST,
+                "instance/create_limit_range.ftl", model, () -> K8sManifest.limitRange(spaceName + "-limitrange", "100m", "500Mi"));
 
     }
 
@@ -167,44 +200,67 @@ public class ContainerPlatformService {
      * @author Hyerin
      * @since 2018.07.30
      */
-    public void createUser(String spaceName, String userName) {
+    public void createUser(String spaceName, String userName) throws ContainerPlatformException {
         logger.info("createUser Account~~ {}", CommonUtils.loggerReplace(userName));
 
         Map<String, Object> model = new HashMap<>();
         model.put("spaceName", spaceName);
         model.put("userName", userName);
-        String yml = null;
-        try {
-            yml = templateService.convert("instance/create_account.ftl", model);
-        } catch (ContainerPlatformException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
-
-        restTemplateService.send(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + spaceName + "/serviceaccounts", yml, HttpMethod.POST, String.class);
+        sendManifest(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + spaceName + "/serviceaccounts", HttpMethod.POST,
+                "instance/create_account.ftl", model, () -> K8sManifest.serviceAccount(spaceName, userName));
         logger.info("created Account~~ {}", CommonUtils.loggerReplace(userName));
 
     }
 
     /**
      * 생성한 유저의 토큰값을 가져온다.
-     * JSON형태로 값이 넘어오니까 파싱하는 로직이 포함되어 있다.
+     * ServiceAccount 응답 전체를 파싱하지 않고 secrets[0].name 만 stream 으로 읽는다.
      *
      * @author Hyerin
      * @since 2018.07.30
      */
     public String getToken(String spaceName, String userName) {
 
-        String jsonObj = restTemplateService.send(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + spaceName + "/serviceaccounts/" + userName, HttpMethod.GET, String.class);
-        JsonParser parser = new JsonParser();
-        JsonElement element = parser.parse(jsonObj);
-        element = element.getAsJsonObject().get("secrets");
-        element = element.getAsJsonArray().get(0);
-        String token = element.getAsJsonObject().get("name").getAsString();
+        Map<String, String> values = restTemplateService.stream(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + spaceName + "/serviceaccounts/" + userName, HttpMethod.GET, SERVICE_ACCOUNT_SECRET);
+        String token = values.get(SECRET_NAME);
+        if (token == null) {
+            throw new IllegalStateException("Cannot find token secret of service account : " + userName);
+        }
 
         return token;
     }
 
+    /**
+     * namespace 의 status.phase (Active, Terminating) 를 가져온다. namespace 가 없으면 404 HttpStatusCodeException 이 발생한다.
+     *
+     * @param namespace the namespace
+     * @return the phase
+     */
+    public String getNamespacePhase(String namespace) {
+        Map<String, String> values = restTemplateService.stream(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + namespace, HttpMethod.GET, NAMESPACE_STATUS);
+        return values.get(NAMESPACE_PHASE);
+    }
+
+    /**
+     * namespace ResourceQuota 의 resourceVersion 과 plan 항목의 할당량/사용량을 가져온다.
+     *
+     * @param spaceName the namespace
+     * @return the resource quota status
+     */
+    public ResourceQuotaStatus getResourceQuotaStatus(String spaceName) {
+        Map<String, String> values = restTemplateService.stream(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + spaceName + "/resourcequotas/" + spaceName + "-resourcequota", HttpMethod.GET, RESOURCE_QUOTA_STATUS);
+
+        ResourceQuotaStatus status = new ResourceQuotaStatus();
+        status.setResourceVersion(values.get(RESOURCE_VERSION));
+        status.setHardCpu(values.get(HARD_CPU));
+        status.setHardMemory(values.get(HARD_MEMORY));
+        status.setHardStorage(values.get(HARD_STORAGE));
+        status.setUsedCpu(values.get(USED_CPU));
+        status.setUsedMemory(values.get(USED_MEMORY));
+        status.setUsedStorage(values.get(USED_STORAGE));
+        return status;
+    }
+
     /**
      * 생성된 namespace에 role을 생성한다. role이름은 'namespace명-role' 이다.
      * instance/create_role.ftl의 변수를 채운 후 restTemplateService로 rest 통신한다.
@@ -212,21 +268,14 @@ public class ContainerPlatformService {
      * @author Hyerin
      * @since 2018.07.30
      */
-    public void createRole(String spaceName, String userName) {
+    public void createRole(String spaceName, String userName) throws ContainerPlatformException {
         logger.info("create Role And Binding~~ {}", CommonUtils.loggerReplace(userName));
 
         Map<String, Object> model = new HashMap<>();
         model.put("spaceName", spaceName);
         model.put("roleName", spaceName + "-role");
-        String yml = null;
-        try {
-            yml = templateService.convert("instance/create_role.ftl", model);
-        } catch (ContainerPlatformException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
-
-        restTemplateService.send(propertyService.getContainerPlatformUrl() + "/apis/rbac.authorization.k8s.io/v1/namespaces/" + spaceName + "/roles", yml, HttpMethod.POST, String.class);
+        sendManifest(propertyService.getContainerPlatformUrl() + "/apis/rbac.authorization.k8s.io/v1/namespaces/" + spaceName + "/roles", HttpMethod.POST,
+                "instance/create_role.ftl", model, () -> K8sManifest.role(spaceName, spaceName + "-role", K8sManifest.ADMIN_ROLE_RULES));
 
     }
 
@@ -237,34 +286,32 @@ public class ContainerPlatformService {
      * @author Hyerin
      * @since 2018.07.30
      */
-    public void createRoleBinding(String spaceName, String userName) {
+    public void createRoleBinding(String spaceName, String userName) throws ContainerPlatformException {
         logger.info("create Binding {}", CommonUtils.loggerReplace(userName));
 
         Map<String, Object> model = new HashMap<>();
         model.put("spaceName", spaceName);
         model.put("userName", userName);
         model.put("roleName", spaceName + "-role");
-        String yml = null;
-        try {
-            yml = templateService.convert("instance/create_roleBinding.ftl", model);
-        } catch (ContainerPlatformException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
-
-        restTemplateService.send(propertyService.getContainerPlatformUrl() + "/apis/rbac.authorization.k8s.io/v1/namespaces/" + spaceName + "/rolebindings", yml, HttpMethod.POST, String.class);
+        sendManifest(propertyService.getContainerPlatformUrl() + "/apis/rbac.authorization.k8s.io/v1/namespaces/" + spaceName + "/rolebindings", HttpMethod.POST,
+                "instance/create_roleBinding.ftl", model, () -> K8sManifest.roleBinding(spaceName, spaceName + "-role-binding", spaceName + "-role", userName));
 
     }
 
     /**
      * namespace를 삭제한다. 삭제를 신청하는 사람이 관리자일 것이라 생각하여, 중복체크, 공유유저 삭제 등의 행동은 하지 않는다.
+     * 이미 삭제된 namespace (404) 는 삭제된 것으로 본다. (삭제 재요청)
      *
      * @author Hyerin
      * @since 2018.07.30
      */
     public void deleteNamespace(String namespace) {
         logger.info("Start to delete namespace in Caas.");
-        restTemplateService.send(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + namespace, HttpMethod.DELETE, String.class);
+        try {
+            restTemplateService.send(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + namespace, HttpMethod.DELETE, String.class);
+        } catch (HttpClientErrorException.NotFound e) {
+            logger.info("Namespace {} is already deleted.", CommonUtils.loggerReplace(namespace));
+        }
         logger.info("Done to delete namespace in Caas.");
 
     }
@@ -272,14 +319,19 @@ public class ContainerPlatformService {
     /**
      * Namespace가 존재하는지 확인한다. restTemplateService으로 통신시, 있으면 200 OK, 없으면 404 Error를 뿜기 때문에
      * 에러가 생김 == 해당이름의 namespace가 없음이다.
+     * 브로커가 관리하는 namespace 는 NamespaceCache 가 동기화되어 있으면 apiserver 를 호출하지 않고 메모리에서 확인한다.
      *
      * @param namespace
      * @return
      */
     public boolean existsNamespace(String namespace) {
+        if (namespaceCache.isSynced() && namespaceCache.isManaged(namespace)) {
+            return namespaceCache.contains(namespace);
+        }
 
         try {
-            restTemplateService.send(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + namespace, HttpMethod.GET, String.class);
+            String phase = getNamespacePhase(namespace);
+            logger.debug("namespace {} phase : {}", CommonUtils.loggerReplace(namespace), CommonUtils.loggerReplace(phase));
         } catch (HttpStatusCodeException exception) {
             logger.info("can't find namespace {} {} ", CommonUtils.loggerReplace(exception.getStatusCode().value()), CommonUtils.loggerReplace(exception.getMessage()));
             return false;
@@ -289,8 +341,9 @@ public class ContainerPlatformService {
 
     /**
      * namespace에 quota를 재할당한다. 하위->상위 플랜 유효성 확인은 InstanceServiceImpl에서 대신 수행한다.
-     * plan정보의 B -> i 로 바꾼 후에 instance/change_resource_quota.ftl의 변수를 채운 후
-     * restTemplateService로 rest 통신한다.
+     * ResourceQuota 의 spec.hard 만 JSON merge patch 로 변경한다.
+     * 현재 resourceVersion 을 같이 보내므로 그 사이 다른 곳에서 ResourceQuota 를 바꿨으면 409 Conflict 가 발생하고,
+     * 이 경우 다시 읽어서 k8s.quota.max-conflict-retries 번까지 다시 적용한다. 이미 같은 값이면 요청하지 않는다.
      *
      * @author Hyerin
      * @author Hyungu Cho
@@ -299,24 +352,69 @@ public class ContainerPlatformService {
     public void changeResourceQuota(String spaceName, Plan plan) {
         logger.info("changeUser Resource Quota ~~ space : {}   {}", CommonUtils.loggerReplace(spaceName), CommonUtils.loggerReplace(plan));
 
-        Map<String, Object> model = new HashMap<>();
-        plan.setMemory(plan.getMemory().replace("B", "i"));
-        plan.setDisk(plan.getDisk().replace("B", "i"));
-        model.put("quotaName", spaceName + "-resourcequota");
-        model.put("plan", plan);
-        String yml = null;
-        try {
-            yml = templateService.convert("instance/create_resource_quota.ftl", model);
-        } catch (ContainerPlatformException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+        String cpu = String.valueOf(plan.getCpu());
+        String memory = toQuantity(plan.getMemory());
+        String storage = toQuantity(plan.getDisk());
+        String url = propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + spaceName + "/resourcequotas/" + spaceName + "-resourcequota";
+
+        for (int attempt = 1; ; attempt++) {
+            ResourceQuotaStatus current = getResourceQuotaStatus(spaceName);
+            if (current.hasHard(cpu, memory, storage)) {
+                logger.info("ResourceQuota of [{}] already has plan values", CommonUtils.loggerReplace(spaceName));
+                return;
+            }
+
+            try {
+                String responseBody = restTemplateService.sendMergePatch(url, K8sManifest.resourceQuotaPatch(current.getResourceVersion(), cpu, memory, storage), String.class);
+                if (null != responseBody)
+                    logger.debug("Change ResourceQuota response body : {}", CommonUtils.loggerReplace(responseBody));
+                return;
+            } catch (HttpClientErrorException.Conflict exception) {
+                if (attempt > quotaMaxConflictRetries) {
+                    throw exception;
+                }
+                logger.info("ResourceQuota of [{}] was changed concurrently (resourceVersion {}), retry {}/{}", CommonUtils.loggerReplace(spaceName),
+                        CommonUtils.loggerReplace(current.getResourceVersion()), attempt, quotaMaxConflictRetries);
+            }
         }
+    }
 
-        // ResourceQuota Create-POST / Replace-PUT
-        String responseBody = restTemplateService.send(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + spaceName + "/resourcequotas/" + spaceName + "-resourcequota", yml, HttpMethod.PUT, String.class);
+    /**
+     * 여러 namespace 의 ResourceQuota 를 한번에 변경한다.
+     * k8s.quota.patch-rate (초당 요청 수) 만큼씩 namespaceTaskExecutor 로 넘겨 동시에 처리한다.
+     * 요청 간격은 호출한 thread 에서 대기하므로 namespace 생성과 같이 쓰는 namespaceTaskExecutor 의 worker 는 대기하지 않는다.
+     *
+     * @param plans namespace 별 변경할 plan
+     * @return namespace 별 결과 (Constants.RESULT_STATUS_SUCCESS / RESULT_STATUS_FAIL)
+     */
+    public Map<String, String> changeResourceQuotas(Map<String, Plan> plans) {
+        RateLimiter rateLimiter = new RateLimiter(quotaPatchRate);
+
+        Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, Plan> entry : plans.entrySet()) {
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.put(entry.getKey(), CompletableFuture.completedFuture(Constants.RESULT_STATUS_FAIL));
+                continue;
+            }
+            futures.put(entry.getKey(), CompletableFuture.supplyAsync(() -> {
+                try {
+                    changeResourceQuota(entry.getKey(), entry.getValue());
+                    return Constants.RESULT_STATUS_SUCCESS;
+                } catch (Exception e) {
+                    logger.info("### EXCEPTION OCCURRED DURING CHANGE RESOURCE QUOTA [{}] : {}", CommonUtils.loggerReplace(entry.getKey()), CommonUtils.loggerReplace(e.getMessage()));
+                    return Constants.RESULT_STATUS_FAIL;
+                }
+            }, namespaceTaskExecutor));
+        }
 
-        if (null != responseBody)
-            logger.debug("Change ResourceQuota response body : {}", CommonUtils.loggerReplace(responseBody));
+        Map<String, String> results = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<String>> future : futures.entrySet()) {
+            results.put(future.getKey(), future.getValue().join());
+        }
+        return results;
     }
 
     /**
@@ -325,7 +423,7 @@ public class ContainerPlatformService {
      * @param nameSpace the space name
      * @return String
      */
-    public String createPrivateDockerSecret(String nameSpace) {
+    public String createPrivateDockerSecret(String nameSpace) throws ContainerPlatformException {
         String username = propertyService.getAuthId();
         String password = propertyService.getAuthPassword();
         String docker_repo_uri = propertyService.getPrivateDockerUri() + ":" + propertyService.getPrivateDockerPort();
@@ -366,15 +464,8 @@ public class ContainerPlatformService {
         model.put("spaceName", nameSpace);
         model.put("configJson", auth_base64);
 
-        String yml = null;
-        try {
-            yml = templateService.convert("privateDocker/create_private_docker_secret.ftl", model);
-        } catch (ContainerPlatformException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
-
-        String responseBody = restTemplateService.send(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + nameSpace + "/secrets", yml, HttpMethod.POST, String.class);
+        String responseBody = sendManifest(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + nameSpace + "/secrets", HttpMethod.POST,
+                "privateDocker/create_private_docker_secret.ftl", model, () -> K8sManifest.dockerConfigSecret(nameSpace, secretName, auth_base64));
 
         if (null != responseBody)
             logger.debug("Change ResourceQuota response body : {}", CommonUtils.loggerReplace(responseBody));
@@ -386,58 +477,143 @@ public class ContainerPlatformService {
 
     /**
      * 1. namespace 생성
-     * 2. namespace에 quota 할당
-     * 3. namespace의 role 생성
-     * 5. JPA instance 저장용 값 세팅 (spaceName, userName, token)
+     * 2. namespace에 quota, limit range, role 할당 (서로 의존하지 않으므로 namespaceTaskExecutor 로 동시에 요청)
+     * 3. JPA instance 저장용 값 세팅 (spaceName, userName, token)
+     * 하위 resource 중 하나라도 실패하거나 k8s.namespace.create-timeout 안에 끝나지 않으면 namespace 를 삭제한다.
      *
      * @author Hyerin
      * @since 2018.07.30
      */
-    public String createCpNamespace(JpaServiceInstance instance, Plan plan) {
+    public String createCpNamespace(JpaServiceInstance instance, Plan plan) throws ContainerPlatformException {
+        return createCpNamespace(instance, plan, StepListener.NONE);
+    }
+
+    /**
+     * createCpNamespace 와 같으며, 하위 resource 생성 단계의 시작과 종료를 stepListener 로 알린다. (provisioning saga 기록용)
+     */
+    public String createCpNamespace(JpaServiceInstance instance, Plan plan, StepListener stepListener) throws ContainerPlatformException {
         logger.info("### *** CREATE NAMESPACE...");
 
+        long startTime = System.nanoTime();
         String spaceName = createNamespace(instance.getServiceInstanceId());
-
-        try {
-            this.createResourceQuota(spaceName, plan);
-            this.createLimitRange(spaceName);
-            this.createCpInitRole(spaceName);
-            this.createCpAdminRole(spaceName);
-
-            // DB저장을 위한 JPAServiceInstance 리턴
-            instance.setCaasNamespace(spaceName);
-            instance.setCaasAccountName(instance.getUserId());
-            instance.setCaasAccountTokenName(instance.getUserId());
+        recordStep("namespace", System.nanoTime() - startTime, true);
+
+        Map<String, Step> steps = new LinkedHashMap<>();
+        steps.put("resourcequota", () -> this.createResourceQuota(spaceName, plan));
+        steps.put("limitrange", () -> this.createLimitRange(spaceName));
+        steps.put("init-role", () -> this.createCpInitRole(spaceName));
+        steps.put("admin-role", () -> this.createCpAdminRole(spaceName));
+
+        List<StepResult> results = runSteps(steps, stepListener);
+        List<StepResult> failed = new ArrayList<>();
+        for (StepResult result : results) {
+            if (!result.isSuccess()) {
+                failed.add(result);
+            }
         }
-        catch (Exception e) {
-            logger.info("### EXCEPTION OCCURRED DURING CREATE NAMESPACE IN K8S");
+
+        logger.info("### *** CREATE NAMESPACE [{}] steps : {}", CommonUtils.loggerReplace(spaceName), CommonUtils.loggerReplace(results));
+
+        if (!failed.isEmpty()) {
+            logger.info("### EXCEPTION OCCURRED DURING CREATE NAMESPACE IN K8S : {}", CommonUtils.loggerReplace(failed));
+            rollbackNamespace(spaceName);
             return Constants.RESULT_STATUS_FAIL;
         }
+
+        // DB저장을 위한 JPAServiceInstance 리턴
+        instance.setCaasNamespace(spaceName);
+        instance.setCaasAccountName(instance.getUserId());
+        instance.setCaasAccountTokenName(instance.getUserId());
         return Constants.RESULT_STATUS_SUCCESS;
     }
 
+    /**
+     * 각 단계를 동시에 실행하고 제한 시간까지 기다린다. 제한 시간 안에 끝나지 않은 단계는 실패로 기록한다.
+     * 제한 시간이 지나면 끝나지 않은 단계를 취소한다. (실행 전이면 실행하지 않고, 실행 중이면 interrupt 하여 재시도 대기를 중단)
+     * 이후 namespace 가 삭제(rollback)되므로 남은 단계가 k8s 요청을 새로 보내지 않도록 한다.
+     */
+    private List<StepResult> runSteps(Map<String, Step> steps, StepListener stepListener) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(namespaceCreateTimeout);
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        // CompletableFuture.cancel 은 실행 중인 thread 를 interrupt 하지 않으므로 FutureTask 를 사용한다.
+        Map<String, FutureTask<StepResult>> tasks = new LinkedHashMap<>();
+        for (Map.Entry<String, Step> step : steps.entrySet()) {
+            FutureTask<StepResult> task = new FutureTask<>(() -> runStep(step.getKey(), step.getValue(), stepListener, cancelled));
+            tasks.put(step.getKey(), task);
+            namespaceTaskExecutor.execute(task);
+        }
+
+        List<StepResult> results = new ArrayList<>();
+        for (Map.Entry<String, FutureTask<StepResult>> task : tasks.entrySet()) {
+            try {
+                results.add(task.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                cancelled.set(true);
+                task.getValue().cancel(true);
+                results.add(new StepResult(task.getKey(), false, namespaceCreateTimeout, "timed out"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled.set(true);
+                task.getValue().cancel(true);
+                results.add(new StepResult(task.getKey(), false, 0, "interrupted"));
+            } catch (ExecutionException e) {
+                results.add(new StepResult(task.getKey(), false, 0, String.valueOf(e.getCause())));
+            }
+        }
+        return results;
+    }
+
+    private StepResult runStep(String name, Step step, StepListener stepListener, AtomicBoolean cancelled) {
+        // 취소된 뒤 시작된 단계는 k8s 요청을 보내지 않는다.
+        if (cancelled.get()) {
+            return new StepResult(name, false, 0, "cancelled");
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            stepListener.started(name);
+            step.run();
+            long elapsed = System.nanoTime() - startTime;
+            recordStep(name, elapsed, true);
+            stepListener.finished(name, true);
+            return new StepResult(name, true, TimeUnit.NANOSECONDS.toMillis(elapsed), null);
+        } catch (Exception e) {
+            long elapsed = System.nanoTime() - startTime;
+            recordStep(name, elapsed, false);
+            stepListener.finished(name, false);
+            return new StepResult(name, false, TimeUnit.NANOSECONDS.toMillis(elapsed), e.getMessage());
+        }
+    }
+
+    private void recordStep(String name, long elapsedNanos, boolean success) {
+        Metrics.timer("k8s.namespace.create.step", "step", name, "outcome", success ? "success" : "failure")
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void rollbackNamespace(String spaceName) {
+        try {
+            deleteNamespace(spaceName);
+        } catch (Exception e) {
+            logger.info("### EXCEPTION OCCURRED DURING ROLLBACK NAMESPACE [{}] : {}", CommonUtils.loggerReplace(spaceName), CommonUtils.loggerReplace(e.getMessage()));
+        }
+    }
+
 
     /**
      * ftl 파일로 init role을 생성한다.
      *
      * @param namespace the namespace
      */
-    public void createCpInitRole(String namespace) {
+    public void createCpInitRole(String namespace) throws ContainerPlatformException {
         logger.info("### ** Create container platform init role in namespace [{}]..", CommonUtils.loggerReplace(namespace));
 
         Map<String, Object> map = new HashMap<>();
         map.put("spaceName", namespace);
         map.put("roleName", propertyService.getInitRole());
 
-        String yml = null;
-        try {
-            yml = templateService.convert("instance/create_init_role.ftl", map);
-        } catch (ContainerPlatformException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
-
-        restTemplateService.send(propertyService.getContainerPlatformUrl() + "/apis/rbac.authorization.k8s.io/v1/namespaces/" + namespace + "/roles", yml, HttpMethod.POST, String.class);
+        sendManifest(propertyService.getContainerPlatformUrl() + "/apis/rbac.authorization.k8s.io/v1/namespaces/" + namespace + "/roles", HttpMethod.POST,
+                "instance/create_init_role.ftl", map, () -> K8sManifest.role(namespace, propertyService.getInitRole(), K8sManifest.INIT_ROLE_RULES));
     }
 
 
@@ -446,25 +622,109 @@ public class ContainerPlatformService {
      *
      * @param namespace the namespace
      */
-    public void createCpAdminRole(String namespace) {
+    public void createCpAdminRole(String namespace) throws ContainerPlatformException {
         logger.info("### ** Create container platform admin role in namespace [{}]..", CommonUtils.loggerReplace(namespace));
 
         Map<String, Object> map = new HashMap<>();
         map.put("spaceName", namespace);
         map.put("roleName", propertyService.getAdminRole());
 
-        String yml = null;
+        sendManifest(propertyService.getContainerPlatformUrl() + "/apis/rbac.authorization.k8s.io/v1/namespaces/" + namespace + "/roles", HttpMethod.POST,
+                "instance/create_admin_role.ftl", map, () -> K8sManifest.role(namespace, propertyService.getAdminRole(), K8sManifest.ADMIN_ROLE_RULES));
+    }
+
+    /**
+     * plan 의 용량 단위를 k8s quantity 로 바꾼다. (ex. 2GB -> 2Gi)
+     */
+    private static String toQuantity(String value) {
+        return value.replace("B", "i");
+    }
+
+    /**
+     * create_resource_quota.ftl 의 plan 변수
+     */
+    private static Map<String, Object> quotaModel(String cpu, String memory, String storage) {
+        Map<String, Object> plan = new HashMap<>();
+        plan.put("cpu", cpu);
+        plan.put("memory", memory);
+        plan.put("disk", storage);
+        return plan;
+    }
+
+    /**
+     * k8s 객체 생성/변경 요청을 보낸다.
+     * 기본은 K8sManifest 로 만든 JSON(application/json) 을 보내며,
+     * k8s.manifest.format 이 template 이면 기존처럼 FreeMarker 템플릿으로 만든 YAML 을 보낸다. (템플릿 수정으로 객체를 바꾸고 싶은 경우)
+     */
+    private String sendManifest(String url, HttpMethod httpMethod, String templateName, Map<String, Object> model, Supplier<byte[]> manifest)
+            throws ContainerPlatformException {
+        if (!"template".equalsIgnoreCase(manifestFormat)) {
+            return restTemplateService.sendJson(url, manifest.get(), httpMethod, String.class);
+        }
+
+        String yml;
         try {
-            yml = templateService.convert("instance/create_admin_role.ftl", map);
+            yml = templateService.convert(templateName, model);
         } catch (ContainerPlatformException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+            // 변환하지 못한 manifest 는 보내지 않는다.
+            logger.error("### EXCEPTION OCCURRED DURING CONVERT TEMPLATE [{}] : {}", CommonUtils.loggerReplace(templateName), CommonUtils.loggerReplace(e));
+            throw e;
         }
+        return restTemplateService.send(url, yml, httpMethod, String.class);
+    }
 
-        restTemplateService.send(propertyService.getContainerPlatformUrl() + "/apis/rbac.authorization.k8s.io/v1/namespaces/" + namespace + "/roles", yml, HttpMethod.POST, String.class);
+
+    /**
+     * createCpNamespace 의 하위 resource 생성 단계
+     */
+    @FunctionalInterface
+    private interface Step {
+        void run() throws ContainerPlatformException;
     }
 
+    /**
+     * createCpNamespace 의 하위 resource 생성 단계 시작/종료 알림
+     */
+    public interface StepListener {
+
+        StepListener NONE = new StepListener() {
+            @Override
+            public void started(String step) {
+            }
+
+            @Override
+            public void finished(String step, boolean success) {
+            }
+        };
+
+        void started(String step);
 
+        void finished(String step, boolean success);
+    }
+
+    /**
+     * namespace 하위 resource 생성 단계별 결과
+     */
+    private static class StepResult {
+        private final String name;
+        private final boolean success;
+        private final long elapsedMillis;
+        private final String error;
+
+        StepResult(String name, boolean success, long elapsedMillis, String error) {
+            this.name = name;
+            this.success = success;
+            this.elapsedMillis = elapsedMillis;
+            this.error = error;
+        }
 
+        boolean isSuccess() {
+            return success;
+        }
 
+        @Override
+        public String toString() {
+            return name + "(" + (success ? "success" : "failure : " + error) + ", " + elapsedMillis + "ms)";
+        }
+    }
 }
@@ -0,0 +1,154 @@
+package org.openpaas.servicebroker.container.platform.service.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.common.TtlCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 플랫폼이 timeout 으로 다시 보낸 서비스 인스턴스 생성/삭제 요청을 처음 요청의 결과로 응답하기 위한 서비스 클래스
+ * key 는 서비스 인스턴스 id, 요청 method, 요청 내용(fingerprint) 으로 구성한다.
+ *
+ * - 처리 중인 요청과 같은 요청은 새로 처리하지 않고 처리 중인 요청의 결과를 기다려 응답한다.
+ * - 성공(2xx) 응답은 ttl 동안 보관하고 같은 요청에 그대로 응답한다. 생성 요청의 201 Created 는 200 OK 로 응답한다. (OSB : 동일한 인스턴스가 이미 있는 경우)
+ * - 실패 응답은 보관하지 않으므로 다시 요청하면 새로 처리한다.
+ * - 비동기 작업이 실패하면 ServiceOperationService 가 invalidate 를 호출하여 보관된 202 Accepted 응답을 버리므로 다시 요청하면 새로 처리한다.
+ * - broker 메모리에 보관하므로 다른 broker 로 전달된 같은 요청은 새로 처리한다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Service
+public class IdempotencyService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final String KEY_SEPARATOR = "|";
+
+    @Value("${osb.idempotency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${osb.idempotency.ttl:600000}")
+    private long ttl;
+
+    private TtlCache<String, ResponseEntity<?>> outcomes;
+
+    private final ConcurrentMap<String, CompletableFuture<ResponseEntity<?>>> inFlight = new ConcurrentHashMap<>();
+
+
+    @PostConstruct
+    public void init() {
+        outcomes = new TtlCache<>(ttl);
+    }
+
+    public static String key(String serviceInstanceId, String method, String fingerprint) {
+        return serviceInstanceId + KEY_SEPARATOR + method + KEY_SEPARATOR + fingerprint;
+    }
+
+    /**
+     * 같은 key 의 보관된 결과가 있으면 그 결과로, 처리 중이면 처리 결과를 기다려 응답하고, 없으면 action 을 실행한다.
+     *
+     * @param key    key(serviceInstanceId, method, fingerprint)
+     * @param action 요청 처리
+     * @return 응답
+     */
+    public ResponseEntity<?> execute(String key, IdempotentAction action) throws Exception {
+        if (!enabled) {
+            return action.call();
+        }
+
+        ResponseEntity<?> outcome = outcomes.getIfPresent(key);
+        if (outcome != null) {
+            logger.info("Replay stored response of duplicate request : {}", CommonUtils.loggerReplace(key));
+            return outcome.getStatusCode() == HttpStatus.CREATED ? new ResponseEntity<>(outcome.getBody(), HttpStatus.OK) : outcome;
+        }
+
+        CompletableFuture<ResponseEntity<?>> running = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<?>> existing = inFlight.putIfAbsent(key, running);
+        if (existing != null) {
+            logger.info("Attach duplicate request to in-flight request : {}", CommonUtils.loggerReplace(key));
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        try {
+            ResponseEntity<?> response = action.call();
+            synchronized (this) {
+                // 처리 중에 invalidate 된 요청(응답 전에 실패한 비동기 작업)의 결과는 보관하지 않는다.
+                if (inFlight.remove(key, running) && response.getStatusCode().is2xxSuccessful()) {
+                    // 같은 인스턴스의 다른 요청(생성 후 삭제 등)의 결과는 더 이상 유효하지 않다.
+                    invalidateKeys(key.substring(0, key.indexOf(KEY_SEPARATOR) + 1));
+                    outcomes.put(key, response);
+                }
+            }
+            running.complete(response);
+            return response;
+        } catch (Exception e) {
+            running.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, running);
+        }
+    }
+
+    /**
+     * 서비스 인스턴스의 보관된 결과와 처리 중인 요청을 버린다. 이후 같은 요청은 새로 처리한다.
+     *
+     * @param serviceInstanceId 서비스 인스턴스 id
+     */
+    public synchronized void invalidate(String serviceInstanceId) {
+        if (outcomes == null) {
+            return;
+        }
+        String prefix = serviceInstanceId + KEY_SEPARATOR;
+        inFlight.keySet().removeIf(key -> key.startsWith(prefix));
+        invalidateKeys(prefix);
+    }
+
+    private void invalidateKeys(String prefix) {
+        outcomes.invalidateKeysIf(stored -> stored.startsWith(prefix));
+    }
+
+    /**
+     * ttl 이 지난 결과를 버린다.
+     */
+    @Scheduled(initialDelayString = "${osb.idempotency.ttl:600000}", fixedDelayString = "${osb.idempotency.ttl:600000}")
+    public void evictExpired() {
+        outcomes.evictExpired();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("osb.idempotency.stored", this, service -> service.outcomes.size())
+                .description("Stored responses of service instance requests")
+                .register(registry);
+        Gauge.builder("osb.idempotency.running", inFlight, ConcurrentMap::size)
+                .description("Service instance requests being processed")
+                .register(registry);
+    }
+
+    /**
+     * 요청 처리
+     */
+    @FunctionalInterface
+    public interface IdempotentAction {
+        ResponseEntity<?> call() throws Exception;
+    }
+}
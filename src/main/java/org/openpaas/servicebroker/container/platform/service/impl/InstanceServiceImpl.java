@@ -1,11 +1,16 @@
 package org.openpaas.servicebroker.container.platform.service.impl;
 
+import java.util.LinkedHashMap;
 import java.util.List;
-import org.openpaas.servicebroker.container.platform.common.CommonStatusCode;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
 import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.common.StripedLock;
+import org.openpaas.servicebroker.container.platform.exception.SagaStepFailedException;
 import org.openpaas.servicebroker.container.platform.model.Constants;
 import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
-import org.openpaas.servicebroker.container.platform.model.KeycloakUserStatus;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceOperation;
 import org.openpaas.servicebroker.container.platform.repo.JpaServiceInstanceRepository;
 import org.openpaas.servicebroker.container.platform.service.PropertyService;
 import org.openpaas.servicebroker.exception.ServiceBrokerException;
@@ -15,12 +20,15 @@ import org.openpaas.servicebroker.model.DeleteServiceInstanceRequest;
 import org.openpaas.servicebroker.model.Plan;
 import org.openpaas.servicebroker.model.ServiceDefinition;
 import org.openpaas.servicebroker.model.ServiceInstance;
+import org.openpaas.servicebroker.model.ServiceInstanceLastOperation;
 import org.openpaas.servicebroker.model.UpdateServiceInstanceRequest;
 import org.openpaas.servicebroker.service.CatalogService;
 import org.openpaas.servicebroker.service.ServiceInstanceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 /**
@@ -49,10 +57,27 @@ public class InstanceServiceImpl implements ServiceInstanceService {
     UserService userService;
 
     @Autowired
-    KeycloakAdminClientService keycloakAdminClientService;
+    ProvisioningSagaService provisioningSagaService;
+
+    @Autowired
+    ServiceOperationService serviceOperationService;
+
+    @Autowired
+    OrganizationReservationService organizationReservationService;
+
+    @Autowired
+    ServiceInstanceCache serviceInstanceCache;
+
+    @Value("${provisioning.update.max-conflict-retries:3}")
+    private int updateMaxConflictRetries;
 
     private static final Logger logger = LoggerFactory.getLogger(InstanceServiceImpl.class);
 
+    /**
+     * 같은 organization 의 사용자 포탈 서비스 생성 확인/예약을 직렬화하는 lock (다른 organization 은 동시에 처리)
+     */
+    private final StripedLock organizationLocks = new StripedLock(64);
+
     /**
      * <p>
      * Service Instance 생성 : request 온 내용을 바탕으로 다음의 내용을 구성
@@ -90,24 +115,53 @@ public class InstanceServiceImpl implements ServiceInstanceService {
 
 
     /**
-     * Service Instance 정보를 테이블에서 가져와 ServiceInstance 객체로 반환한다.
+     * Service Instance 정보를 테이블에서 가져와 ServiceInstance 객체로 반환한다. (ServiceInstanceCache 에 보관된 값 사용)
      * TODO : getOne으로 바꾸어도 테스트코드 돌아가는지 확인 (아마될것..?)
      * @param serviceInstanceId
      * @return
      */
     @Override
     public ServiceInstance getServiceInstance(String serviceInstanceId) {
-        return instanceRepository.findByServiceInstanceId(serviceInstanceId);
+        return serviceInstanceCache.find(serviceInstanceId);
     }
 
+    /**
+     * 서비스 인스턴스의 마지막 비동기 작업 상태를 ServiceInstance 객체로 반환한다. 작업 기록이 없으면 null
+     *
+     * @param serviceInstanceId
+     * @return
+     */
     @Override
-    public ServiceInstance getOperationServiceInstance(String var1) {
-        return null;
+    public ServiceInstance getOperationServiceInstance(String serviceInstanceId) {
+        JpaServiceOperation operation = serviceOperationService.getLastOperation(serviceInstanceId, null);
+        if (operation == null) {
+            return null;
+        }
+
+        // 응답용으로 값을 바꾸므로 cache 에 보관된 객체가 아닌 DB 에서 읽은 객체를 사용한다.
+        ServiceInstance instance = instanceRepository.findByServiceInstanceId(serviceInstanceId);
+        return (instance == null ? new ServiceInstance() : instance)
+                .withAsync(true)
+                .withLastOperation(new ServiceInstanceLastOperation(operation.getDescription(), operation.getState()));
+    }
+
+    /**
+     * 생성 요청의 dashboard url (관리자 포탈 / 사용자 포탈)
+     *
+     * @param request
+     * @return
+     */
+    public String getDashboardUrl(CreateServiceInstanceRequest request) {
+        if (request.getServiceDefinitionId().equalsIgnoreCase(propertyService.getCpBrokerAdminId())) {
+            return propertyService.getAdminDashboardUrl();
+        }
+        return propertyService.getDashboardUrl(request.getServiceInstanceId());
     }
 
     /**
      * 외부에서의 요청으로 전달받은 service instance id 등을 비교하여 Service Instance ID 정보를 찾은 다음,
-     * Caas의 namespace의 삭제와 service instance 정보를 차례대로 삭제한다.
+     * service instance 정보와 Caas의 namespace를 차례대로 삭제한다.
+     * service instance 정보를 먼저 삭제하므로 namespace 삭제가 실패해도 다시 요청하면 (DB에 정보가 없을 때) namespace 를 찾아 삭제한다.
      *
      * @param request
      * @return
@@ -117,9 +171,8 @@ public class InstanceServiceImpl implements ServiceInstanceService {
     public ServiceInstance deleteServiceInstance(DeleteServiceInstanceRequest request) throws ServiceBrokerException {
         logger.info("Delete Kubernetes service instance : {}", CommonUtils.loggerReplace(request.getServiceInstanceId()));
 
-        //JpaServiceInstance instance = null;
-
-        JpaServiceInstance instance = (JpaServiceInstance) getServiceInstance(request.getServiceInstanceId());
+        // 삭제할 값이므로 cache 가 아닌 DB 에서 읽는다. (cache 의 version 이 DB 와 다르면 삭제가 optimistic lock 으로 실패)
+        JpaServiceInstance instance = instanceRepository.findByServiceInstanceId(request.getServiceInstanceId());
 
         // DB에 정보가 없을 때
         if (instance == null) {
@@ -136,17 +189,19 @@ public class InstanceServiceImpl implements ServiceInstanceService {
 
         logger.info("Service Instance Type : [{}]", CommonUtils.loggerReplace(instance.getDashboardType()));
 
+        // 정리 작업은 다시 실행해도 되므로 먼저 하고 DB 의 service instance 는 마지막에 삭제한다.
+        // (중간에 실패하면 row 가 남아 있으므로 플랫폼의 재요청이 pool namespace, cp 계정, organization 예약까지 정리한다.)
         if(instance.getDashboardType().equals(Constants.CONTAINER_PLATFORM_ADMIN_PORTAL)) {
             // 관리자 포탈의 경우
-            instanceRepository.delete(instance);
             userService.deleteCpUser(Constants.CONTAINER_PLATFORM_ADMIN_PORTAL, Constants.NULL_REPLACE_TEXT);
         }
         else {
             // 사용자 포탈의 경우
             containerPlatformService.deleteNamespace(instance.getCaasNamespace());
-            instanceRepository.delete(instance);
             userService.deleteCpUser(Constants.CONTAINER_PLATFORM_USER_PORTAL ,instance.getCaasNamespace());
+            organizationReservationService.release(instance.getOrganizationGuid(), instance.getServiceInstanceId());
         }
+        instanceRepository.delete(instance);
 
         // unbind(delete binding information)는 구현하지 않기로 결정함.
 
@@ -156,6 +211,8 @@ public class InstanceServiceImpl implements ServiceInstanceService {
     /**
      * Service Instance의 정보를 갱신한다. 단, Plan ID, Kubernetes의 계정의 이름(ID), Kubernetes
      * 계정의 엑세스 토큰만 변경이 가능하다.
+     * service_instance 는 version 으로 낙관적 잠금을 하므로, 저장 중 다른 요청이 먼저 변경했으면 (플랫폼 재시도, 운영자 변경 등)
+     * 먼저 저장된 row 의 plan 으로 ResourceQuota 를 맞춘 뒤 다시 읽어 변경한다. (provisioning.update.max-conflict-retries 회)
      *
      * @param request
      *            (update available only these; plan id, account name, account
@@ -166,45 +223,102 @@ public class InstanceServiceImpl implements ServiceInstanceService {
     public ServiceInstance updateServiceInstance(UpdateServiceInstanceRequest request) throws ServiceBrokerException {
         logger.info("Update Kubernetes service instance : {}", CommonUtils.loggerReplace(request.getServiceInstanceId()));
 
-        JpaServiceInstance findInstance = instanceRepository.findByServiceInstanceId(request.getServiceInstanceId());
-        if (null == findInstance)
-            throw new ServiceBrokerException("Cannot find service instance id : " + request.getServiceInstanceId());
-
         JpaServiceInstance instance = new JpaServiceInstance(request);
 
-        if (findInstance.equals(instance)) {
+        for (int attempt = 1; ; attempt++) {
+            // 변경할 값이므로 cache 가 아닌 DB 에서 읽는다.
+            JpaServiceInstance findInstance = instanceRepository.findByServiceInstanceId(request.getServiceInstanceId());
+            if (null == findInstance)
+                throw new ServiceBrokerException("Cannot find service instance id : " + request.getServiceInstanceId());
+
             String planId = instance.getPlanId();
             logger.debug("Plan ID : {}", CommonUtils.loggerReplace(planId));
-
-            if (null != planId) {
-                // 지정한 Plan ID가 실제 있는 Plan의 UUID가 맞는지 유효성 확인.
-                logger.info("Change Plan : {} -> {}", CommonUtils.loggerReplace(findInstance.getPlanId()), CommonUtils.loggerReplace(instance.getPlanId()));
-                Plan oldPlan = this.getPlan(findInstance);
-                Plan newPlan = this.getPlan(instance);
-                if (oldPlan.getWeight() > newPlan.getWeight())
-                    throw new ServiceBrokerException("Cannot change lower plan. (current: " + oldPlan.getName() + " / new: " + newPlan.getName() + ")");
-
-                findInstance.setPlanId(planId);
-                containerPlatformService.changeResourceQuota(findInstance.getCaasNamespace(), newPlan);
-
-                // ---------------------------------------------------------------------------- 추가
-                try {
-                    logger.info("Save data broker DB");
-                    instanceRepository.save(findInstance);
-                } catch(Exception exception) {
-                    logger.error("somthing wrong! update rollback will be execute.");
-                    containerPlatformService.changeResourceQuota(findInstance.getCaasNamespace(), oldPlan);
-                    findInstance.setPlanId(oldPlan.getId());
-                    instanceRepository.save(findInstance);
-                    throw new ServiceBrokerException("Please check your Network state");
-                }
-                // ---------------------------------------------------------------------------- 추가 끝
+            if (!findInstance.equals(instance) || null == planId)
+                return findInstance;
+
+            // 지정한 Plan ID가 실제 있는 Plan의 UUID가 맞는지 유효성 확인.
+            logger.info("Change Plan : {} -> {}", CommonUtils.loggerReplace(findInstance.getPlanId()), CommonUtils.loggerReplace(planId));
+            Plan oldPlan = this.getPlan(findInstance);
+            Plan newPlan = this.getPlan(instance);
+            if (oldPlan.getWeight() > newPlan.getWeight())
+                throw new ServiceBrokerException("Cannot change lower plan. (current: " + oldPlan.getName() + " / new: " + newPlan.getName() + ")");
+
+            // 방금 읽은 row 가 이미 요청한 plan 이면 변경할 것이 없다. (ResourceQuota 는 해당 plan 을 저장한 요청이 맞춤)
+            if (planId.equals(findInstance.getPlanId()))
+                return findInstance;
+
+            containerPlatformService.changeResourceQuota(findInstance.getCaasNamespace(), newPlan);
+            findInstance.setPlanId(planId);
+
+            try {
+                logger.info("Save data broker DB");
+                instanceRepository.save(findInstance);
+            } catch (OptimisticLockingFailureException exception) {
+                // 다른 요청이 먼저 저장했으므로 변경한 quota 를 이전 plan 으로 되돌리지 않고 먼저 저장된 row 의 plan 으로 맞춘다.
+                logger.info("Service instance [{}] was updated concurrently, retry {}/{}", CommonUtils.loggerReplace(request.getServiceInstanceId()),
+                        attempt, updateMaxConflictRetries);
+                JpaServiceInstance winner = reconcileResourceQuota(instanceRepository.findByServiceInstanceId(request.getServiceInstanceId()));
+                if (attempt > updateMaxConflictRetries)
+                    throw new ServiceBrokerException("Service instance was updated concurrently. (current plan: "
+                            + (null == winner ? null : winner.getPlanId()) + ")");
+                continue;
+            } catch (Exception exception) {
+                logger.error("Failed to save service instance. ResourceQuota will be reconciled from broker DB : {}", CommonUtils.loggerReplace(exception));
+                reconcileResourceQuota(instanceRepository.findByServiceInstanceId(request.getServiceInstanceId()));
+                throw new ServiceBrokerException("Please check your Network state");
             }
-//            instanceRepository.save(findInstance);
 
+            // quota 변경과 저장 사이에 다른 요청이 quota 를 바꿨을 수 있으므로 저장된 plan 으로 다시 확인한다.
+            return reconcileResourceQuota(findInstance);
+        }
+    }
+
+    /**
+     * DB 에 저장된 plan 으로 ResourceQuota 를 맞춘다. (이미 같은 값이면 변경하지 않음)
+     * 맞추는 동안 다른 요청이 plan 을 변경하여 저장했으면 저장된 plan 으로 다시 맞춘다.
+     *
+     * @param instance DB 에서 읽은 서비스 인스턴스 (null 이면 삭제된 것이므로 맞추지 않음)
+     * @return 마지막으로 확인한 서비스 인스턴스
+     * @throws ServiceBrokerException
+     */
+    private JpaServiceInstance reconcileResourceQuota(JpaServiceInstance instance) throws ServiceBrokerException {
+        if (null == instance)
+            return null;
+
+        JpaServiceInstance current = instance;
+        for (int attempt = 1; ; attempt++) {
+            containerPlatformService.changeResourceQuota(current.getCaasNamespace(), this.getPlan(current));
+
+            JpaServiceInstance latest = instanceRepository.findByServiceInstanceId(current.getServiceInstanceId());
+            if (null == latest)
+                return current;
+            if (Objects.equals(latest.getPlanId(), current.getPlanId()) || attempt > updateMaxConflictRetries)
+                return latest;
+            current = latest;
+        }
+    }
+
+    /**
+     * 사용자 포탈 서비스 인스턴스의 ResourceQuota 를 broker DB 에 저장된 plan 으로 일괄 맞춘다. (catalog 의 plan 값 변경 후 적용 등)
+     * 이미 plan 값과 같은 namespace 는 변경하지 않으며, 변경 요청은 k8s.quota.patch-rate 로 제한된다.
+     *
+     * @return namespace 별 결과 (Constants.RESULT_STATUS_SUCCESS / RESULT_STATUS_FAIL)
+     */
+    public Map<String, String> reconcileResourceQuotas() {
+        Map<String, Plan> plans = new LinkedHashMap<>();
+        Map<String, String> results = new LinkedHashMap<>();
+        for (JpaServiceInstance instance : instanceRepository.findAllByDashboardType(Constants.CONTAINER_PLATFORM_USER_PORTAL)) {
+            try {
+                plans.put(instance.getCaasNamespace(), this.getPlan(instance));
+            } catch (ServiceBrokerException e) {
+                logger.info("Cannot find plan of service instance [{}] : {}", CommonUtils.loggerReplace(instance.getServiceInstanceId()), CommonUtils.loggerReplace(e.getMessage()));
+                results.put(instance.getCaasNamespace(), Constants.RESULT_STATUS_FAIL);
+            }
         }
 
-        return findInstance;
+        logger.info("Reconcile ResourceQuota of {} namespaces", plans.size());
+        results.putAll(containerPlatformService.changeResourceQuotas(plans));
+        return results;
     }
 
     /**
@@ -249,76 +363,55 @@ public class InstanceServiceImpl implements ServiceInstanceService {
     private void createServiceInstanceByCpUserPortal(JpaServiceInstance instance) throws ServiceInstanceExistsException, ServiceBrokerException
     {
 
-        // 1. 해당 serviceInstance Id 가 이미 등록된 Id 인지 확인
-        JpaServiceInstance findInstance = instanceRepository.findByServiceInstanceId(instance.getServiceInstanceId());
+        // 1 ~ 4 의 확인과 예약은 같은 organization 에 대해 한번에 하나만 진행한다. (다른 organization 은 동시에 진행)
+        Lock organizationLock = organizationLocks.get(instance.getOrganizationGuid());
+        organizationLock.lock();
+        try {
+            // 1. 해당 serviceInstance Id 가 이미 등록된 Id 인지 확인
+            JpaServiceInstance findInstance = instanceRepository.findByServiceInstanceId(instance.getServiceInstanceId());
+
+            // 1-1. 동일한 instance Id 가 존재한다면 Exception 메세지 발생
+            if (findInstance != null) {
+                if (findInstance.getServiceInstanceId().equals(instance.getServiceInstanceId())) {
+                    logger.info("ServiceInstance : {} OR OrgGuid : {} is exist.", CommonUtils.loggerReplace(instance.getServiceInstanceId()), CommonUtils.loggerReplace(instance.getOrganizationGuid()));
+                    throw new ServiceBrokerException("The service Instance already exists in your organization.");
+                } else {
+                    throw new ServiceInstanceExistsException(instance);
+                }
+            }
 
-        // 1-1. 동일한 instance Id 가 존재한다면 Exception 메세지 발생
-        if (findInstance != null) {
-            if (findInstance.getServiceInstanceId().equals(instance.getServiceInstanceId())) {
-                logger.info("ServiceInstance : {} OR OrgGuid : {} is exist.", CommonUtils.loggerReplace(instance.getServiceInstanceId()), CommonUtils.loggerReplace(instance.getOrganizationGuid()));
+            // 2. 해당 Org 에 이미 등록된 serviceInstance 가 있는지 확인 ( 1 Org 당 1 serviceInstance 생성 가능)
+            //    해당 Org 에 이미 등록된 admin serviceInstance 는 제외한다.
+            if(instanceRepository.existsByOrganizationGuidAndDashboardType(instance.getOrganizationGuid(), Constants.CONTAINER_PLATFORM_USER_PORTAL)) {
+                logger.error("ServiceInstance already exists in your organization: OrganizationGuid : {}, spaceId : {}", CommonUtils.loggerReplace(instance.getOrganizationGuid()), CommonUtils.loggerReplace(instance.getSpaceGuid()));
                 throw new ServiceBrokerException("The service Instance already exists in your organization.");
-            } else {
-                throw new ServiceInstanceExistsException(instance);
             }
-        }
-
-        // 2. 해당 Org 에 이미 등록된 serviceInstance 가 있는지 확인 ( 1 Org 당 1 serviceInstance 생성 가능)
-        //    해당 Org 에 이미 등록된 admin serviceInstance 는 제외한다.
-        if(instanceRepository.findAllByOrganizationGuidAndDashboardType(instance.getOrganizationGuid(), Constants.CONTAINER_PLATFORM_USER_PORTAL).size() > 0) {
-            logger.error("ServiceInstance already exists in your organization: OrganizationGuid : {}, spaceId : {}", CommonUtils.loggerReplace(instance.getOrganizationGuid()), CommonUtils.loggerReplace(instance.getSpaceGuid()));
-            throw new ServiceBrokerException("The service Instance already exists in your organization.");
-        }
-
-        // 3. 동일한 이름의 namespace 가 이미 생성되어있는지 확인
-        String checkSpaceName = "paas-" + instance.getServiceInstanceId().toLowerCase() + "-caas";
-        logger.info("Check Namespace Exists : {} ", CommonUtils.loggerReplace(checkSpaceName));
-        if(existsNamespace(checkSpaceName))
-            throw new ServiceBrokerException("A namespace with the same name is already exists within the cluster.");
 
+            // 3. 동일한 이름의 namespace 가 이미 생성되어있는지 확인
+            String checkSpaceName = "paas-" + instance.getServiceInstanceId().toLowerCase() + "-caas";
+            logger.info("Check Namespace Exists : {} ", CommonUtils.loggerReplace(checkSpaceName));
+            if(existsNamespace(checkSpaceName))
+                throw new ServiceBrokerException("A namespace with the same name is already exists within the cluster.");
 
-        // 4. Uaa ID -> Keycloak Identity Provider Mapping 계정 생성
-        KeycloakUserStatus keycloakUserStatus = keycloakAdminClientService.createKeycloakUser(instance.getUserId(), Constants.AUTH_NAMESPACE_ADMIN);
-        if(!Constants.KEYCLOAK_CREATE_UESR_STATUS_CODE.contains(keycloakUserStatus.getResultCode())) {
-            logger.info("An exception occurred while creating keycloak user");
-            throw new ServiceBrokerException("Failed to register Single Sign-On user account.");
+            // 4. organization 예약 (다른 broker 에서 동시에 생성하는 경우 DB primary key 로 하나만 성공)
+            organizationReservationService.reserve(instance.getOrganizationGuid(), instance.getServiceInstanceId());
+        } finally {
+            organizationLock.unlock();
         }
 
-
+        // 5. keycloak 계정 생성과 namespace 생성(namespace, resourcequotas, limitranges, role 생성)을 동시에 진행
+        // 6. Instance DB 데이터 추가
+        // 7. cp user 생성
+        //    각 단계는 provisioning saga 로 실행하며, 실패하면 이미 실행한 단계를 보상(rollback)하고 organization 예약을 해제한다.
         try {
-            // 5. k8s 클러스터 내 namespace 생성(namespace, resourcequotas, limitranges, role 생성)
-            String namespaceStatus = containerPlatformService.createCpNamespace(instance, getPlan(instance));
-            if(!namespaceStatus.equalsIgnoreCase(Constants.RESULT_STATUS_SUCCESS)) {
-                logger.info("An exception occurred while creating namespace in k8s");
-                throw new ServiceBrokerException("Failed to create namespace in cluster. Please check your cluster!");
-            }
-
-            // 6. Instance DB 데이터 추가
-            // dashboard url, type 값 설정
-            instance.withDashboardUrl(propertyService.getDashboardUrl(instance.getServiceInstanceId()));
-            instance.setDashboardType(Constants.CONTAINER_PLATFORM_USER_PORTAL);
-            instanceRepository.save(instance);
-
-
-            // 7. cp user 생성
-            String createUserStatus = userService.createCpUser(instance);
-            if(!createUserStatus.equalsIgnoreCase(Constants.RESULT_STATUS_SUCCESS)) {
-                logger.info("An exception occurred while creating user in container-platform");
-                throw new ServiceBrokerException("Failed to register container-platform user account. Please check common DB!");
-            }
-
-
+            provisioningSagaService.run(Constants.CONTAINER_PLATFORM_USER_PORTAL, instance, getPlan(instance));
         }
         catch(Exception exception) {
-            logger.error("### Failed to create container-platform user portal service instance... rollback will be execute.");
-            // 네임스페이스 삭제
-            containerPlatformService.deleteNamespace(instance.getCaasNamespace());
-            // instance DB 데이터 삭제
-            instanceRepository.delete(instance);
-            // 브로커를 통해 신규 생성된 keycloak 계정일 경우 삭제
-            if(keycloakUserStatus.getResultCode().equals(CommonStatusCode.CREATED.getCode())) {
-                keycloakAdminClientService.deleteKeycloakUser(keycloakUserStatus.getUserId());
+            logger.error("### Failed to create container-platform user portal service instance : {}", CommonUtils.loggerReplace(exception));
+            organizationReservationService.release(instance.getOrganizationGuid(), instance.getServiceInstanceId());
+            if(exception instanceof SagaStepFailedException && ProvisioningSteps.STEP_KEYCLOAK_USER.equals(((SagaStepFailedException) exception).getStepName())) {
+                throw new ServiceBrokerException("Failed to register Single Sign-On user account.");
             }
-
             throw new ServiceBrokerException("Failed to create user portal service instance ..Please check your broker DB or common DB!");
         }
 
@@ -348,68 +441,17 @@ public class InstanceServiceImpl implements ServiceInstanceService {
             throw new ServiceBrokerException("The service Instance already exists in '"+ propertyService.getCpBrokerAdminOrg().toLowerCase()+ "' organization.");
         }
 
-        KeycloakUserStatus keycloakUserStatus = new KeycloakUserStatus();
-
+        // 3. Uaa ID -> Keycloak Identity Provider Mapping 계정 생성 (이미 keycloak 내 계정이 존재한다면 cluster-admin-group 맵핑 진행)
+        // 4. Instance DB 데이터 추가
+        // 5. cp admin 생성
         try {
-            // 3. Uaa ID -> Keycloak Identity Provider Mapping 계정 생성
-             keycloakUserStatus = keycloakAdminClientService.createKeycloakUser(instance.getUserId(), Constants.AUTH_CLUSTER_ADMIN);
-            if(!Constants.KEYCLOAK_CREATE_UESR_STATUS_CODE.contains(keycloakUserStatus.getResultCode())) {
-                logger.info("An exception occurred while creating keycloak user");
-                throw new ServiceBrokerException("Failed to register Single Sign-On user account.");
-            }
-
-            //4. 이미 keycloak 내 계정이 존재한다면 cluster-admin-group 맵핑 진행
-            if(keycloakUserStatus.getResultCode().equals(CommonStatusCode.CONFLICT.getCode())) {
-                String keycloakGroupStatus = keycloakAdminClientService.manageClusterAdminGroupToUser(instance.getUserId(), Constants.TYPE_JOIN);
-                if(keycloakGroupStatus.equals(Constants.RESULT_STATUS_FAIL)) {
-                    throw new ServiceBrokerException("Failed to register Single Sign-On user account.");
-                }
-            }
-
-            // 5. Instance DB 데이터 설정
-            setInstanceByCpAdminPortal(instance);
-            instanceRepository.save(instance);
-
-            // 6. cp admin 생성
-            String createAdminStatus = userService.createCpAdmin(instance);
-            if(!createAdminStatus.equalsIgnoreCase(Constants.RESULT_STATUS_SUCCESS)) {
-                logger.info("An exception occurred while creating admin in container-platform");
-                throw new ServiceBrokerException("Failed to register container-platform admin account. Please check common DB!");
-            }
-
+            provisioningSagaService.run(Constants.CONTAINER_PLATFORM_ADMIN_PORTAL, instance, null);
         }
         catch(Exception exception) {
-            logger.error("### Failed to create container platform admin portal service instance... rollback will be execute.");
-            // keycloak instance db data
-            instanceRepository.delete(instance);
-
-            // 브로커를 통해 신규 생성된 keycloak 계정일 경우 삭제
-            if(keycloakUserStatus.getResultCode().equals(CommonStatusCode.CREATED.getCode())) {
-                keycloakAdminClientService.deleteKeycloakUser(keycloakUserStatus.getUserId());
-            }
-
-            // 이미 존재한 계정일 경우 cluster-admin-group 맵핑 해제
-            if(keycloakUserStatus.getResultCode().equals(CommonStatusCode.CONFLICT.getCode())) {
-               keycloakAdminClientService.manageClusterAdminGroupToUser(instance.getUserId(), Constants.TYPE_LEAVE);
-            }
-
+            logger.error("### Failed to create container platform admin portal service instance : {}", CommonUtils.loggerReplace(exception));
             throw new ServiceBrokerException("Failed to create admin portal service instance ..Please check your broker DB or common DB!");
         }
 
     }
 
-    /**
-     * 관리자 포탈 서비스 인스턴스 데이터 설정
-     *
-     * @param instance JpaServiceInstance
-     * @return
-     */
-    private void setInstanceByCpAdminPortal(JpaServiceInstance instance) {
-        instance.withDashboardUrl(propertyService.getAdminDashboardUrl());
-        instance.setDashboardType(Constants.CONTAINER_PLATFORM_ADMIN_PORTAL);
-        instance.setCaasAccountTokenName(Constants.NULL_REPLACE_TEXT);
-        instance.setCaasAccountName(Constants.NULL_REPLACE_TEXT);
-        instance.setCaasNamespace(Constants.NULL_REPLACE_TEXT);
-    }
-
 }
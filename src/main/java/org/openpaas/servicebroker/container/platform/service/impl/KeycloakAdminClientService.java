@@ -2,33 +2,43 @@ package org.openpaas.servicebroker.container.platform.service.impl;
 
 
 
-import org.apache.http.ssl.TrustStrategy;
+import org.keycloak.admin.client.CreatedResponseUtil;
 import org.keycloak.admin.client.Keycloak;
 
 import org.keycloak.representations.idm.FederatedIdentityRepresentation;
 import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.PartialImportRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
+import org.openpaas.servicebroker.container.platform.common.CircuitBreaker;
 import org.openpaas.servicebroker.container.platform.common.CommonStatusCode;
 import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.common.TtlCache;
 import org.openpaas.servicebroker.container.platform.model.Constants;
 import org.openpaas.servicebroker.container.platform.model.KeycloakUserStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.net.ssl.SSLContext;
+import javax.annotation.PostConstruct;
+import javax.ws.rs.NotFoundException;
 import javax.ws.rs.core.Response;
-import java.security.KeyManagementException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Keycloak Admin Client에 관한 서비스 클래스
+ * Keycloak 요청은 keycloakCircuitBreaker 를 거치므로 Keycloak 이 느려지거나 장애가 나면 바로 실패한다.
+ * 생성하거나 조회한 사용자는 keycloak.admin.cp.user-cache-ttl 동안 보관하여 같은 프로비저닝의 이후 단계(UserService 등)에서 다시 조회하지 않는다.
  * @author kjhoon
  * @since 20210804
  * @version 20210804
@@ -36,24 +46,6 @@ import java.util.stream.Collectors;
 @Service
 public class KeycloakAdminClientService {
 
-    @Value("${keycloak.admin.client.grantType}")
-    private String grantType;
-
-    @Value("${keycloak.admin.client.username}")
-    private String username;
-
-    @Value("${keycloak.admin.client.password}")
-    private String password;
-
-    @Value("${keycloak.admin.client.serverUrl}")
-    private String serverUrl;
-
-    @Value("${keycloak.admin.client.realm}")
-    private String realm;
-
-    @Value("${keycloak.admin.client.clientId}")
-    private String clientId;
-
     @Value("${keycloak.admin.cp.realm}")
     private String cpRealm;
 
@@ -63,56 +55,92 @@ public class KeycloakAdminClientService {
     @Value("${keycloak.admin.cp.clusterAdminGroup}")
     private String clusterAdminGroup;
 
+    @Autowired
+    @Qualifier("keycloakCircuitBreaker")
+    private CircuitBreaker keycloakCircuitBreaker;
+
+    @Autowired
+    private Keycloak keycloak;
+
+    @Value("${keycloak.admin.cp.group-cache-ttl:600000}")
+    private long groupCacheTtl;
+
+    @Value("${keycloak.admin.cp.user-cache-ttl:60000}")
+    private long userCacheTtl;
+
+    @Value("${keycloak.admin.cp.import.chunk-size:50}")
+    private int importChunkSize;
+
+    @Value("${keycloak.admin.cp.import.retention:3600000}")
+    private long importRetention;
+
+    @Autowired
+    @Qualifier("keycloakTaskExecutor")
+    private Executor keycloakTaskExecutor;
+
+    // 그룹 경로 -> 그룹 id
+    private TtlCache<String, String> groupIdCache;
+
+    // username -> 사용자 (id, username)
+    private TtlCache<String, UserRepresentation> userCache;
+
+    // 일괄 가져오기(importKeycloakUsers)로 미리 생성된 username -> 결과
+    private TtlCache<String, KeycloakUserStatus> importedUsers;
+
+    @PostConstruct
+    public void init() {
+        groupIdCache = new TtlCache<>(groupCacheTtl);
+        userCache = new TtlCache<>(userCacheTtl);
+        importedUsers = new TtlCache<>(importRetention);
+    }
+
 
     private static final Logger logger = LoggerFactory.getLogger(KeycloakAdminClientService.class);
 
-    // build keycloak instance
-     public Keycloak getKeycloakInstance() throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
-         TrustStrategy acceptingTrustStrategy = (X509Certificate[] chain, String authType) -> true;
-         SSLContext sslContext = org.apache.http.ssl.SSLContexts.custom().loadTrustMaterial(null, acceptingTrustStrategy).build();
-         return Keycloak.getInstance(serverUrl, realm, username, password, clientId, sslContext);
+    // 공유 keycloak instance (KeycloakConfig 참고, 요청마다 새로 만들지 않는다)
+    public Keycloak getKeycloakInstance() {
+        return keycloak;
     }
 
 
     /**
      * 사용자의 UAA Id를 전달받아 Keycloak 사용자 계정을 생성한다.
      * FederatedIdentity를 통해 UAA 계정과 Keycloak 계정을 연계한다.
+     * 신규 생성된 계정의 id 는 생성 응답의 Location header 에서 가져온다. (생성 후 다시 검색하지 않음)
+     * importKeycloakUsers 로 미리 가져온 계정이면 요청하지 않고 이미 존재하는 계정(409)으로 처리한다.
      *
      */
     public KeycloakUserStatus createKeycloakUser(String username, String userType){
 
+        KeycloakUserStatus imported = importedUsers.getIfPresent(normalize(username));
+        if(imported != null) {
+            logger.info("Keycloak User Already Imported : {}", CommonUtils.loggerReplace(username));
+            return new KeycloakUserStatus(CommonStatusCode.CONFLICT.getCode(), imported.getUserId());
+        }
+
         KeycloakUserStatus keycloakUserStatus = new KeycloakUserStatus();
-        Response response = null;
+        int status;
 
         try {
-            UserRepresentation user = new UserRepresentation();
-            user.setUsername(username);
-            user.setEnabled(true);
-
-            // social login provider 정보 셋팅
-            FederatedIdentityRepresentation federatedIdentityRepresentation = new FederatedIdentityRepresentation();
-            federatedIdentityRepresentation.setIdentityProvider(IdentityProviderId);
-            federatedIdentityRepresentation.setUserId(username);
-            federatedIdentityRepresentation.setUserName(username);
-
-            List<FederatedIdentityRepresentation> federatedIdentityRepresentationsList= new ArrayList<>();
-            federatedIdentityRepresentationsList.add(federatedIdentityRepresentation);
-            user.setFederatedIdentities(federatedIdentityRepresentationsList);
-
-
-            // 클러스터 관리자의 경우 클러스터 관리자 그룹 셋팅
-            if(userType.equals(Constants.AUTH_CLUSTER_ADMIN)) {
-                List<String> groups = new ArrayList<>();
-                groups.add(clusterAdminGroup);
-                user.setGroups(groups);
-            }
-
+            UserRepresentation user = newUserRepresentation(username, userType);
 
             // 사용자 생성
             Keycloak keycloak = getKeycloakInstance();
-            response = keycloak.realm(cpRealm).users().create(user);
-            logger.info("Keycloak User Create Response Status : [{}] {}", CommonUtils.loggerReplace(response.getStatus()),
-                    CommonUtils.loggerReplace(response.getStatusInfo().getReasonPhrase()));
+            // 공유 connection pool 을 사용하므로 응답은 반드시 닫는다.
+            try (Response response = keycloakCircuitBreaker.execute(() -> keycloak.realm(cpRealm).users().create(user), KeycloakAdminClientService::isServerError)) {
+                status = response.getStatus();
+                logger.info("Keycloak User Create Response Status : [{}] {}", CommonUtils.loggerReplace(status),
+                        CommonUtils.loggerReplace(response.getStatusInfo().getReasonPhrase()));
+
+                // 신규 생성된 계정인 경우 keycloak user id 셋팅
+                if(String.valueOf(status).equals(CommonStatusCode.CREATED.getCode())) {
+                    // keycloak 이 저장한 값과 같도록 소문자 username 으로 보관한다. (cp-api 에 사용자 id 로 전달됨)
+                    user.setId(CreatedResponseUtil.getCreatedId(response));
+                    user.setUsername(normalize(username));
+                    userCache.put(user.getUsername(), user);
+                    keycloakUserStatus.setUserId(user.getId());
+                }
+            }
         }
         catch (Exception e) {
             logger.info("### EXCEPTION OCCURRED DURING KEYCLOAK USER CREATE");
@@ -122,14 +150,87 @@ public class KeycloakAdminClientService {
         }
 
 
-        keycloakUserStatus.setResultCode(String.valueOf(response.getStatus()));
+        keycloakUserStatus.setResultCode(String.valueOf(status));
+
+        return keycloakUserStatus;
+    }
+
+
+
+    /**
+     * 여러 사용자의 UAA Id를 전달받아 Keycloak 사용자 계정을 일괄 생성한다. (조직 단위 온보딩)
+     * keycloak.admin.cp.import.chunk-size 명씩 나누어 partialImport 로 요청하며, 동시에 보내는 요청 수는 keycloakTaskExecutor 의 크기로 제한된다.
+     * 이미 존재하는 계정은 변경하지 않는다. (ifResourceExists=SKIP)
+     * 결과는 createKeycloakUser 와 같은 형태로 사용자별로 반환한다. (신규 생성 201, 이미 존재 409, 실패 FAIL)
+     * 성공한 사용자는 keycloak.admin.cp.import.retention 동안 기억하여 이후 서비스 생성시 Keycloak 계정 생성 요청을 생략한다.
+     *
+     * @param usernames UAA 사용자 Id 목록
+     * @param userType 사용자 타입 (Constants.AUTH_NAMESPACE_ADMIN / AUTH_CLUSTER_ADMIN)
+     * @return username 별 결과 (입력 순서)
+     */
+    public Map<String, KeycloakUserStatus> importKeycloakUsers(List<String> usernames, String userType) {
 
-        // 신규 생성된 계정인 경우 keycloak user id 셋팅
-        if(String.valueOf(response.getStatus()).equals(CommonStatusCode.CREATED.getCode())) {
-            keycloakUserStatus.setUserId(getKeycloakUserDetails(username).getId());
+        List<String> distinctUsernames = new ArrayList<>(new LinkedHashSet<>(usernames));
+        int chunkSize = Math.max(1, importChunkSize);
+
+        List<CompletableFuture<Map<String, KeycloakUserStatus>>> futures = new ArrayList<>();
+        for(int from = 0; from < distinctUsernames.size(); from += chunkSize) {
+            List<String> chunk = distinctUsernames.subList(from, Math.min(distinctUsernames.size(), from + chunkSize));
+            futures.add(CompletableFuture.supplyAsync(() -> importKeycloakUserChunk(chunk, userType), keycloakTaskExecutor));
         }
 
-        return keycloakUserStatus;
+        Map<String, KeycloakUserStatus> results = new LinkedHashMap<>();
+        for(CompletableFuture<Map<String, KeycloakUserStatus>> future : futures) {
+            results.putAll(future.join());
+        }
+
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, KeycloakUserStatus> importKeycloakUserChunk(List<String> usernames, String userType) {
+
+        // keycloak 은 username 을 소문자로 저장하므로 결과의 resourceName 도 소문자로 비교한다.
+        Map<String, String> requested = new HashMap<>();
+        Map<String, KeycloakUserStatus> results = new LinkedHashMap<>();
+        List<UserRepresentation> users = new ArrayList<>();
+        for(String username : usernames) {
+            requested.put(normalize(username), username);
+            results.put(username, new KeycloakUserStatus(Constants.RESULT_STATUS_FAIL, null));
+            users.add(newUserRepresentation(username, userType));
+        }
+
+        PartialImportRepresentation partialImport = new PartialImportRepresentation();
+        partialImport.setIfResourceExists(PartialImportRepresentation.Policy.SKIP.name());
+        partialImport.setUsers(users);
+
+        try {
+            Keycloak keycloak = getKeycloakInstance();
+            try (Response response = keycloakCircuitBreaker.execute(() -> keycloak.realm(cpRealm).partialImport(partialImport), KeycloakAdminClientService::isServerError)) {
+                logger.info("Keycloak User Import Response Status : [{}] {} users", CommonUtils.loggerReplace(response.getStatus()), usernames.size());
+                if(response.getStatus() != Response.Status.OK.getStatusCode()) {
+                    return results;
+                }
+
+                Map<String, Object> body = response.readEntity(Map.class);
+                for(Map<String, Object> result : (List<Map<String, Object>>) body.get("results")) {
+                    String username = requested.get(normalize(String.valueOf(result.get("resourceName"))));
+                    if(!"USER".equals(result.get("resourceType")) || username == null) {
+                        continue;
+                    }
+
+                    String code = "SKIPPED".equals(result.get("action")) ? CommonStatusCode.CONFLICT.getCode() : CommonStatusCode.CREATED.getCode();
+                    KeycloakUserStatus keycloakUserStatus = new KeycloakUserStatus(code, (String) result.get("id"));
+                    results.put(username, keycloakUserStatus);
+                    importedUsers.put(normalize(username), keycloakUserStatus);
+                }
+            }
+        }
+        catch (Exception e) {
+            logger.info("### EXCEPTION OCCURRED DURING KEYCLOAK USER IMPORT : {}", CommonUtils.loggerReplace(e.getMessage()));
+        }
+
+        return results;
     }
 
 
@@ -140,70 +241,72 @@ public class KeycloakAdminClientService {
      */
     public String deleteKeycloakUser(String userId) {
 
-        Response response = null;
+        int status;
+        userCache.invalidateIf(user -> userId.equals(user.getId()));
+        importedUsers.invalidateIf(imported -> userId.equals(imported.getUserId()));
 
         try {
             Keycloak keycloak = getKeycloakInstance();
-            response = keycloak.realm(cpRealm).users().delete(userId);
-            logger.info("Keycloak User Delete Response Status : [{}] {}", CommonUtils.loggerReplace(response.getStatus()),
-                    CommonUtils.loggerReplace(response.getStatusInfo().getReasonPhrase()));
+            try (Response response = keycloakCircuitBreaker.execute(() -> keycloak.realm(cpRealm).users().delete(userId), KeycloakAdminClientService::isServerError)) {
+                status = response.getStatus();
+                logger.info("Keycloak User Delete Response Status : [{}] {}", CommonUtils.loggerReplace(status),
+                        CommonUtils.loggerReplace(response.getStatusInfo().getReasonPhrase()));
+            }
         }
         catch (Exception e) {
             logger.info("### EXCEPTION OCCURRED DURING KEYCLOAK USER DELETE");
             return Constants.RESULT_STATUS_FAIL;
         }
 
-        return String.valueOf(response.getStatus());
+        return String.valueOf(status);
     }
 
 
     /**
      * Keycloak 사용자 username을 통해 사용자 상세 정보를 조회한다.
+     * 최근에 생성하거나 조회한 사용자는 보관한 값을 반환한다.
      *
      */
     public UserRepresentation getKeycloakUserDetails(String username) {
 
-        UserRepresentation userRepresentation = new UserRepresentation();
+        UserRepresentation userRepresentation = null;
 
         try {
-            Keycloak keycloak = getKeycloakInstance();
-            List<UserRepresentation> users = keycloak.realm(cpRealm).users().search(username, true);
-            userRepresentation = users.get(0);
+            userRepresentation = userCache.get(normalize(username), this::searchKeycloakUser);
         }
         catch(Exception e) {
             logger.info("### EXCEPTION OCCURRED DURING GET KEYCLOAK USER INFO");
         }
 
-        return userRepresentation;
+        return (userRepresentation == null) ? new UserRepresentation() : userRepresentation;
+    }
+
+    private UserRepresentation searchKeycloakUser(String username) {
+        Keycloak keycloak = getKeycloakInstance();
+        List<UserRepresentation> users = keycloakCircuitBreaker.execute(() -> keycloak.realm(cpRealm).users().search(username, true));
+        return users.isEmpty() ? null : users.get(0);
     }
 
 
     /**
      * Keycloak 내 사용자와 그룹의 맵핑 및 해제를 관리한다.
+     * 클러스터 관리자 그룹 id 는 그룹 경로로 한번만 조회(getGroupByPath)하여 keycloak.admin.cp.group-cache-ttl 동안 보관한다.
+     * join/leave 가 404 이면 그룹이 다시 만들어졌을 수 있으므로 보관한 id 를 버리고 다시 조회해 한번 더 요청한다.
      *
      */
     public String manageClusterAdminGroupToUser(String username, String type) {
 
         try {
-            Keycloak keycloak = getKeycloakInstance();
-
             // get user
             UserRepresentation ur = getKeycloakUserDetails(username);
 
-            // find cluster admin group id
-            List<GroupRepresentation> groupRepresentationList = keycloak.realm(cpRealm).groups().groups();
-            List<GroupRepresentation> findCaGroup = groupRepresentationList.stream().filter(x -> x.getName().matches(clusterAdminGroup)).collect(Collectors.toList());
-            GroupRepresentation gr = findCaGroup.get(0);
-
-            if(type.equals(Constants.TYPE_JOIN)) {
-                logger.info("### JOIN THE CLUSTER ADMIN GROUP TO USER");
-                keycloak.realm(cpRealm).users().get(ur.getId()).joinGroup(gr.getId());
-            }
-            else {
-                logger.info("### LEAVE THE CLUSTER ADMIN GROUP TO USER");
-                keycloak.realm(cpRealm).users().get(ur.getId()).leaveGroup(gr.getId());
+            try {
+                joinOrLeaveClusterAdminGroup(ur.getId(), type);
+            } catch (NotFoundException e) {
+                logger.info("### CLUSTER ADMIN GROUP NOT FOUND, RESOLVE GROUP ID AGAIN");
+                groupIdCache.invalidate(clusterAdminGroupPath());
+                joinOrLeaveClusterAdminGroup(ur.getId(), type);
             }
-
         }
         catch(Exception e) {
             logger.info("### EXCEPTION OCCURRED DURING ADD CLUSTER ADMIN GROUP TO USER");
@@ -213,7 +316,81 @@ public class KeycloakAdminClientService {
         return Constants.RESULT_STATUS_SUCCESS;
     }
 
+    private void joinOrLeaveClusterAdminGroup(String userId, String type) {
+        Keycloak keycloak = getKeycloakInstance();
+        String groupId = getClusterAdminGroupId();
 
+        if(type.equals(Constants.TYPE_JOIN)) {
+            logger.info("### JOIN THE CLUSTER ADMIN GROUP TO USER");
+            keycloakCircuitBreaker.execute(() -> {
+                keycloak.realm(cpRealm).users().get(userId).joinGroup(groupId);
+                return null;
+            });
+        }
+        else {
+            logger.info("### LEAVE THE CLUSTER ADMIN GROUP TO USER");
+            keycloakCircuitBreaker.execute(() -> {
+                keycloak.realm(cpRealm).users().get(userId).leaveGroup(groupId);
+                return null;
+            });
+        }
+    }
 
+    /**
+     * 클러스터 관리자 그룹 id 를 가져온다. (전체 그룹 목록을 받지 않고 경로로 하나만 조회)
+     */
+    public String getClusterAdminGroupId() {
+        return groupIdCache.get(clusterAdminGroupPath(), path -> {
+            GroupRepresentation group = keycloakCircuitBreaker.execute(() -> getKeycloakInstance().realm(cpRealm).getGroupByPath(path));
+            return group.getId();
+        });
+    }
 
+    /**
+     * 최상위 그룹은 그룹 이름을, 하위 그룹은 /부모/자식 형태의 경로를 설정한다.
+     */
+    private String clusterAdminGroupPath() {
+        return clusterAdminGroup.startsWith("/") ? clusterAdminGroup : "/" + clusterAdminGroup;
+    }
+
+
+    /**
+     * 생성할 사용자 정보. FederatedIdentity 로 UAA 계정과 연계하고, 클러스터 관리자는 클러스터 관리자 그룹에 포함한다.
+     */
+    /**
+     * keycloak 은 username 을 소문자로 저장하고 대소문자 구분 없이 찾으므로 보관하는 값의 key 도 소문자로 맞춘다.
+     */
+    private static String normalize(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private UserRepresentation newUserRepresentation(String username, String userType) {
+        UserRepresentation user = new UserRepresentation();
+        user.setUsername(username);
+        user.setEnabled(true);
+
+        // social login provider 정보 셋팅
+        FederatedIdentityRepresentation federatedIdentityRepresentation = new FederatedIdentityRepresentation();
+        federatedIdentityRepresentation.setIdentityProvider(IdentityProviderId);
+        federatedIdentityRepresentation.setUserId(username);
+        federatedIdentityRepresentation.setUserName(username);
+
+        List<FederatedIdentityRepresentation> federatedIdentityRepresentationsList= new ArrayList<>();
+        federatedIdentityRepresentationsList.add(federatedIdentityRepresentation);
+        user.setFederatedIdentities(federatedIdentityRepresentationsList);
+
+
+        // 클러스터 관리자의 경우 클러스터 관리자 그룹 셋팅
+        if(userType.equals(Constants.AUTH_CLUSTER_ADMIN)) {
+            List<String> groups = new ArrayList<>();
+            groups.add(clusterAdminGroup);
+            user.setGroups(groups);
+        }
+
+        return user;
+    }
+
+    private static boolean isServerError(Response response) {
+        return response.getStatus() >= 500;
+    }
 }
@@ -0,0 +1,330 @@
+package org.openpaas.servicebroker.container.platform.service.impl;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.common.K8sManifest;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.service.PropertyService;
+import org.openpaas.servicebroker.container.platform.service.RestTemplateService;
+import org.openpaas.servicebroker.exception.ServiceBrokerException;
+import org.openpaas.servicebroker.model.Plan;
+import org.openpaas.servicebroker.model.ServiceDefinition;
+import org.openpaas.servicebroker.service.CatalogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 미리 생성해 둔 namespace(ResourceQuota, LimitRange, Role 적용 완료) pool 을 관리하는 서비스 클래스
+ * pool 상태는 namespace 의 label(cp-broker/pool = warming / available / claimed)로 관리하므로 broker 를 재시작해도 유지된다.
+ *
+ * - claim : available namespace 의 label 을 resourceVersion 과 함께 claimed 로 바꾼다. (동시에 가져가려 하면 한쪽만 성공하고 나머지는 409 Conflict)
+ *           이후 ResourceQuota 를 요청한 plan 으로 변경한다.
+ * - refill : available 수가 low-watermark 미만이면 high-watermark 까지 채운다. warming-timeout 이 지난 warming namespace(생성 중 중단)는 삭제한다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Service
+public class NamespacePool implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(NamespacePool.class);
+
+    public static final String POOL_LABEL = "cp-broker/pool";
+    public static final String SERVICE_INSTANCE_LABEL = "cp-broker/service-instance-id";
+
+    private static final String WARMING = "warming";
+    private static final String AVAILABLE = "available";
+    private static final String CLAIMED = "claimed";
+
+    private static final String NAMESPACES_PATH = "/api/v1/namespaces";
+
+    @Autowired
+    private RestTemplateService restTemplateService;
+
+    @Autowired
+    private PropertyService propertyService;
+
+    @Autowired
+    private ContainerPlatformService containerPlatformService;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    @Qualifier("namespacePoolTaskExecutor")
+    private Executor namespacePoolTaskExecutor;
+
+    @Value("${k8s.namespace-pool.enabled:false}")
+    private boolean enabled;
+
+    @Value("${k8s.namespace-pool.low-watermark:2}")
+    private int lowWatermark;
+
+    @Value("${k8s.namespace-pool.high-watermark:5}")
+    private int highWatermark;
+
+    @Value("${k8s.namespace-pool.warming-timeout:600000}")
+    private long warmingTimeout;
+
+    private volatile int available = -1;
+
+
+    /**
+     * available namespace 하나를 서비스 인스턴스에 할당하고 ResourceQuota 를 plan 으로 변경한다.
+     * pool 을 사용하지 않거나 비어 있으면 false 를 반환하며, 이 경우 호출하는 쪽에서 namespace 를 새로 생성한다.
+     *
+     * @param instance     할당 받을 서비스 인스턴스 (성공하면 caasNamespace 등을 설정한다)
+     * @param plan         서비스 인스턴스의 plan
+     * @param stepListener 단계 기록용 listener
+     * @return 할당 여부
+     */
+    public boolean claim(JpaServiceInstance instance, Plan plan, ContainerPlatformService.StepListener stepListener) {
+        if (!enabled) {
+            return false;
+        }
+
+        stepListener.started("pool-claim");
+        String namespace = null;
+        try {
+            List<PooledNamespace> candidates = list(POOL_LABEL + "=" + AVAILABLE);
+            // 여러 broker 가 같은 namespace 부터 시도하지 않도록 섞는다.
+            Collections.shuffle(candidates);
+            for (PooledNamespace candidate : candidates) {
+                if (label(candidate.name, candidate.resourceVersion, CLAIMED, instance.getServiceInstanceId())) {
+                    namespace = candidate.name;
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.info("### EXCEPTION OCCURRED DURING CLAIM POOLED NAMESPACE : {}", CommonUtils.loggerReplace(e));
+        }
+        stepListener.finished("pool-claim", namespace != null);
+
+        if (namespace == null) {
+            logger.info("No pooled namespace available for service instance {}", CommonUtils.loggerReplace(instance.getServiceInstanceId()));
+            return false;
+        }
+        available = Math.max(-1, available - 1);
+
+        stepListener.started("resourcequota");
+        try {
+            containerPlatformService.changeResourceQuota(namespace, plan);
+            stepListener.finished("resourcequota", true);
+        } catch (RuntimeException e) {
+            stepListener.finished("resourcequota", false);
+            logger.info("### EXCEPTION OCCURRED DURING CHANGE QUOTA OF POOLED NAMESPACE [{}] : {}", CommonUtils.loggerReplace(namespace), CommonUtils.loggerReplace(e));
+            deleteQuietly(namespace);
+            throw e;
+        }
+
+        logger.info("Claimed pooled namespace {} for service instance {}", CommonUtils.loggerReplace(namespace), CommonUtils.loggerReplace(instance.getServiceInstanceId()));
+        instance.setCaasNamespace(namespace);
+        instance.setCaasAccountName(instance.getUserId());
+        instance.setCaasAccountTokenName(instance.getUserId());
+        return true;
+    }
+
+    /**
+     * 서비스 인스턴스에 할당된 pool namespace 이름 (없으면 null)
+     */
+    public String findClaimed(String serviceInstanceId) {
+        if (!enabled) {
+            return null;
+        }
+        List<PooledNamespace> claimed = list(POOL_LABEL + "=" + CLAIMED + "," + SERVICE_INSTANCE_LABEL + "=" + serviceInstanceId);
+        return claimed.isEmpty() ? null : claimed.get(0).name;
+    }
+
+    /**
+     * available namespace 가 low-watermark 미만이면 high-watermark 까지 채운다.
+     */
+    @Scheduled(initialDelayString = "${k8s.namespace-pool.refill-interval:30000}", fixedDelayString = "${k8s.namespace-pool.refill-interval:30000}")
+    public void refill() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            available = list(POOL_LABEL + "=" + AVAILABLE).size();
+
+            long now = System.currentTimeMillis();
+            int warming = 0;
+            for (PooledNamespace namespace : list(POOL_LABEL + "=" + WARMING)) {
+                if (now - namespace.createdAt > warmingTimeout) {
+                    logger.info("Delete stale warming namespace {}", CommonUtils.loggerReplace(namespace.name));
+                    deleteQuietly(namespace.name);
+                } else {
+                    warming++;
+                }
+            }
+
+            if (available >= lowWatermark) {
+                return;
+            }
+            int shortage = highWatermark - available - warming;
+            if (shortage <= 0) {
+                return;
+            }
+
+            Plan defaultPlan = getDefaultPlan();
+            List<CompletableFuture<Boolean>> creations = new ArrayList<>();
+            for (int i = 0; i < shortage; i++) {
+                creations.add(CompletableFuture.supplyAsync(() -> warmUp(defaultPlan), namespacePoolTaskExecutor));
+            }
+            int created = 0;
+            for (CompletableFuture<Boolean> creation : creations) {
+                if (creation.join()) {
+                    created++;
+                }
+            }
+            available += created;
+            logger.info("Namespace pool refilled : {} created, {} available", created, available);
+        } catch (Exception e) {
+            logger.info("### EXCEPTION OCCURRED DURING REFILL NAMESPACE POOL : {}", CommonUtils.loggerReplace(e));
+        }
+    }
+
+    /**
+     * warming label 로 namespace 를 만들고 기본 plan 의 ResourceQuota, LimitRange, Role 을 적용한 뒤 available 로 바꾼다.
+     */
+    private boolean warmUp(Plan defaultPlan) {
+        String namespace = "paas-pool-" + UUID.randomUUID().toString().replace("-", "").substring(0, 12) + "-caas";
+        try {
+            Map<String, String> labels = new HashMap<>();
+            labels.put(POOL_LABEL, WARMING);
+            restTemplateService.sendJson(propertyService.getContainerPlatformUrl() + NAMESPACES_PATH, K8sManifest.namespace(namespace, labels), HttpMethod.POST, String.class);
+
+            containerPlatformService.createResourceQuota(namespace, defaultPlan);
+            containerPlatformService.createLimitRange(namespace);
+            containerPlatformService.createCpInitRole(namespace);
+            containerPlatformService.createCpAdminRole(namespace);
+
+            label(namespace, null, AVAILABLE, null);
+            return true;
+        } catch (Exception e) {
+            logger.info("### EXCEPTION OCCURRED DURING WARM UP NAMESPACE [{}] : {}", CommonUtils.loggerReplace(namespace), CommonUtils.loggerReplace(e));
+            deleteQuietly(namespace);
+            return false;
+        }
+    }
+
+    /**
+     * pool label 을 바꾼다. resourceVersion 이 있으면 그 사이 변경된 경우(다른 broker 가 먼저 가져감) false 를 반환한다.
+     * 응답을 받지 못한 PATCH 를 재요청하면 앞선 자신의 변경 때문에 409 Conflict 를 받으므로, namespace 를 다시 읽어 이미 바뀌어 있으면 true 를 반환한다.
+     */
+    private boolean label(String namespace, String resourceVersion, String state, String serviceInstanceId) {
+        Map<String, String> labels = new HashMap<>();
+        labels.put(POOL_LABEL, state);
+        labels.put(SERVICE_INSTANCE_LABEL, serviceInstanceId);
+        try {
+            restTemplateService.sendMergePatch(propertyService.getContainerPlatformUrl() + NAMESPACES_PATH + "/" + namespace,
+                    K8sManifest.labelsPatch(resourceVersion, labels), String.class);
+            return true;
+        } catch (HttpClientErrorException.Conflict e) {
+            Map<String, String> current = labels(namespace);
+            return state.equals(current.get(POOL_LABEL)) && serviceInstanceId != null && serviceInstanceId.equals(current.get(SERVICE_INSTANCE_LABEL));
+        } catch (HttpClientErrorException.NotFound e) {
+            return false;
+        }
+    }
+
+    private Map<String, String> labels(String namespace) {
+        String body = restTemplateService.send(propertyService.getContainerPlatformUrl() + NAMESPACES_PATH + "/" + namespace, HttpMethod.GET, String.class);
+
+        Map<String, String> labels = new HashMap<>();
+        if (body == null) {
+            return labels;
+        }
+        JsonObject metadata = new JsonParser().parse(body).getAsJsonObject().getAsJsonObject("metadata");
+        if (metadata != null && metadata.has("labels")) {
+            for (Map.Entry<String, JsonElement> label : metadata.getAsJsonObject("labels").entrySet()) {
+                labels.put(label.getKey(), label.getValue().getAsString());
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * 기본 ResourceQuota 로 사용할 plan (catalog 에서 weight 가 가장 낮은 plan)
+     */
+    private Plan getDefaultPlan() throws ServiceBrokerException {
+        List<Plan> plans = new ArrayList<>();
+        for (ServiceDefinition serviceDefinition : catalogService.getCatalog().getServiceDefinitions()) {
+            plans.addAll(serviceDefinition.getPlans());
+        }
+        return plans.stream()
+                .min(Comparator.comparing(plan -> plan.getWeight() == null ? Integer.MAX_VALUE : plan.getWeight()))
+                .orElseThrow(() -> new ServiceBrokerException("Cannot find plan for namespace pool."));
+    }
+
+    private List<PooledNamespace> list(String labelSelector) {
+        String body = restTemplateService.send(propertyService.getContainerPlatformUrl() + NAMESPACES_PATH + "?labelSelector=" + labelSelector,
+                HttpMethod.GET, String.class);
+
+        List<PooledNamespace> namespaces = new ArrayList<>();
+        if (body == null) {
+            return namespaces;
+        }
+        for (JsonElement item : new JsonParser().parse(body).getAsJsonObject().getAsJsonArray("items")) {
+            JsonObject metadata = item.getAsJsonObject().getAsJsonObject("metadata");
+            JsonObject status = item.getAsJsonObject().getAsJsonObject("status");
+            // 삭제 중인 namespace 는 제외
+            if (status != null && status.has("phase") && "Terminating".equals(status.get("phase").getAsString())) {
+                continue;
+            }
+            namespaces.add(new PooledNamespace(metadata.get("name").getAsString(), metadata.get("resourceVersion").getAsString(),
+                    Instant.parse(metadata.get("creationTimestamp").getAsString()).toEpochMilli()));
+        }
+        return namespaces;
+    }
+
+    private void deleteQuietly(String namespace) {
+        try {
+            containerPlatformService.deleteNamespace(namespace);
+        } catch (Exception e) {
+            logger.info("### EXCEPTION OCCURRED DURING DELETE POOLED NAMESPACE [{}] : {}", CommonUtils.loggerReplace(namespace), CommonUtils.loggerReplace(e));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("k8s.namespace.pool.available", this, pool -> pool.available)
+                .description("Pre-provisioned namespaces ready to be claimed (-1 : unknown)")
+                .register(registry);
+    }
+
+    private static class PooledNamespace {
+        private final String name;
+        private final String resourceVersion;
+        private final long createdAt;
+
+        PooledNamespace(String name, String resourceVersion, long createdAt) {
+            this.name = name;
+            this.resourceVersion = resourceVersion;
+            this.createdAt = createdAt;
+        }
+    }
+}
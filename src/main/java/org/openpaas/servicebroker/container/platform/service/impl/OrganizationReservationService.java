@@ -0,0 +1,91 @@
+package org.openpaas.servicebroker.container.platform.service.impl;
+
+import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.model.JpaOrganizationReservation;
+import org.openpaas.servicebroker.container.platform.repo.JpaOrganizationReservationRepository;
+import org.openpaas.servicebroker.container.platform.repo.JpaServiceInstanceRepository;
+import org.openpaas.servicebroker.exception.ServiceBrokerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+/**
+ * 사용자 포탈 서비스 인스턴스 생성 전에 organization 을 예약하는 서비스 클래스
+ * 예약은 DB 의 primary key 로 보장하므로 여러 broker 가 같은 organization 에 동시에 생성하려 해도 하나만 성공한다.
+ * 생성 도중 broker 가 중단되어 남은 예약은 stale-after 가 지나고 서비스 인스턴스가 저장되지 않았으면 다른 요청이 넘겨 받는다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Service
+public class OrganizationReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrganizationReservationService.class);
+
+    @Autowired
+    private JpaOrganizationReservationRepository reservationRepository;
+
+    @Autowired
+    private JpaServiceInstanceRepository instanceRepository;
+
+    @Value("${provisioning.organization-reservation.stale-after:${provisioning.saga.recovery-after:900000}}")
+    private long staleAfter;
+
+
+    /**
+     * organization 을 서비스 인스턴스에 예약한다.
+     *
+     * @param organizationGuid  organization guid
+     * @param serviceInstanceId 서비스 인스턴스 id
+     * @throws ServiceBrokerException 다른 서비스 인스턴스가 예약한 경우
+     */
+    public void reserve(String organizationGuid, String serviceInstanceId) throws ServiceBrokerException {
+        // 조회와 insert 사이에 예약이 해제될 수 있으므로 한번 더 시도한다.
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                reservationRepository.insert(organizationGuid, serviceInstanceId, System.currentTimeMillis());
+                return;
+            } catch (DataIntegrityViolationException e) {
+                JpaOrganizationReservation reservation = reservationRepository.findById(organizationGuid).orElse(null);
+                if (reservation == null) {
+                    continue;
+                }
+                if (reservation.getServiceInstanceId().equals(serviceInstanceId) || takeOverStale(reservation, serviceInstanceId)) {
+                    return;
+                }
+                break;
+            }
+        }
+
+        logger.error("Organization is reserved by another service instance : OrganizationGuid : {}", CommonUtils.loggerReplace(organizationGuid));
+        throw new ServiceBrokerException("The service Instance already exists in your organization.");
+    }
+
+    /**
+     * 서비스 인스턴스의 예약을 해제한다. (생성 실패, 삭제)
+     */
+    public void release(String organizationGuid, String serviceInstanceId) {
+        if (organizationGuid == null) {
+            return;
+        }
+        try {
+            reservationRepository.release(organizationGuid, serviceInstanceId);
+        } catch (Exception e) {
+            logger.error("### EXCEPTION OCCURRED DURING RELEASE ORGANIZATION RESERVATION : {}", CommonUtils.loggerReplace(e));
+        }
+    }
+
+    private boolean takeOverStale(JpaOrganizationReservation reservation, String serviceInstanceId) {
+        if (System.currentTimeMillis() - reservation.getCreatedAt() < staleAfter
+                || instanceRepository.findByServiceInstanceId(reservation.getServiceInstanceId()) != null) {
+            return false;
+        }
+
+        logger.info("Take over stale organization reservation of service instance {}", CommonUtils.loggerReplace(reservation.getServiceInstanceId()));
+        return reservationRepository.takeOver(reservation.getOrganizationGuid(), reservation.getServiceInstanceId(), reservation.getCreatedAt(),
+                serviceInstanceId, System.currentTimeMillis()) == 1;
+    }
+}
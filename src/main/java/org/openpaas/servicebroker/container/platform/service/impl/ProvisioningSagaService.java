@@ -0,0 +1,380 @@
+package org.openpaas.servicebroker.container.platform.service.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.exception.SagaStepFailedException;
+import org.openpaas.servicebroker.container.platform.model.JpaProvisioningSaga;
+import org.openpaas.servicebroker.container.platform.model.JpaProvisioningSagaStep;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.repo.JpaProvisioningSagaRepository;
+import org.openpaas.servicebroker.container.platform.repo.JpaProvisioningSagaStepRepository;
+import org.openpaas.servicebroker.model.Plan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 서비스 인스턴스 생성 saga 를 실행하는 서비스 클래스
+ * 각 단계의 실행 전/후 상태를 provisioning_saga_step 테이블에 기록하고, 단계가 실패하면 이미 실행한 단계를 역순으로 보상(rollback)한다.
+ * 같은 stage 의 단계는 provisioningTaskExecutor 에서 동시에 실행한다.
+ *
+ * broker 가 saga 진행 중에 종료된 경우, 시작 후 주기적으로 끝나지 않은 saga 를 찾아 복구한다.
+ * - 모든 단계가 완료된 saga 는 완료로 기록한다.
+ * - 그 외의 saga 는 STARTED / DONE 단계를 보상한다. (원래 요청은 이미 실패로 응답되었으므로 이어서 실행하지 않는다)
+ *   보상이 모두 끝나면 사용자 포탈의 organization 예약을 해제한다.
+ * 복구 대상은 이전에 같은 owner(pod) 가 실행하던 saga 이거나 provisioning.saga.recovery-after 동안 갱신되지 않은 saga 이다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Service
+public class ProvisioningSagaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProvisioningSagaService.class);
+
+    private static final Gson GSON = new Gson();
+
+    private static final Type CONTEXT_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+
+    private final long startedAt = System.currentTimeMillis();
+
+    @Autowired
+    private JpaProvisioningSagaRepository sagaRepository;
+
+    @Autowired
+    private JpaProvisioningSagaStepRepository stepRepository;
+
+    @Autowired
+    private ProvisioningSteps provisioningSteps;
+
+    @Autowired
+    @Qualifier("provisioningTaskExecutor")
+    private Executor provisioningTaskExecutor;
+
+    @Value("${provisioning.saga.owner:${HOSTNAME:cp-service-broker}}")
+    private String owner;
+
+    @Value("${provisioning.saga.recovery-after:900000}")
+    private long recoveryAfter;
+
+
+    /**
+     * saga 단계. execute 와 compensate 는 여러 번 실행되어도 결과가 같아야 한다.
+     * execute 가 예외로 끝난 단계는 스스로 정리한 것으로 보고 보상하지 않는다. (실행 중 broker 가 종료된 STARTED 단계는 보상한다)
+     */
+    public interface SagaStep {
+
+        String getName();
+
+        void execute(SagaContext context) throws Exception;
+
+        void compensate(SagaContext context) throws Exception;
+
+        static SagaStep of(String name, SagaAction execute, SagaAction compensate) {
+            return new SagaStep() {
+                @Override
+                public String getName() {
+                    return name;
+                }
+
+                @Override
+                public void execute(SagaContext context) throws Exception {
+                    execute.apply(context);
+                }
+
+                @Override
+                public void compensate(SagaContext context) throws Exception {
+                    compensate.apply(context);
+                }
+            };
+        }
+    }
+
+    @FunctionalInterface
+    public interface SagaAction {
+        void apply(SagaContext context) throws Exception;
+    }
+
+    /**
+     * saga 단계 간에 공유하는 값. put 한 값은 단계가 끝날 때 저장되어 복구시 보상 처리에 사용된다.
+     * instance, plan 은 요청 처리 중에만 있으며 복구시에는 null 이다.
+     */
+    public static class SagaContext {
+
+        private final Map<String, String> values;
+        private final JpaServiceInstance instance;
+        private final Plan plan;
+        private final ContainerPlatformService.StepListener journal;
+
+        SagaContext(Map<String, String> values, JpaServiceInstance instance, Plan plan, ContainerPlatformService.StepListener journal) {
+            this.values = new ConcurrentHashMap<>(values);
+            this.instance = instance;
+            this.plan = plan;
+            this.journal = journal;
+        }
+
+        public String get(String key) {
+            return values.get(key);
+        }
+
+        public void put(String key, String value) {
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+
+        public JpaServiceInstance getInstance() {
+            return instance;
+        }
+
+        public Plan getPlan() {
+            return plan;
+        }
+
+        /**
+         * 단계 내부의 세부 단계(예: namespace 의 resourcequota) 기록용 listener. 이름은 "단계/세부 단계" 로 기록한다.
+         */
+        public ContainerPlatformService.StepListener subSteps(String stepName) {
+            return new ContainerPlatformService.StepListener() {
+                @Override
+                public void started(String step) {
+                    journal.started(stepName + "/" + step);
+                }
+
+                @Override
+                public void finished(String step, boolean success) {
+                    journal.finished(stepName + "/" + step, success);
+                }
+            };
+        }
+
+        Map<String, String> values() {
+            return values;
+        }
+    }
+
+
+    /**
+     * saga 를 실행한다. 단계가 실패하면 보상 처리 후 SagaStepFailedException 이 발생한다.
+     *
+     * @param sagaType  Constants.CONTAINER_PLATFORM_USER_PORTAL / CONTAINER_PLATFORM_ADMIN_PORTAL
+     * @param instance  생성할 서비스 인스턴스
+     * @param plan      서비스 인스턴스의 plan
+     */
+    public void run(String sagaType, JpaServiceInstance instance, Plan plan) {
+        List<List<SagaStep>> stages = provisioningSteps.stagesOf(sagaType);
+        JpaProvisioningSaga saga = new JpaProvisioningSaga(UUID.randomUUID().toString(), instance.getServiceInstanceId(), sagaType, owner, System.currentTimeMillis());
+        Map<String, JpaProvisioningSagaStep.Status> statuses = new ConcurrentHashMap<>();
+
+        SagaContext context = new SagaContext(provisioningSteps.initialValues(instance), instance, plan, journal(saga));
+        save(saga, context);
+        logger.info("Start provisioning saga [{}] for service instance : {}", CommonUtils.loggerReplace(saga.getSagaId()), CommonUtils.loggerReplace(instance.getServiceInstanceId()));
+
+        for (List<SagaStep> stage : stages) {
+            SagaStepFailedException failure = runStage(saga, stage, context, statuses);
+            if (failure != null) {
+                compensate(saga, stages, context, statuses);
+                throw failure;
+            }
+        }
+
+        // 저장에 실패해도 모든 단계가 DONE 이므로 복구시 완료로 기록된다.
+        saga.setState(JpaProvisioningSaga.State.COMPLETED);
+        saveQuietly(saga, context);
+    }
+
+    /**
+     * 끝나지 않은 saga 를 찾아 동시에 복구한다.
+     */
+    @Scheduled(initialDelayString = "${provisioning.saga.recovery-delay:10000}", fixedDelayString = "${provisioning.saga.recovery-interval:300000}")
+    public void recoverUnfinishedSagas() {
+        long now = System.currentTimeMillis();
+        List<CompletableFuture<Void>> recoveries = new ArrayList<>();
+
+        for (JpaProvisioningSaga saga : sagaRepository.findAllByStateIn(EnumSet.of(JpaProvisioningSaga.State.RUNNING,
+                JpaProvisioningSaga.State.COMPENSATING, JpaProvisioningSaga.State.COMPENSATION_FAILED))) {
+            boolean abandonedHere = owner.equals(saga.getOwner()) && saga.getUpdatedAt() < startedAt;
+            if (abandonedHere || now - saga.getUpdatedAt() > recoveryAfter) {
+                recoveries.add(CompletableFuture.runAsync(() -> recover(saga), provisioningTaskExecutor));
+            }
+        }
+
+        if (!recoveries.isEmpty()) {
+            CompletableFuture.allOf(recoveries.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+            logger.info("Recovered {} unfinished provisioning saga(s)", recoveries.size());
+        }
+    }
+
+    private void recover(JpaProvisioningSaga saga) {
+        List<List<SagaStep>> stages = provisioningSteps.stagesOf(saga.getSagaType());
+        Map<String, JpaProvisioningSagaStep.Status> statuses = new ConcurrentHashMap<>();
+        for (JpaProvisioningSagaStep step : stepRepository.findAllBySagaId(saga.getSagaId())) {
+            statuses.put(step.getStepName(), step.getStatus());
+        }
+
+        boolean allDone = stages.stream().flatMap(List::stream)
+                .allMatch(step -> statuses.get(step.getName()) == JpaProvisioningSagaStep.Status.DONE);
+        JpaProvisioningSaga.State next = (saga.getState() == JpaProvisioningSaga.State.RUNNING && allDone)
+                ? JpaProvisioningSaga.State.COMPLETED : JpaProvisioningSaga.State.COMPENSATING;
+
+        long now = System.currentTimeMillis();
+        if (sagaRepository.claim(saga.getSagaId(), saga.getState(), saga.getUpdatedAt(), next, owner, now) == 0) {
+            // 다른 broker 가 먼저 복구를 시작함
+            return;
+        }
+        saga.setState(next);
+        saga.setOwner(owner);
+        saga.setUpdatedAt(now);
+        logger.info("Recover provisioning saga [{}] for service instance {} : {}", CommonUtils.loggerReplace(saga.getSagaId()),
+                CommonUtils.loggerReplace(saga.getServiceInstanceId()), CommonUtils.loggerReplace(next));
+
+        if (next == JpaProvisioningSaga.State.COMPENSATING) {
+            Map<String, String> values = (saga.getContext() == null) ? null : GSON.fromJson(saga.getContext(), CONTEXT_TYPE);
+            SagaContext context = new SagaContext(values == null ? new ConcurrentHashMap<>() : values, null, null, journal(saga));
+            compensate(saga, stages, context, statuses);
+            if (saga.getState() == JpaProvisioningSaga.State.COMPENSATED) {
+                provisioningSteps.afterRecoveryCompensated(saga.getSagaType(), context);
+            }
+        }
+    }
+
+    /**
+     * stage 의 첫 단계는 호출한 thread 에서, 나머지는 provisioningTaskExecutor 에서 실행하고 모두 끝날 때까지 기다린다.
+     *
+     * @return 실패한 첫 단계의 예외, 모두 성공하면 null
+     */
+    private SagaStepFailedException runStage(JpaProvisioningSaga saga, List<SagaStep> stage, SagaContext context,
+                                             Map<String, JpaProvisioningSagaStep.Status> statuses) {
+        List<CompletableFuture<SagaStepFailedException>> others = new ArrayList<>();
+        for (SagaStep step : stage.subList(1, stage.size())) {
+            others.add(CompletableFuture.supplyAsync(() -> runStep(saga, step, context, statuses), provisioningTaskExecutor)
+                    .exceptionally(e -> new SagaStepFailedException(step.getName(), e)));
+        }
+
+        SagaStepFailedException failure = runStep(saga, stage.get(0), context, statuses);
+        for (CompletableFuture<SagaStepFailedException> other : others) {
+            SagaStepFailedException result = other.join();
+            if (failure == null) {
+                failure = result;
+            }
+        }
+        return failure;
+    }
+
+    private SagaStepFailedException runStep(JpaProvisioningSaga saga, SagaStep step, SagaContext context,
+                                            Map<String, JpaProvisioningSagaStep.Status> statuses) {
+        try {
+            record(saga, step.getName(), JpaProvisioningSagaStep.Status.STARTED, statuses, context);
+            step.execute(context);
+            record(saga, step.getName(), JpaProvisioningSagaStep.Status.DONE, statuses, context);
+            return null;
+        } catch (Exception e) {
+            logger.error("### EXCEPTION OCCURRED DURING PROVISIONING STEP [{}] : {}", CommonUtils.loggerReplace(step.getName()), CommonUtils.loggerReplace(e));
+            // 실행은 끝났지만 DONE 기록에 실패한 단계는 보상 대상으로 남긴다.
+            if (statuses.get(step.getName()) != JpaProvisioningSagaStep.Status.DONE) {
+                recordQuietly(saga, step.getName(), JpaProvisioningSagaStep.Status.FAILED, statuses, context);
+            }
+            return new SagaStepFailedException(step.getName(), e);
+        }
+    }
+
+    /**
+     * STARTED / DONE 단계를 역순으로 보상한다. 보상에 실패한 단계가 있으면 COMPENSATION_FAILED 로 기록하고 다음 복구 주기에 다시 시도한다.
+     */
+    private void compensate(JpaProvisioningSaga saga, List<List<SagaStep>> stages, SagaContext context,
+                            Map<String, JpaProvisioningSagaStep.Status> statuses) {
+        logger.error("### Provisioning saga [{}] failed... rollback will be execute.", CommonUtils.loggerReplace(saga.getSagaId()));
+        saga.setState(JpaProvisioningSaga.State.COMPENSATING);
+        saveQuietly(saga, context);
+
+        boolean compensated = true;
+        for (int i = stages.size() - 1; i >= 0; i--) {
+            List<SagaStep> stage = stages.get(i);
+            for (int j = stage.size() - 1; j >= 0; j--) {
+                SagaStep step = stage.get(j);
+                JpaProvisioningSagaStep.Status status = statuses.get(step.getName());
+                if (status != JpaProvisioningSagaStep.Status.STARTED && status != JpaProvisioningSagaStep.Status.DONE) {
+                    continue;
+                }
+                try {
+                    step.compensate(context);
+                    recordQuietly(saga, step.getName(), JpaProvisioningSagaStep.Status.COMPENSATED, statuses, context);
+                } catch (Exception e) {
+                    compensated = false;
+                    logger.error("### EXCEPTION OCCURRED DURING ROLLBACK OF PROVISIONING STEP [{}] : {}", CommonUtils.loggerReplace(step.getName()), CommonUtils.loggerReplace(e));
+                }
+            }
+        }
+
+        saga.setState(compensated ? JpaProvisioningSaga.State.COMPENSATED : JpaProvisioningSaga.State.COMPENSATION_FAILED);
+        saveQuietly(saga, context);
+    }
+
+    private ContainerPlatformService.StepListener journal(JpaProvisioningSaga saga) {
+        return new ContainerPlatformService.StepListener() {
+            @Override
+            public void started(String step) {
+                saveStep(saga, step, JpaProvisioningSagaStep.Status.STARTED);
+            }
+
+            @Override
+            public void finished(String step, boolean success) {
+                saveStep(saga, step, success ? JpaProvisioningSagaStep.Status.DONE : JpaProvisioningSagaStep.Status.FAILED);
+            }
+        };
+    }
+
+    private void record(JpaProvisioningSaga saga, String stepName, JpaProvisioningSagaStep.Status status,
+                        Map<String, JpaProvisioningSagaStep.Status> statuses, SagaContext context) {
+        statuses.put(stepName, status);
+        saveStep(saga, stepName, status);
+        save(saga, context);
+    }
+
+    private void recordQuietly(JpaProvisioningSaga saga, String stepName, JpaProvisioningSagaStep.Status status,
+                               Map<String, JpaProvisioningSagaStep.Status> statuses, SagaContext context) {
+        try {
+            record(saga, stepName, status, statuses, context);
+        } catch (Exception e) {
+            logger.error("### EXCEPTION OCCURRED DURING SAVE PROVISIONING STEP [{}] : {}", CommonUtils.loggerReplace(stepName), CommonUtils.loggerReplace(e));
+        }
+    }
+
+    private void saveStep(JpaProvisioningSaga saga, String stepName, JpaProvisioningSagaStep.Status status) {
+        stepRepository.save(new JpaProvisioningSagaStep(saga.getSagaId(), stepName, status, System.currentTimeMillis()));
+    }
+
+    /**
+     * 같은 stage 의 단계가 동시에 context 를 저장하므로 saga 단위로 순서대로 저장한다.
+     */
+    private void save(JpaProvisioningSaga saga, SagaContext context) {
+        synchronized (saga) {
+            saga.setContext(GSON.toJson(context.values()));
+            saga.setUpdatedAt(System.currentTimeMillis());
+            sagaRepository.save(saga);
+        }
+    }
+
+    private void saveQuietly(JpaProvisioningSaga saga, SagaContext context) {
+        try {
+            save(saga, context);
+        } catch (Exception e) {
+            logger.error("### EXCEPTION OCCURRED DURING SAVE PROVISIONING SAGA [{}] : {}", CommonUtils.loggerReplace(saga.getSagaId()), CommonUtils.loggerReplace(e));
+        }
+    }
+}
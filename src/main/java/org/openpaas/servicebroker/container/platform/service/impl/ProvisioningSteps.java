@@ -0,0 +1,281 @@
+package org.openpaas.servicebroker.container.platform.service.impl;
+
+import org.openpaas.servicebroker.container.platform.common.CommonStatusCode;
+import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.exception.ContainerPlatformException;
+import org.openpaas.servicebroker.container.platform.model.Constants;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.model.KeycloakUserStatus;
+import org.openpaas.servicebroker.container.platform.repo.JpaServiceInstanceRepository;
+import org.openpaas.servicebroker.container.platform.service.PropertyService;
+import org.openpaas.servicebroker.container.platform.service.impl.ProvisioningSagaService.SagaContext;
+import org.openpaas.servicebroker.container.platform.service.impl.ProvisioningSagaService.SagaStep;
+import org.openpaas.servicebroker.exception.ServiceBrokerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 서비스 인스턴스 생성 saga 의 단계 정의 클래스
+ *
+ * 사용자 포탈 : [keycloak 계정, namespace(resourcequota, limitrange, role)] -> instance DB -> cp user
+ * 관리자 포탈 : keycloak 계정(cluster-admin group) -> instance DB -> cp admin
+ *
+ * 보상 처리는 saga context 에 저장된 값만 사용하므로 broker 재시작 후에도 실행할 수 있다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Component
+public class ProvisioningSteps {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProvisioningSteps.class);
+
+    public static final String STEP_KEYCLOAK_USER = "keycloak-user";
+    public static final String STEP_NAMESPACE = "namespace";
+    public static final String STEP_INSTANCE_DB = "instance-db";
+    public static final String STEP_CP_USER = "cp-user";
+    public static final String STEP_CP_ADMIN = "cp-admin";
+
+    // saga context keys
+    private static final String SERVICE_INSTANCE_ID = "serviceInstanceId";
+    private static final String USER_ID = "userId";
+    private static final String ORGANIZATION_GUID = "organizationGuid";
+    private static final String NAMESPACE = "namespace";
+    private static final String KEYCLOAK_RESULT_CODE = "keycloakResultCode";
+    private static final String KEYCLOAK_USER_ID = "keycloakUserId";
+    private static final String KEYCLOAK_GROUP_JOINED = "keycloakGroupJoined";
+
+    @Autowired
+    private ContainerPlatformService containerPlatformService;
+
+    @Autowired
+    private NamespacePool namespacePool;
+
+    @Autowired
+    private KeycloakAdminClientService keycloakAdminClientService;
+
+    @Autowired
+    private JpaServiceInstanceRepository instanceRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PropertyService propertyService;
+
+    @Autowired
+    private OrganizationReservationService organizationReservationService;
+
+
+    /**
+     * saga 종류별 단계 목록. 같은 stage(안쪽 List) 의 단계는 동시에 실행한다.
+     *
+     * @param sagaType Constants.CONTAINER_PLATFORM_USER_PORTAL / CONTAINER_PLATFORM_ADMIN_PORTAL
+     */
+    public List<List<SagaStep>> stagesOf(String sagaType) {
+        if (Constants.CONTAINER_PLATFORM_ADMIN_PORTAL.equals(sagaType)) {
+            return Arrays.asList(
+                    Collections.singletonList(SagaStep.of(STEP_KEYCLOAK_USER, this::createClusterAdminUser, this::deleteKeycloakUser)),
+                    Collections.singletonList(SagaStep.of(STEP_INSTANCE_DB, this::saveAdminPortalInstance, this::deleteInstance)),
+                    Collections.singletonList(SagaStep.of(STEP_CP_ADMIN, this::createCpAdmin, this::deleteCpAdmin)));
+        }
+        return Arrays.asList(
+                Arrays.asList(SagaStep.of(STEP_KEYCLOAK_USER, this::createNamespaceAdminUser, this::deleteKeycloakUser),
+                        SagaStep.of(STEP_NAMESPACE, this::createNamespace, this::deleteNamespace)),
+                Collections.singletonList(SagaStep.of(STEP_INSTANCE_DB, this::saveUserPortalInstance, this::deleteInstance)),
+                Collections.singletonList(SagaStep.of(STEP_CP_USER, this::createCpUser, this::deleteCpUser)));
+    }
+
+    /**
+     * saga 시작시 context 에 저장할 값
+     */
+    public Map<String, String> initialValues(JpaServiceInstance instance) {
+        Map<String, String> values = new HashMap<>();
+        values.put(SERVICE_INSTANCE_ID, instance.getServiceInstanceId());
+        if (instance.getUserId() != null) {
+            values.put(USER_ID, instance.getUserId());
+        }
+        if (instance.getOrganizationGuid() != null) {
+            values.put(ORGANIZATION_GUID, instance.getOrganizationGuid());
+        }
+        return values;
+    }
+
+    /**
+     * 복구시 보상이 끝난 saga 의 후처리
+     * 사용자 포탈은 요청 처리 중에 예약한 organization 을 해제한다. (요청 처리 중 실패한 경우는 InstanceServiceImpl 에서 해제)
+     */
+    public void afterRecoveryCompensated(String sagaType, SagaContext context) {
+        if (Constants.CONTAINER_PLATFORM_USER_PORTAL.equals(sagaType)) {
+            organizationReservationService.release(context.get(ORGANIZATION_GUID), context.get(SERVICE_INSTANCE_ID));
+        }
+    }
+
+
+    // ---------------------------------------------------------------- keycloak 계정
+
+    private void createNamespaceAdminUser(SagaContext context) throws ServiceBrokerException {
+        createKeycloakUser(context, Constants.AUTH_NAMESPACE_ADMIN);
+    }
+
+    /**
+     * 이미 keycloak 내 계정이 존재한다면 cluster-admin-group 맵핑 진행
+     */
+    private void createClusterAdminUser(SagaContext context) throws ServiceBrokerException {
+        KeycloakUserStatus status = createKeycloakUser(context, Constants.AUTH_CLUSTER_ADMIN);
+        if (status.getResultCode().equals(CommonStatusCode.CONFLICT.getCode())) {
+            if (keycloakAdminClientService.manageClusterAdminGroupToUser(context.get(USER_ID), Constants.TYPE_JOIN).equals(Constants.RESULT_STATUS_FAIL)) {
+                throw new ServiceBrokerException("Failed to register Single Sign-On user account.");
+            }
+            context.put(KEYCLOAK_GROUP_JOINED, Boolean.TRUE.toString());
+        }
+    }
+
+    private KeycloakUserStatus createKeycloakUser(SagaContext context, String userType) throws ServiceBrokerException {
+        KeycloakUserStatus status = keycloakAdminClientService.createKeycloakUser(context.get(USER_ID), userType);
+        context.put(KEYCLOAK_RESULT_CODE, status.getResultCode());
+        context.put(KEYCLOAK_USER_ID, status.getUserId());
+        if (!Constants.KEYCLOAK_CREATE_UESR_STATUS_CODE.contains(status.getResultCode())) {
+            logger.info("An exception occurred while creating keycloak user");
+            throw new ServiceBrokerException("Failed to register Single Sign-On user account.");
+        }
+        return status;
+    }
+
+    /**
+     * 브로커를 통해 신규 생성된 keycloak 계정일 경우 삭제, 이미 존재한 계정일 경우 cluster-admin-group 맵핑 해제
+     * 생성 결과가 기록되지 않은 경우(요청 중 broker 종료)는 기존 계정일 수 있으므로 삭제하지 않는다.
+     */
+    private void deleteKeycloakUser(SagaContext context) throws ServiceBrokerException {
+        String resultCode = context.get(KEYCLOAK_RESULT_CODE);
+        if (resultCode == null) {
+            logger.warn("Keycloak user creation result of {} is unknown, skip deleting keycloak user", CommonUtils.loggerReplace(context.get(USER_ID)));
+            return;
+        }
+
+        if (resultCode.equals(CommonStatusCode.CREATED.getCode())) {
+            if (keycloakAdminClientService.deleteKeycloakUser(context.get(KEYCLOAK_USER_ID)).equals(Constants.RESULT_STATUS_FAIL)) {
+                throw new ContainerPlatformException("Failed to delete keycloak user : " + context.get(USER_ID));
+            }
+        } else if (Boolean.TRUE.toString().equals(context.get(KEYCLOAK_GROUP_JOINED))) {
+            if (keycloakAdminClientService.manageClusterAdminGroupToUser(context.get(USER_ID), Constants.TYPE_LEAVE).equals(Constants.RESULT_STATUS_FAIL)) {
+                throw new ContainerPlatformException("Failed to leave cluster admin group : " + context.get(USER_ID));
+            }
+        }
+    }
+
+
+    // ---------------------------------------------------------------- namespace
+
+    /**
+     * k8s 클러스터 내 namespace 생성(namespace, resourcequotas, limitranges, role 생성)
+     * namespace pool 에 미리 생성된 namespace 가 있으면 할당 받고, 없으면 새로 생성한다.
+     * 하위 resource 생성 실패시 createCpNamespace 에서 namespace 를 삭제한다.
+     */
+    private void createNamespace(SagaContext context) throws ServiceBrokerException {
+        JpaServiceInstance instance = context.getInstance();
+        if (namespacePool.claim(instance, context.getPlan(), context.subSteps(STEP_NAMESPACE))) {
+            context.put(NAMESPACE, instance.getCaasNamespace());
+            return;
+        }
+
+        String namespaceStatus = containerPlatformService.createCpNamespace(instance, context.getPlan(), context.subSteps(STEP_NAMESPACE));
+        if (!Constants.RESULT_STATUS_SUCCESS.equalsIgnoreCase(namespaceStatus)) {
+            logger.info("An exception occurred while creating namespace in k8s");
+            throw new ServiceBrokerException("Failed to create namespace in cluster. Please check your cluster!");
+        }
+        context.put(NAMESPACE, instance.getCaasNamespace());
+    }
+
+    /**
+     * namespace 삭제 (resourcequota, limitrange, role 도 같이 삭제된다)
+     */
+    private void deleteNamespace(SagaContext context) {
+        String namespace = context.get(NAMESPACE);
+        if (namespace == null) {
+            // 생성 완료가 기록되지 않은 경우 (pool 에서 할당 받았거나 새로 생성 중이었던 namespace)
+            namespace = namespacePool.findClaimed(context.get(SERVICE_INSTANCE_ID));
+            if (namespace == null) {
+                namespace = "paas-" + context.get(SERVICE_INSTANCE_ID).toLowerCase() + "-caas";
+                if (!containerPlatformService.existsNamespace(namespace)) {
+                    return;
+                }
+            }
+        }
+
+        try {
+            containerPlatformService.deleteNamespace(namespace);
+        } catch (HttpStatusCodeException exception) {
+            if (exception.getStatusCode() != HttpStatus.NOT_FOUND) {
+                throw exception;
+            }
+        }
+    }
+
+
+    // ---------------------------------------------------------------- instance DB
+
+    private void saveUserPortalInstance(SagaContext context) {
+        JpaServiceInstance instance = context.getInstance();
+        instance.withDashboardUrl(propertyService.getDashboardUrl(instance.getServiceInstanceId()));
+        instance.setDashboardType(Constants.CONTAINER_PLATFORM_USER_PORTAL);
+        instanceRepository.save(instance);
+    }
+
+    private void saveAdminPortalInstance(SagaContext context) {
+        JpaServiceInstance instance = context.getInstance();
+        instance.withDashboardUrl(propertyService.getAdminDashboardUrl());
+        instance.setDashboardType(Constants.CONTAINER_PLATFORM_ADMIN_PORTAL);
+        instance.setCaasAccountTokenName(Constants.NULL_REPLACE_TEXT);
+        instance.setCaasAccountName(Constants.NULL_REPLACE_TEXT);
+        instance.setCaasNamespace(Constants.NULL_REPLACE_TEXT);
+        instanceRepository.save(instance);
+    }
+
+    private void deleteInstance(SagaContext context) {
+        JpaServiceInstance instance = instanceRepository.findByServiceInstanceId(context.get(SERVICE_INSTANCE_ID));
+        if (instance != null) {
+            instanceRepository.delete(instance);
+        }
+    }
+
+
+    // ---------------------------------------------------------------- cp user
+
+    private void createCpUser(SagaContext context) throws ServiceBrokerException {
+        if (!Constants.RESULT_STATUS_SUCCESS.equalsIgnoreCase(userService.createCpUser(context.getInstance()))) {
+            logger.info("An exception occurred while creating user in container-platform");
+            throw new ServiceBrokerException("Failed to register container-platform user account. Please check common DB!");
+        }
+    }
+
+    private void deleteCpUser(SagaContext context) throws ServiceBrokerException {
+        String namespace = context.get(NAMESPACE);
+        if (namespace != null && Constants.RESULT_STATUS_FAIL.equals(userService.deleteCpUser(Constants.CONTAINER_PLATFORM_USER_PORTAL, namespace))) {
+            throw new ContainerPlatformException("Failed to delete container-platform user of namespace : " + namespace);
+        }
+    }
+
+    private void createCpAdmin(SagaContext context) throws ServiceBrokerException {
+        if (!Constants.RESULT_STATUS_SUCCESS.equalsIgnoreCase(userService.createCpAdmin(context.getInstance()))) {
+            logger.info("An exception occurred while creating admin in container-platform");
+            throw new ServiceBrokerException("Failed to register container-platform admin account. Please check common DB!");
+        }
+    }
+
+    private void deleteCpAdmin(SagaContext context) throws ServiceBrokerException {
+        if (Constants.RESULT_STATUS_FAIL.equals(userService.deleteCpUser(Constants.CONTAINER_PLATFORM_ADMIN_PORTAL, Constants.NULL_REPLACE_TEXT))) {
+            throw new ContainerPlatformException("Failed to delete container-platform admin");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.openpaas.servicebroker.container.platform.service.impl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.openpaas.servicebroker.container.platform.common.LruCache;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.repo.JpaServiceInstanceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * service_instance 조회 결과를 broker 메모리에 보관하는 cache 클래스 (last_operation 등 반복 조회의 DB 요청 감소)
+ * JpaServiceInstance 에 EntityListener 가 등록되어 있어 저장/삭제되면 해당 인스턴스의 값을 버린다.
+ * 조회 결과가 없는 경우는 negative-ttl 동안만 보관한다. 다른 broker 에서 변경한 값은 ttl 이 지날 때까지 반영되지 않는다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Service
+public class ServiceInstanceCache implements MeterBinder {
+
+    @Autowired
+    private JpaServiceInstanceRepository instanceRepository;
+
+    @Value("${instance-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${instance-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${instance-cache.ttl:30000}")
+    private long ttl;
+
+    @Value("${instance-cache.negative-ttl:5000}")
+    private long negativeTtl;
+
+    private LruCache<String, JpaServiceInstance> cache;
+
+
+    @PostConstruct
+    public void init() {
+        cache = new LruCache<>(maxSize);
+    }
+
+    /**
+     * 서비스 인스턴스 조회. 보관중인 값이 없으면 DB 에서 읽어 보관한다.
+     *
+     * @param serviceInstanceId 서비스 인스턴스 id
+     * @return 서비스 인스턴스 (없으면 null)
+     */
+    public JpaServiceInstance find(String serviceInstanceId) {
+        if (!enabled) {
+            return instanceRepository.findByServiceInstanceId(serviceInstanceId);
+        }
+
+        LruCache.Entry<JpaServiceInstance> entry = cache.get(serviceInstanceId);
+        if (entry != null) {
+            return entry.getValue();
+        }
+
+        JpaServiceInstance instance = instanceRepository.findByServiceInstanceId(serviceInstanceId);
+        cache.put(serviceInstanceId, instance, instance == null ? negativeTtl : ttl);
+        return instance;
+    }
+
+    public void invalidate(String serviceInstanceId) {
+        if (cache != null) {
+            cache.invalidate(serviceInstanceId);
+        }
+    }
+
+    /**
+     * JpaServiceInstance 저장/삭제시 cache 의 값을 버리는 entity listener
+     * hibernate 가 EntityManagerFactory 생성 중에 listener 객체를 따로 만들므로 cache 는 처음 사용할 때 찾는다. (순환 참조 방지)
+     */
+    public static class EntityListener {
+
+        @Lazy
+        @Autowired
+        private ServiceInstanceCache serviceInstanceCache;
+
+        @PostPersist
+        @PostUpdate
+        @PostRemove
+        public void onChanged(JpaServiceInstance instance) {
+            if (serviceInstanceCache != null) {
+                serviceInstanceCache.invalidate(instance.getServiceInstanceId());
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("broker.instance.cache.gets", this, service -> service.cache.hitCount())
+                .tag("result", "hit")
+                .description("Service instance lookups answered from the cache")
+                .register(registry);
+        FunctionCounter.builder("broker.instance.cache.gets", this, service -> service.cache.missCount())
+                .tag("result", "miss")
+                .description("Service instance lookups read from the database")
+                .register(registry);
+        FunctionCounter.builder("broker.instance.cache.evictions", this, service -> service.cache.evictionCount())
+                .description("Cached service instances dropped by size or ttl")
+                .register(registry);
+        Gauge.builder("broker.instance.cache.size", this, service -> service.cache.size())
+                .description("Cached service instances (including not found results)")
+                .register(registry);
+    }
+}
@@ -0,0 +1,169 @@
+package org.openpaas.servicebroker.container.platform.service.impl;
+
+import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.exception.ConcurrentOperationException;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceOperation;
+import org.openpaas.servicebroker.container.platform.repo.JpaServiceOperationRepository;
+import org.openpaas.servicebroker.exception.ServiceBrokerException;
+import org.openpaas.servicebroker.model.OperationState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 서비스 인스턴스 생성/변경/삭제를 비동기로 처리하는 서비스 클래스
+ * 작업 상태는 service_operation 테이블에 저장하고 operationTaskExecutor 에서 실행한다. last_operation 은 저장된 상태로 응답한다.
+ * provisioning.async.timeout 이 지난 작업은 실패로 기록한다. (실행 중인 thread 를 멈추지는 않으며, 늦게 끝나도 상태를 다시 바꾸지 않는다)
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Service
+public class ServiceOperationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceOperationService.class);
+
+    private static final int MAX_DESCRIPTION_LENGTH = 1000;
+
+    @Autowired
+    private JpaServiceOperationRepository operationRepository;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    @Qualifier("operationTaskExecutor")
+    private Executor operationTaskExecutor;
+
+    @Value("${provisioning.async.enabled:true}")
+    private boolean enabled;
+
+    @Value("${provisioning.async.timeout:600000}")
+    private long operationTimeout;
+
+
+    @FunctionalInterface
+    public interface OperationTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * accepts_incomplete=true 요청을 비동기로 처리할지 여부
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 작업 상태를 저장하고 operationTaskExecutor 에 실행을 요청한다.
+     * 같은 인스턴스에 같은 종류의 작업이 진행 중이면 그 작업을 반환하고, 다른 종류의 작업이 진행 중이면 ConcurrentOperationException 이 발생한다.
+     *
+     * @param serviceInstanceId 서비스 인스턴스 id
+     * @param operationType     Constants.OPERATION_TYPE_*
+     * @param task              실행할 작업 (예외가 발생하면 실패로 기록한다)
+     * @return 저장된 작업 상태
+     */
+    public JpaServiceOperation submit(String serviceInstanceId, String operationType, OperationTask task) throws ServiceBrokerException {
+        JpaServiceOperation running = operationRepository.findFirstByServiceInstanceIdAndStateOrderByCreatedAtDesc(serviceInstanceId, OperationState.IN_PROGRESS);
+        if (running != null && !expireIfOverdue(running)) {
+            if (running.getOperationType().equals(operationType)) {
+                return running;
+            }
+            throw new ConcurrentOperationException(serviceInstanceId, running.getOperationType());
+        }
+
+        long now = System.currentTimeMillis();
+        JpaServiceOperation operation = operationRepository.save(
+                new JpaServiceOperation(UUID.randomUUID().toString(), serviceInstanceId, operationType, now, now + operationTimeout));
+        logger.info("Accept {} operation [{}] for service instance : {}", CommonUtils.loggerReplace(operationType),
+                CommonUtils.loggerReplace(operation.getOperationId()), CommonUtils.loggerReplace(serviceInstanceId));
+
+        try {
+            operationTaskExecutor.execute(() -> run(operation, task));
+        } catch (RejectedExecutionException e) {
+            finish(operation, OperationState.FAILED, "Too many operations in progress.");
+            throw new ServiceBrokerException("Too many service instance operations in progress. Please try again later.");
+        }
+        return operation;
+    }
+
+    /**
+     * 마지막 작업 상태. operationId 를 지정하면 해당 작업을, 아니면 인스턴스의 가장 최근 작업을 반환한다.
+     *
+     * @return 작업 상태, 기록이 없으면 null
+     */
+    public JpaServiceOperation getLastOperation(String serviceInstanceId, String operationId) {
+        JpaServiceOperation operation = (operationId == null)
+                ? operationRepository.findFirstByServiceInstanceIdOrderByCreatedAtDesc(serviceInstanceId)
+                : operationRepository.findById(operationId).filter(o -> o.getServiceInstanceId().equals(serviceInstanceId)).orElse(null);
+
+        if (operation != null && operation.getState() == OperationState.IN_PROGRESS) {
+            expireIfOverdue(operation);
+        }
+        return operation;
+    }
+
+    /**
+     * 제한 시간이 지난 진행 중 작업을 실패로 기록한다. (broker 재시작으로 중단된 작업 포함)
+     */
+    @Scheduled(initialDelayString = "${provisioning.async.sweep-interval:60000}", fixedDelayString = "${provisioning.async.sweep-interval:60000}")
+    public void expireOverdueOperations() {
+        for (JpaServiceOperation operation : operationRepository.findAllByStateAndDeadlineLessThan(OperationState.IN_PROGRESS, System.currentTimeMillis())) {
+            expireIfOverdue(operation);
+        }
+    }
+
+    private void run(JpaServiceOperation operation, OperationTask task) {
+        long startTime = System.nanoTime();
+        try {
+            task.run();
+            finish(operation, OperationState.SUCCEEDED, null);
+        } catch (Exception e) {
+            logger.error("### EXCEPTION OCCURRED DURING {} OPERATION [{}] : {}", CommonUtils.loggerReplace(operation.getOperationType()),
+                    CommonUtils.loggerReplace(operation.getOperationId()), CommonUtils.loggerReplace(e));
+            finish(operation, OperationState.FAILED, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+        logger.info("{} operation [{}] finished : {} ({} ms)", CommonUtils.loggerReplace(operation.getOperationType()), CommonUtils.loggerReplace(operation.getOperationId()),
+                CommonUtils.loggerReplace(operation.getState()), (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * @return 제한 시간이 지나 실패로 기록했으면 true
+     */
+    private boolean expireIfOverdue(JpaServiceOperation operation) {
+        if (operation.getDeadline() > System.currentTimeMillis()) {
+            return false;
+        }
+        finish(operation, OperationState.FAILED, "Operation timed out.");
+        return true;
+    }
+
+    private void finish(JpaServiceOperation operation, OperationState state, String description) {
+        long now = System.currentTimeMillis();
+        String trimmed = (description != null && description.length() > MAX_DESCRIPTION_LENGTH) ? description.substring(0, MAX_DESCRIPTION_LENGTH) : description;
+        if (operationRepository.finish(operation.getOperationId(), state, trimmed, now) > 0) {
+            operation.setState(state);
+            operation.setDescription(trimmed);
+            operation.setUpdatedAt(now);
+            if (state == OperationState.FAILED) {
+                // 실패한 작업을 접수한 202 Accepted 응답을 재시도 요청에 다시 보내지 않는다.
+                idempotencyService.invalidate(operation.getServiceInstanceId());
+            }
+        } else {
+            // 이미 다른 곳(제한 시간 초과 처리 등)에서 종료된 작업
+            operationRepository.findById(operation.getOperationId()).ifPresent(current -> {
+                operation.setState(current.getState());
+                operation.setDescription(current.getDescription());
+                operation.setUpdatedAt(current.getUpdatedAt());
+            });
+        }
+    }
+}
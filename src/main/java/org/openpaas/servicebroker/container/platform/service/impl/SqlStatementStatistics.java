@@ -0,0 +1,173 @@
+package org.openpaas.servicebroker.container.platform.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.openpaas.servicebroker.container.platform.common.CommonUtils;
+import org.openpaas.servicebroker.container.platform.common.InstrumentedDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 실행 시간 집계 클래스 (show-sql 대체)
+ * SQL 을 형태(shape, 문자열/숫자 literal 과 IN 목록을 ? 로 바꾼 문장)별로 묶어 jdbc.statement timer 에 기록하고,
+ * slow-threshold 를 넘긴 SQL 은 slow-log-sample-rate 비율로 WARN 로그를 남긴다.
+ * bind parameter 값은 받지 않으며 SQL 에 직접 쓰인 literal 도 shape 로 바꾼 뒤 기록하므로 값은 로그/metric 에 남지 않는다.
+ *
+ * @since 2026.10.18
+ * @version 20261018
+ */
+@Service
+public class SqlStatementStatistics implements MeterBinder, InstrumentedDataSource.StatementListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementStatistics.class);
+
+    // max-shapes 를 넘은 새로운 형태의 SQL 은 하나로 모은다. (metric tag 수 제한)
+    public static final String OTHER_SHAPE = "other";
+
+    private static final int MAX_SHAPE_LENGTH = 1000;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern VALUES_LIST = Pattern.compile("(?i)\\bvalues\\s*(\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\))(?:\\s*,\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\))+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Value("${jdbc.statement-metrics.slow-threshold:200}")
+    private long slowThreshold;
+
+    @Value("${jdbc.statement-metrics.slow-log-sample-rate:1.0}")
+    private double slowLogSampleRate;
+
+    @Value("${jdbc.statement-metrics.max-shapes:200}")
+    private int maxShapes;
+
+    // SQL 형태별 timer 마다 bucket series 가 생기므로 필요한 경우에만 켠다.
+    @Value("${jdbc.statement-metrics.percentile-histogram:false}")
+    private boolean percentileHistogram;
+
+    private final Map<String, Statistics> statistics = new ConcurrentHashMap<>();
+
+    private volatile MeterRegistry registry;
+
+
+    @Override
+    public void executed(String sql, long elapsedNanos, boolean failed) {
+        String shape = shape(sql);
+        Statistics statistic = statistics.get(shape);
+        if (statistic == null) {
+            if (statistics.size() >= maxShapes) {
+                shape = OTHER_SHAPE;
+            }
+            statistic = statistics.computeIfAbsent(shape, key -> new Statistics());
+        }
+        statistic.record(elapsedNanos, failed, slowThreshold);
+
+        // 시작시 flyway 등 registry 연결 전에 실행된 SQL 은 timer 없이 집계만 한다.
+        Timer timer = statistic.timer;
+        if (timer == null && registry != null) {
+            timer = statistic.timer = timer(shape);
+        }
+        if (timer != null) {
+            timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (elapsedMillis >= slowThreshold && ThreadLocalRandom.current().nextDouble() < slowLogSampleRate) {
+            logger.warn("Slow query : {} ms, failed={}, sql={}", elapsedMillis, failed, CommonUtils.loggerReplace(shape));
+        }
+    }
+
+    /**
+     * 누적 실행 시간이 긴 순서로 SQL 형태별 통계를 반환한다.
+     *
+     * @param limit 최대 개수 (0 이하이면 빈 목록)
+     * @return SQL 형태별 통계 목록
+     */
+    public List<Map<String, Object>> top(int limit) {
+        List<Map.Entry<String, Statistics>> entries = new ArrayList<>(statistics.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, Statistics> entry) -> entry.getValue().totalNanos.sum()).reversed());
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<String, Statistics> entry : entries.subList(0, Math.max(0, Math.min(limit, entries.size())))) {
+            Statistics statistic = entry.getValue();
+            long count = statistic.count.sum();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("statement", entry.getKey());
+            item.put("count", count);
+            item.put("failed", statistic.failed.sum());
+            item.put("slow", statistic.slow.sum());
+            item.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(statistic.totalNanos.sum()));
+            item.put("meanMillis", count == 0 ? 0.0 : statistic.totalNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1));
+            item.put("maxMillis", TimeUnit.NANOSECONDS.toMillis(statistic.maxNanos.get()));
+            result.add(item);
+        }
+        return result;
+    }
+
+    /**
+     * SQL 을 형태별로 묶기 위해 literal 과 공백을 정리한다.
+     * 'abc', 123 -> ? / IN (?, ?, ?) -> IN (?) / VALUES (?, ?), (?, ?) -> VALUES (?, ?)
+     *
+     * @param sql SQL
+     * @return SQL 형태
+     */
+    public static String shape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        shape = IN_LIST.matcher(shape).replaceAll("in (?)");
+        shape = VALUES_LIST.matcher(shape).replaceAll("values $1");
+        return shape.length() > MAX_SHAPE_LENGTH ? shape.substring(0, MAX_SHAPE_LENGTH) : shape;
+    }
+
+    private Timer timer(String shape) {
+        return Timer.builder("jdbc.statement")
+                .tag("statement", shape)
+                .description("JDBC statement execution time by statement shape")
+                .publishPercentileHistogram(percentileHistogram)
+                .register(registry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    private static class Statistics {
+
+        private volatile Timer timer;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder slow = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long elapsedNanos, boolean failed, long slowThreshold) {
+            count.increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+            if (failed) {
+                this.failed.increment();
+            }
+            if (TimeUnit.NANOSECONDS.toMillis(elapsedNanos) >= slowThreshold) {
+                slow.increment();
+            }
+        }
+    }
+}
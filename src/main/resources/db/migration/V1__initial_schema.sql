@@ -0,0 +1,23 @@
+-- 최초 schema (hibernate ddl-auto 로 생성하던 table)
+-- ddl-auto 로 이미 생성된 DB 에도 적용할 수 있도록 IF NOT EXISTS 를 사용한다. (MariaDB 10.1.4 이상)
+
+create table if not exists service_instance (
+    service_instance_id varchar(255) not null,
+    caas_account_name varchar(255),
+    caas_account_token_name varchar(255),
+    caas_namespace varchar(255),
+    dashboard_type varchar(255),
+    dashboard_url varchar(255),
+    organization_guid varchar(255),
+    plan_id varchar(255),
+    service_definition_id varchar(255),
+    space_guid varchar(255),
+    user_id varchar(255),
+    primary key (service_instance_id)
+) engine=InnoDB;
+
+create table if not exists admin_token (
+    token_name varchar(255) not null,
+    token_value varchar(1000),
+    primary key (token_name)
+) engine=InnoDB;
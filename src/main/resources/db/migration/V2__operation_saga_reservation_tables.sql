@@ -0,0 +1,47 @@
+-- 비동기 작업 상태, 서비스 인스턴스 생성 saga, organization 예약 table
+
+create table if not exists service_operation (
+    operation_id varchar(36) not null,
+    created_at bigint not null,
+    deadline bigint not null,
+    description varchar(1000),
+    operation_type varchar(16) not null,
+    service_instance_id varchar(255) not null,
+    state varchar(16) not null,
+    updated_at bigint not null,
+    primary key (operation_id)
+) engine=InnoDB;
+
+create index if not exists idx_service_operation_instance on service_operation (service_instance_id);
+
+create table if not exists provisioning_saga (
+    saga_id varchar(36) not null,
+    context varchar(4000),
+    created_at bigint not null,
+    owner varchar(100),
+    saga_type varchar(32) not null,
+    service_instance_id varchar(255) not null,
+    state varchar(24) not null,
+    updated_at bigint not null,
+    primary key (saga_id)
+) engine=InnoDB;
+
+create index if not exists idx_provisioning_saga_state on provisioning_saga (state, updated_at);
+
+create table if not exists provisioning_saga_step (
+    step_id varchar(100) not null,
+    saga_id varchar(36) not null,
+    status varchar(16) not null,
+    step_name varchar(60) not null,
+    updated_at bigint not null,
+    primary key (step_id)
+) engine=InnoDB;
+
+create index if not exists idx_provisioning_saga_step_saga on provisioning_saga_step (saga_id);
+
+create table if not exists organization_reservation (
+    organization_guid varchar(255) not null,
+    created_at bigint not null,
+    service_instance_id varchar(255) not null,
+    primary key (organization_guid)
+) engine=InnoDB;
@@ -0,0 +1,5 @@
+-- service_instance 조회 index (organization 중복 확인, namespace 조회, 관리자 포탈 확인)
+
+create index if not exists idx_service_instance_org_dashboard on service_instance (organization_guid, dashboard_type);
+create index if not exists idx_service_instance_namespace on service_instance (caas_namespace);
+create index if not exists idx_service_instance_dashboard_type on service_instance (dashboard_type);
@@ -0,0 +1,3 @@
+-- service_instance 낙관적 잠금(optimistic lock) version
+
+alter table service_instance add column if not exists version bigint not null default 0;
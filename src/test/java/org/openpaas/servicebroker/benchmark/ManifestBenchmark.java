@@ -0,0 +1,84 @@
+package org.openpaas.servicebroker.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpaas.servicebroker.container.platform.common.K8sManifest;
+import org.openpaas.servicebroker.container.platform.exception.ContainerPlatformException;
+import org.openpaas.servicebroker.container.platform.service.impl.TemplateServiceImpl;
+
+import freemarker.template.Configuration;
+
+/**
+ * FreeMarker YAML 템플릿과 K8sManifest JSON 의 요청 body 생성 비용 비교
+ * 템플릿 경로는 RestTemplate 이 String 을 전송할 때와 같이 UTF-8 byte 배열까지 만든다.
+ *
+ * ./gradlew jmh -PjmhArgs='ManifestBenchmark -prof gc'
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManifestBenchmark {
+
+    private static final String NAMESPACE = "paas-0a1b2c3d-4e5f-6789-abcd-ef0123456789-caas";
+
+    private TemplateServiceImpl templateService;
+
+    private Map<String, Object> roleModel;
+
+    private Map<String, Object> quotaModel;
+
+    @Setup
+    public void setUp() {
+        Configuration configuration = new Configuration(Configuration.VERSION_2_3_28);
+        configuration.setClassForTemplateLoading(getClass(), "/templates");
+        templateService = new TemplateServiceImpl(configuration);
+
+        roleModel = new HashMap<>();
+        roleModel.put("spaceName", NAMESPACE);
+        roleModel.put("roleName", "cp-admin-role");
+
+        Map<String, Object> plan = new HashMap<>();
+        plan.put("cpu", "2");
+        plan.put("memory", "4Gi");
+        plan.put("disk", "20Gi");
+        quotaModel = new HashMap<>();
+        quotaModel.put("quotaName", NAMESPACE + "-resourcequota");
+        quotaModel.put("plan", plan);
+    }
+
+    @Benchmark
+    public byte[] adminRoleTemplate() throws ContainerPlatformException {
+        return templateService.convert("instance/create_admin_role.ftl", roleModel).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] adminRoleJson() {
+        return K8sManifest.role(NAMESPACE, "cp-admin-role", K8sManifest.ADMIN_ROLE_RULES);
+    }
+
+    @Benchmark
+    public byte[] resourceQuotaTemplate() throws ContainerPlatformException {
+        return templateService.convert("instance/create_resource_quota.ftl", quotaModel).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] resourceQuotaJson() {
+        return K8sManifest.resourceQuota(NAMESPACE + "-resourcequota", "2", "4Gi", "20Gi");
+    }
+}
@@ -0,0 +1,173 @@
+package org.openpaas.servicebroker.benchmark;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.stubbing.Answer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpaas.servicebroker.container.platform.common.CommonStatusCode;
+import org.openpaas.servicebroker.container.platform.model.Constants;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.model.KeycloakUserStatus;
+import org.openpaas.servicebroker.container.platform.repo.JpaProvisioningSagaRepository;
+import org.openpaas.servicebroker.container.platform.repo.JpaProvisioningSagaStepRepository;
+import org.openpaas.servicebroker.container.platform.repo.JpaServiceInstanceRepository;
+import org.openpaas.servicebroker.container.platform.service.PropertyService;
+import org.openpaas.servicebroker.container.platform.service.impl.ContainerPlatformService;
+import org.openpaas.servicebroker.container.platform.service.impl.InstanceServiceImpl;
+import org.openpaas.servicebroker.container.platform.service.impl.KeycloakAdminClientService;
+import org.openpaas.servicebroker.container.platform.service.impl.NamespacePool;
+import org.openpaas.servicebroker.container.platform.service.impl.OrganizationReservationService;
+import org.openpaas.servicebroker.container.platform.service.impl.ProvisioningSagaService;
+import org.openpaas.servicebroker.container.platform.service.impl.ProvisioningSteps;
+import org.openpaas.servicebroker.container.platform.service.impl.UserService;
+import org.openpaas.servicebroker.model.CreateServiceInstanceRequest;
+import org.openpaas.servicebroker.model.Plan;
+import org.openpaas.servicebroker.model.ServiceDefinition;
+import org.openpaas.servicebroker.service.CatalogService;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 사용자 포탈 서비스 인스턴스 생성의 전체 소요 시간 비교 (외부 호출은 지연 시간만 갖는 stub)
+ * sequential : keycloak 계정 생성이 끝난 뒤 namespace 를 생성하는 기존 순서 (SyncTaskExecutor)
+ * overlapped : keycloak 계정 생성과 namespace 생성을 동시에 진행
+ *
+ * ./gradlew jmh -PjmhArgs='ProvisioningBenchmark'
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProvisioningBenchmark {
+
+    private static final String SERVICE_ID = "service-definition-id";
+
+    private static final String PLAN_ID = "plan-id";
+
+    @Param({ "sequential", "overlapped" })
+    private String mode;
+
+    // stub 지연 시간 (ms)
+    @Param("40")
+    private long keycloakLatency;
+
+    @Param("60")
+    private long namespaceLatency;
+
+    @Param("10")
+    private long cpApiLatency;
+
+    private InstanceServiceImpl instanceService;
+
+    private ThreadPoolTaskExecutor threadPool;
+
+    @Setup
+    public void setUp() throws Exception {
+        PropertyService propertyService = mock(PropertyService.class);
+        when(propertyService.getCpBrokerAdminId()).thenReturn("admin-service-definition-id");
+        when(propertyService.getDashboardUrl(anyString())).thenReturn("https://cp-portal/dashboard");
+
+        JpaServiceInstanceRepository instanceRepository = mock(JpaServiceInstanceRepository.class);
+        when(instanceRepository.existsByOrganizationGuidAndDashboardType(anyString(), anyString())).thenReturn(false);
+
+        CatalogService catalog = mock(CatalogService.class);
+        when(catalog.getServiceDefinition(SERVICE_ID)).thenReturn(
+                new ServiceDefinition(SERVICE_ID, "container-platform", "benchmark", true, Collections.singletonList(new Plan(PLAN_ID, "Micro", "benchmark"))));
+
+        KeycloakAdminClientService keycloakAdminClientService = mock(KeycloakAdminClientService.class);
+        when(keycloakAdminClientService.createKeycloakUser(anyString(), anyString()))
+                .thenAnswer(delayed(keycloakLatency, new KeycloakUserStatus(CommonStatusCode.CREATED.getCode(), "keycloak-user-id")));
+
+        ContainerPlatformService containerPlatformService = mock(ContainerPlatformService.class);
+        when(containerPlatformService.createCpNamespace(any(JpaServiceInstance.class), any(Plan.class), any(ContainerPlatformService.StepListener.class)))
+                .thenAnswer(delayed(namespaceLatency, Constants.RESULT_STATUS_SUCCESS));
+
+        UserService userService = mock(UserService.class);
+        when(userService.createCpUser(any(JpaServiceInstance.class))).thenAnswer(delayed(cpApiLatency, Constants.RESULT_STATUS_SUCCESS));
+
+        Executor executor;
+        if ("overlapped".equals(mode)) {
+            threadPool = new ThreadPoolTaskExecutor();
+            threadPool.setCorePoolSize(8);
+            threadPool.setMaxPoolSize(8);
+            threadPool.initialize();
+            executor = threadPool;
+        } else {
+            executor = new SyncTaskExecutor();
+        }
+
+        ProvisioningSteps provisioningSteps = new ProvisioningSteps();
+        ReflectionTestUtils.setField(provisioningSteps, "containerPlatformService", containerPlatformService);
+        ReflectionTestUtils.setField(provisioningSteps, "namespacePool", mock(NamespacePool.class));
+        ReflectionTestUtils.setField(provisioningSteps, "keycloakAdminClientService", keycloakAdminClientService);
+        ReflectionTestUtils.setField(provisioningSteps, "instanceRepository", instanceRepository);
+        ReflectionTestUtils.setField(provisioningSteps, "userService", userService);
+        ReflectionTestUtils.setField(provisioningSteps, "propertyService", propertyService);
+
+        ProvisioningSagaService provisioningSagaService = new ProvisioningSagaService();
+        ReflectionTestUtils.setField(provisioningSagaService, "sagaRepository", mock(JpaProvisioningSagaRepository.class));
+        ReflectionTestUtils.setField(provisioningSagaService, "stepRepository", mock(JpaProvisioningSagaStepRepository.class));
+        ReflectionTestUtils.setField(provisioningSagaService, "provisioningSteps", provisioningSteps);
+        ReflectionTestUtils.setField(provisioningSagaService, "provisioningTaskExecutor", executor);
+        ReflectionTestUtils.setField(provisioningSagaService, "owner", "benchmark");
+
+        instanceService = new InstanceServiceImpl();
+        ReflectionTestUtils.setField(instanceService, "catalog", catalog);
+        ReflectionTestUtils.setField(instanceService, "instanceRepository", instanceRepository);
+        ReflectionTestUtils.setField(instanceService, "containerPlatformService", containerPlatformService);
+        ReflectionTestUtils.setField(instanceService, "propertyService", propertyService);
+        ReflectionTestUtils.setField(instanceService, "userService", userService);
+        ReflectionTestUtils.setField(instanceService, "provisioningSagaService", provisioningSagaService);
+        ReflectionTestUtils.setField(instanceService, "organizationReservationService", mock(OrganizationReservationService.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (threadPool != null) {
+            threadPool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public JpaServiceInstance createUserPortalInstance() throws Exception {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("owner", "benchmark-user");
+        parameters.put("org_name", "benchmark-org");
+        parameters.put("space_name", "benchmark-space");
+
+        CreateServiceInstanceRequest request = new CreateServiceInstanceRequest(SERVICE_ID, PLAN_ID, "org-guid", "space-guid", parameters)
+                .withServiceDefinition(new ServiceDefinition(SERVICE_ID, "container-platform", "benchmark", true, Collections.emptyList()))
+                .withServiceInstanceId("service-instance-id");
+        return instanceService.createServiceInstance(request);
+    }
+
+    private static <T> Answer<T> delayed(long millis, T result) {
+        return invocation -> {
+            Thread.sleep(millis);
+            return result;
+        };
+    }
+}
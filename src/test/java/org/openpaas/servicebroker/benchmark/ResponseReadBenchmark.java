@@ -0,0 +1,93 @@
+package org.openpaas.servicebroker.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpaas.servicebroker.container.platform.common.JsonFieldExtractor;
+import org.springframework.util.StreamUtils;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * k8s 응답에서 값 하나를 읽을 때의 비용 비교
+ * stringDom : 응답을 String 으로 읽고(StringHttpMessageConverter) JsonParser 로 전체 DOM 을 만든 뒤 값을 찾는 기존 방식
+ * streaming : JsonFieldExtractor 로 stream 에서 필요한 값만 읽는 방식
+ *
+ * ./gradlew jmh -PjmhArgs='ResponseReadBenchmark -prof gc'
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseReadBenchmark {
+
+    private static final JsonFieldExtractor SECRET_NAME = JsonFieldExtractor.of("/secrets/0/name");
+
+    private static final JsonFieldExtractor NAMESPACE_PHASE = JsonFieldExtractor.of("/status/phase");
+
+    private byte[] serviceAccount;
+
+    private byte[] namespace;
+
+    @Setup
+    public void setUp() {
+        StringBuilder managedFields = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            managedFields.append(i == 0 ? "" : ",")
+                    .append("{\"manager\":\"kube-controller-manager-").append(i).append("\",\"operation\":\"Update\",\"apiVersion\":\"v1\",")
+                    .append("\"time\":\"2026-10-18T00:00:00Z\",\"fieldsType\":\"FieldsV1\",\"fieldsV1\":{\"f:metadata\":{\"f:labels\":{\".\":{},\"f:kubernetes.io/metadata.name\":{}}},\"f:secrets\":{\".\":{},\"k:{\\\"name\\\":\\\"token\\\"}\":{}}}}");
+        }
+
+        serviceAccount = ("{\"kind\":\"ServiceAccount\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"org-dummy-admin\",\"namespace\":\"paas-test-caas\","
+                + "\"uid\":\"b4dc88ba-9c98-11e8-8917-005056900b9f\",\"resourceVersion\":\"4540178\",\"creationTimestamp\":\"2026-10-18T00:00:00Z\","
+                + "\"managedFields\":[" + managedFields + "]},"
+                + "\"secrets\":[{\"name\":\"org-dummy-admin-token-qwert\"}]}").getBytes(StandardCharsets.UTF_8);
+
+        namespace = ("{\"kind\":\"Namespace\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"paas-test-caas\",\"uid\":\"b4dc88ba-9c98-11e8-8917-005056900b9f\","
+                + "\"resourceVersion\":\"4540178\",\"creationTimestamp\":\"2026-10-18T00:00:00Z\",\"labels\":{\"kubernetes.io/metadata.name\":\"paas-test-caas\"},"
+                + "\"managedFields\":[" + managedFields + "]},"
+                + "\"spec\":{\"finalizers\":[\"kubernetes\"]},\"status\":{\"phase\":\"Active\"}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String tokenStringDom() throws IOException {
+        String body = StreamUtils.copyToString(new ByteArrayInputStream(serviceAccount), StandardCharsets.UTF_8);
+        JsonElement element = new JsonParser().parse(body);
+        return element.getAsJsonObject().get("secrets").getAsJsonArray().get(0).getAsJsonObject().get("name").getAsString();
+    }
+
+    @Benchmark
+    public String tokenStreaming() throws IOException {
+        Map<String, String> values = SECRET_NAME.extract(new ByteArrayInputStream(serviceAccount));
+        return values.get("/secrets/0/name");
+    }
+
+    @Benchmark
+    public String namespacePhaseStringDom() throws IOException {
+        String body = StreamUtils.copyToString(new ByteArrayInputStream(namespace), StandardCharsets.UTF_8);
+        JsonElement element = new JsonParser().parse(body);
+        return element.getAsJsonObject().get("status").getAsJsonObject().get("phase").getAsString();
+    }
+
+    @Benchmark
+    public String namespacePhaseStreaming() throws IOException {
+        Map<String, String> values = NAMESPACE_PHASE.extract(new ByteArrayInputStream(namespace));
+        return values.get("/status/phase");
+    }
+}
@@ -0,0 +1,167 @@
+package org.openpaas.servicebroker.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpaas.servicebroker.container.platform.model.Constants;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.repo.JpaServiceInstanceRepository;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * 사용자 포탈 서비스 생성시 organization 중복 확인 조회 비교 (H2 in-memory, service_instance 100,000 건)
+ * listAndCount : 목록을 entity 로 읽은 뒤 size() 확인 (기존)
+ * exists : exists 조회
+ * indexed=false 는 service_instance 의 secondary index 를 삭제한 상태 (ddl-auto 로 생성된 기존 테이블)
+ *
+ * ./gradlew jmh -PjmhArgs='ServiceInstanceRepositoryBenchmark'
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceInstanceRepositoryBenchmark {
+
+    private static final int INSTANCES = 100_000;
+
+    @Param({ "true", "false" })
+    private boolean indexed;
+
+    // 이미 서비스 인스턴스가 있는 organization / 처음 생성하는 organization
+    @Param({ "org-50000", "org-new" })
+    private String organizationGuid;
+
+    private AnnotationConfigApplicationContext context;
+
+    private JpaServiceInstanceRepository instanceRepository;
+
+    private ListingRepository listingRepository;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new AnnotationConfigApplicationContext(RepositoryConfig.class);
+        instanceRepository = context.getBean(JpaServiceInstanceRepository.class);
+        listingRepository = context.getBean(ListingRepository.class);
+
+        try (Connection connection = context.getBean(DataSource.class).getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement("insert into service_instance "
+                    + "(service_instance_id, service_definition_id, plan_id, organization_guid, space_guid, caas_namespace, dashboard_type) "
+                    + "values (?, 'service-definition-id', 'plan-id', ?, ?, ?, ?)")) {
+                for (int i = 0; i < INSTANCES; i++) {
+                    insert.setString(1, "instance-" + i);
+                    insert.setString(2, "org-" + i);
+                    insert.setString(3, "space-" + i);
+                    insert.setString(4, "paas-instance-" + i + "-caas");
+                    insert.setString(5, Constants.CONTAINER_PLATFORM_USER_PORTAL);
+                    insert.addBatch();
+                    if (i % 1000 == 999) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            if (!indexed) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("drop index idx_service_instance_org_dashboard");
+                    statement.execute("drop index idx_service_instance_namespace");
+                    statement.execute("drop index idx_service_instance_dashboard_type");
+                }
+            }
+            connection.commit();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean listAndCount() {
+        return listingRepository.findAllByOrganizationGuidAndDashboardType(organizationGuid, Constants.CONTAINER_PLATFORM_USER_PORTAL).size() > 0;
+    }
+
+    @Benchmark
+    public boolean exists() {
+        return instanceRepository.existsByOrganizationGuidAndDashboardType(organizationGuid, Constants.CONTAINER_PLATFORM_USER_PORTAL);
+    }
+
+    @Benchmark
+    public boolean existsByCaasNamespace() {
+        return instanceRepository.existsByCaasNamespace("paas-instance-50000-caas");
+    }
+
+    /**
+     * 기존 조회 방식 비교용
+     */
+    public interface ListingRepository extends JpaRepository<JpaServiceInstance, String> {
+        List<JpaServiceInstance> findAllByOrganizationGuidAndDashboardType(String organizationGuid, String dashboardType);
+    }
+
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = { JpaServiceInstanceRepository.class, ServiceInstanceRepositoryBenchmark.class }, considerNestedRepositories = true)
+    static class RepositoryConfig {
+
+        @Bean
+        public DataSource dataSource() {
+            // 운영과 같이 flyway migration (db/migration) 으로 schema 를 만든다.
+            DataSource dataSource = JdbcConnectionPool.create("jdbc:h2:mem:broker;DB_CLOSE_DELAY=-1;MODE=MySQL", "sa", "");
+            Flyway.configure().dataSource(dataSource).cleanDisabled(false).load().clean();
+            Flyway.configure().dataSource(dataSource).load().migrate();
+            return dataSource;
+        }
+
+        @Bean
+        public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            // spring boot 와 같은 naming 을 사용한다. (organizationGuid -> organization_guid)
+            Properties properties = new Properties();
+            properties.put("hibernate.hbm2ddl.auto", "validate");
+            properties.put("hibernate.physical_naming_strategy", "org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy");
+            properties.put("hibernate.implicit_naming_strategy", "org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy");
+
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setPackagesToScan(JpaServiceInstance.class.getPackage().getName());
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setJpaProperties(properties);
+            return factory;
+        }
+
+        @Bean
+        public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+    }
+}
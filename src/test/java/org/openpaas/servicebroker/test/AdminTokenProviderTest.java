@@ -0,0 +1,51 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openpaas.servicebroker.container.platform.model.Constants;
+import org.openpaas.servicebroker.container.platform.model.JpaAdminToken;
+import org.openpaas.servicebroker.container.platform.repo.JpaAdminTokenRepository;
+import org.openpaas.servicebroker.container.platform.service.AdminTokenProvider;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AdminTokenProviderTest {
+
+    @Mock
+    JpaAdminTokenRepository adminTokenRepository;
+
+    @InjectMocks
+    AdminTokenProvider adminTokenProvider;
+
+    @Test
+    public void testGetTokenReadsDatabaseOnce() {
+        when(adminTokenRepository.findById(Constants.TOKEN_KEY)).thenReturn(Optional.of(new JpaAdminToken("token-1")));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("token-1", adminTokenProvider.getToken());
+        }
+
+        verify(adminTokenRepository, times(1)).findById(Constants.TOKEN_KEY);
+    }
+
+    @Test
+    public void testRefreshOnUnauthorized() {
+        when(adminTokenRepository.findById(Constants.TOKEN_KEY)).thenReturn(Optional.of(new JpaAdminToken("token-1")), Optional.of(new JpaAdminToken("token-2")));
+
+        String rejected = adminTokenProvider.getToken();
+        assertEquals("token-2", adminTokenProvider.refreshOnUnauthorized(rejected));
+
+        // 이미 교체된 token 으로 401 을 받은 요청은 다시 읽지 않는다.
+        assertEquals("token-2", adminTokenProvider.refreshOnUnauthorized(rejected));
+        verify(adminTokenRepository, times(2)).findById(Constants.TOKEN_KEY);
+    }
+}
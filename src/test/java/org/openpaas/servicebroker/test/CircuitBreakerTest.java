@@ -0,0 +1,146 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openpaas.servicebroker.container.platform.common.CircuitBreaker;
+import org.openpaas.servicebroker.container.platform.exception.CallNotPermittedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+public class CircuitBreakerTest {
+
+    private CircuitBreaker.Settings settings;
+
+    @Before
+    public void setUp() {
+        settings = new CircuitBreaker.Settings();
+        settings.setWindowSize(10);
+        settings.setMinimumCalls(4);
+        settings.setFailureRateThreshold(50);
+        settings.setOpenDuration(100);
+        settings.setHalfOpenCalls(2);
+        settings.setMaxConcurrent(2);
+    }
+
+    @Test
+    public void testOpensOnFailuresAndRecoversAfterHalfOpen() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("keycloak", settings, exception -> exception instanceof HttpServerErrorException);
+        AtomicInteger calls = new AtomicInteger();
+
+        // 4xx 는 대상이 정상 응답한 것이므로 실패로 집계하지 않는다.
+        for (int i = 0; i < 4; i++) {
+            call(circuitBreaker, calls, new HttpClientErrorException(HttpStatus.NOT_FOUND));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        for (int i = 0; i < 4; i++) {
+            call(circuitBreaker, calls, new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        try {
+            circuitBreaker.execute(calls::incrementAndGet);
+            fail();
+        } catch (CallNotPermittedException expected) {
+            assertEquals(8, calls.get());
+        }
+
+        Thread.sleep(150);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.execute(calls::incrementAndGet);
+        circuitBreaker.execute(calls::incrementAndGet);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testBulkheadRejectsWhenSaturated() throws Exception {
+        settings.setMaxWait(50);
+        CircuitBreaker circuitBreaker = new CircuitBreaker("cp-api", settings, exception -> true);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<?> first = executor.submit(() -> block(circuitBreaker, started, release));
+            Future<?> second = executor.submit(() -> block(circuitBreaker, started, release));
+            started.await(5, TimeUnit.SECONDS);
+            assertEquals(2, circuitBreaker.getInFlight());
+
+            try {
+                circuitBreaker.execute(() -> "rejected");
+                fail();
+            } catch (CallNotPermittedException expected) {
+                assertEquals("cp-api", expected.getDestination());
+            }
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            assertEquals(0, circuitBreaker.getInFlight());
+            assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBulkheadWaitsForFreeSlot() throws Exception {
+        settings.setMaxWait(5000);
+        CircuitBreaker circuitBreaker = new CircuitBreaker("k8s", settings, exception -> true);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            executor.submit(() -> block(circuitBreaker, started, release));
+            executor.submit(() -> block(circuitBreaker, started, release));
+            started.await(5, TimeUnit.SECONDS);
+            Future<String> waiting = executor.submit(() -> circuitBreaker.execute(() -> "waited"));
+
+            Thread.sleep(100);
+            assertFalse(waiting.isDone());
+            release.countDown();
+
+            assertEquals("waited", waiting.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void call(CircuitBreaker circuitBreaker, AtomicInteger calls, RuntimeException exception) {
+        try {
+            circuitBreaker.execute(() -> {
+                calls.incrementAndGet();
+                throw exception;
+            });
+        } catch (CallNotPermittedException e) {
+            throw e;
+        } catch (RuntimeException expected) {
+            // 대상의 오류는 그대로 전달된다.
+        }
+    }
+
+    private static String block(CircuitBreaker circuitBreaker, CountDownLatch started, CountDownLatch release) {
+        return circuitBreaker.execute(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done";
+        });
+    }
+}
@@ -2,11 +2,32 @@ package org.openpaas.servicebroker.test;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -14,17 +35,27 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.openpaas.servicebroker.container.platform.common.K8sManifest;
 import org.openpaas.servicebroker.container.platform.exception.ContainerPlatformException;
+import org.openpaas.servicebroker.container.platform.model.Constants;
 import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.service.NamespaceCache;
 import org.openpaas.servicebroker.container.platform.service.PropertyService;
 import org.openpaas.servicebroker.container.platform.service.RestTemplateService;
 import org.openpaas.servicebroker.container.platform.service.TemplateService;
 import org.openpaas.servicebroker.container.platform.service.impl.ContainerPlatformService;
 import org.openpaas.servicebroker.model.CreateServiceInstanceRequest;
+import org.openpaas.servicebroker.model.Plan;
 import org.openpaas.servicebroker.model.fixture.PlanFixture;
 import org.openpaas.servicebroker.model.fixture.RequestFixture;
 import org.paasta.servicebroker.apiplatform.common.TestConstants;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResponseExtractor;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ContainerPlatformServiceTest {
@@ -33,8 +64,6 @@ public class ContainerPlatformServiceTest {
     
     private static String token = "{\"kind\":\"ServiceAccount\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"org-dummy-testhyerin3049-admin\",\"namespace\":\"paas-test-hyerin-instance-caas\",\"selfLink\":\"/api/v1/namespaces/paas-test-hyerin-instance-caas/serviceaccounts/org-dummy-testhyerin3049-admin\",\"uid\":\"b4dc88ba-9c98-11e8-8917-005056900b9f\",\"resourceVersion\":\"4540178\",\"creationTimestamp\":\"2018-08-10T12:27:11Z\"},\"secrets\":[{\"name\":\"org_guid_001testuser001-admin-qwert\"}]}";
     
-    private Map<String, Object> model;
-    
     @Mock
     private TemplateService templateService;
 
@@ -43,12 +72,17 @@ public class ContainerPlatformServiceTest {
     
     @Mock
     RestTemplateService restTemplateService;
+
+    @Mock
+    NamespaceCache namespaceCache;
     
     @InjectMocks
     ContainerPlatformService caasService;
     
     private static JpaServiceInstance jpaServiceInstance;
 	private static CreateServiceInstanceRequest request;
+
+    private ExecutorService executor;
 	
 	@Before
 	public void setUp() throws Exception {
@@ -63,22 +97,30 @@ public class ContainerPlatformServiceTest {
 		Map<String,Object> jpaMap = new HashMap<>();
 		jpaMap.put(TestConstants.PARAM_KEY_OWNER, TestConstants.PARAM_KEY_OWNER_VALUE);
 		jpaServiceInstance.setParameters(jpaMap);
+
+		executor = Executors.newFixedThreadPool(4);
+		ReflectionTestUtils.setField(caasService, "namespaceTaskExecutor", executor);
+		ReflectionTestUtils.setField(caasService, "namespaceCreateTimeout", 10000L);
+		ReflectionTestUtils.setField(caasService, "quotaPatchRate", 100.0);
 		
 	}
 
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
     @Test
     public void testCreateNamespaceUser() throws ContainerPlatformException {
     	propertyService.setContainerPlatformUrl("hihi");
     	propertyService.setDashboardUrl("asdasdasdasd");
     	
         // 값을 세팅한다 (다른 서비스 호출한 것을 가짜로 대체한다)
-        when(templateService.convert(createNamespaceYml, model)).thenReturn(createNamespaceYml);
-        when(restTemplateService.send(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + TestConstants.JPA_CAAS_NAMESPACE, createNamespaceYml, HttpMethod.POST, String.class)).thenReturn(createNamespaceYml);
-        when(restTemplateService.send(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + TestConstants.JPA_CAAS_NAMESPACE, HttpMethod.POST, String.class)).thenReturn(createNamespaceYml);
-        
         // TODO : 책임님꼐 여쭤봐야함    값을 못 받아오는데 ㅇㅁㅇ?
         when(propertyService.getContainerPlatformUrl()).thenReturn("hohohoho");
-        when(restTemplateService.send(propertyService.getContainerPlatformUrl() + "/api/v1/namespaces/" + TestConstants.JPA_CAAS_NAMESPACE + "/serviceaccounts/" + TestConstants.JPA_ORGANIZTION_GUID + "-" +TestConstants.JPA_CAAS_ACCOUNT_NAME, HttpMethod.GET, String.class)).thenReturn(token);
+        // ServiceAccount 응답은 stream 으로 읽는다.
+        when(restTemplateService.stream(contains("/serviceaccounts/"), eq(HttpMethod.GET), any())).thenAnswer(invocation ->
+                ((ResponseExtractor<?>) invocation.getArguments()[2]).extractData(new MockClientHttpResponse(token.getBytes(StandardCharsets.UTF_8), HttpStatus.OK)));
         // 실제로 테스트할 함수를 호출한다.
         JpaServiceInstance instance = caasService.createNamespaceUser(jpaServiceInstance, PlanFixture.getPlanOne());
         
@@ -98,28 +140,52 @@ public class ContainerPlatformServiceTest {
     @Test
     public void testDeleteNamespace() {
     	
-    	// 값을 세팅한다.
-    	when(restTemplateService.send(propertyService.getContainerPlatformUrl(), createNamespaceYml, HttpMethod.DELETE, String.class)).thenReturn(createNamespaceYml);
-    	
     	// 실제로 테스트할 함수를 호출한다.
     	caasService.deleteNamespace(jpaServiceInstance.getCaasNamespace());
     	
     	// 결과 값이 맞는지 체크한다.
-    	// TODO : 결과 값이 없으면 어떻게 해야하지...?
+    	verify(restTemplateService).send(contains("/api/v1/namespaces/" + TestConstants.JPA_CAAS_NAMESPACE), eq(HttpMethod.DELETE), eq(String.class));
     }
     
+    /**
+     * 이미 삭제된 namespace (404) 는 삭제된 것으로 본다.
+     */
+    @Test
+    public void testDeleteNamespaceAlreadyDeleted() {
+        when(restTemplateService.send(contains("/api/v1/namespaces/" + TestConstants.JPA_CAAS_NAMESPACE), eq(HttpMethod.DELETE), eq(String.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        caasService.deleteNamespace(TestConstants.JPA_CAAS_NAMESPACE);
+    }
+
+    /**
+     * template 변환에 실패하면 k8s 에 요청하지 않고 ContainerPlatformException 을 던진다.
+     */
+    @Test
+    public void testCreateLimitRangeTemplateError() throws Exception {
+        ReflectionTestUtils.setField(caasService, "manifestFormat", "template");
+        when(templateService.convert(eq("instance/create_limit_range.ftl"), any())).thenThrow(new ContainerPlatformException("template error"));
+
+        try {
+            caasService.createLimitRange(TestConstants.JPA_CAAS_NAMESPACE);
+            fail("ContainerPlatformException expected");
+        } catch (ContainerPlatformException expected) {
+        }
+        verify(restTemplateService, never()).send(any(), any(), any(HttpMethod.class), eq(String.class));
+    }
+
     @Test
     public void testChangeResourceQuota() throws ContainerPlatformException {
     	
     	// 값을 세팅한다.
-    	when(templateService.convert(createNamespaceYml, model)).thenReturn(createNamespaceYml);
-    	when(restTemplateService.send(propertyService.getContainerPlatformUrl(), createNamespaceYml, HttpMethod.PUT, String.class)).thenReturn(createNamespaceYml);
+    	respondResourceQuota("4540178", "1", "1Gi", "5Gi");
+    	when(restTemplateService.sendMergePatch(contains("-resourcequota"), any(), eq(String.class))).thenReturn(createNamespaceYml);
     	
     	// 실제로 테스트할 함수를 호출한다.
     	caasService.changeResourceQuota(jpaServiceInstance.getCaasAccountName(), PlanFixture.getPlanOne());
     	
-    	// 결과 값이 맞는지 체크한다.
-    	// TODO : 결과 값이 없으면 어떻게 해야하지...?
+    	// 결과 값이 맞는지 체크한다. (spec.hard 만 resourceVersion 과 함께 patch, plan 객체는 변경하지 않음)
+    	verify(restTemplateService).sendMergePatch(contains("-resourcequota"), eq(K8sManifest.resourceQuotaPatch("4540178", "2", "2Gi", "10Gi")), eq(String.class));
     	
     }
     
@@ -127,8 +193,8 @@ public class ContainerPlatformServiceTest {
     public void testChangeResourceQuotaNull() throws ContainerPlatformException {
     	
     	// 값을 세팅한다.
-    	when(templateService.convert(createNamespaceYml, model)).thenReturn(createNamespaceYml);
-    	when(restTemplateService.send(propertyService.getContainerPlatformUrl(), createNamespaceYml, HttpMethod.PUT, String.class)).thenReturn(null);
+    	respondResourceQuota("4540178", "1", "1Gi", "5Gi");
+    	when(restTemplateService.sendMergePatch(contains("-resourcequota"), any(), eq(String.class))).thenReturn(null);
     	
     	// 실제로 테스트할 함수를 호출한다.
     	caasService.changeResourceQuota(jpaServiceInstance.getCaasAccountName(), PlanFixture.getPlanOne());
@@ -138,5 +204,185 @@ public class ContainerPlatformServiceTest {
     	
     }
 
-}
+    @Test
+    public void testCreateCpNamespaceRunsStepsConcurrently() throws Exception {
+        jpaServiceInstance.setCaasNamespace(null);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        doAnswer(invocation -> {
+            String url = (String) invocation.getArguments()[0];
+            if (url.endsWith("/api/v1/namespaces")) {
+                return null;
+            }
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(200);
+            running.decrementAndGet();
+            return null;
+        }).when(restTemplateService).sendJson(any(), any(), eq(HttpMethod.POST), eq(String.class));
+
+        String result = caasService.createCpNamespace(jpaServiceInstance, PlanFixture.getPlanOne());
+
+        assertEquals(Constants.RESULT_STATUS_SUCCESS, result);
+        assertEquals("paas-" + TestConstants.SV_INSTANCE_ID_001.toLowerCase() + "-caas", jpaServiceInstance.getCaasNamespace());
+        assertTrue("sub-resource creates were not issued concurrently", maxRunning.get() > 1);
+        verify(restTemplateService, never()).send(any(), eq(HttpMethod.DELETE), eq(String.class));
+    }
+
+    @Test
+    public void testCreateCpNamespaceRollbackOnPartialFailure() throws Exception {
+        jpaServiceInstance.setCaasNamespace(null);
+
+        doAnswer(invocation -> {
+            String url = (String) invocation.getArguments()[0];
+            if (url.endsWith("/limitranges")) {
+                throw new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+            return null;
+        }).when(restTemplateService).sendJson(any(), any(), eq(HttpMethod.POST), eq(String.class));
+
+        String result = caasService.createCpNamespace(jpaServiceInstance, PlanFixture.getPlanOne());
+
+        assertEquals(Constants.RESULT_STATUS_FAIL, result);
+        assertNull(jpaServiceInstance.getCaasNamespace());
+        verify(restTemplateService).send(contains("/api/v1/namespaces/paas-"), eq(HttpMethod.DELETE), eq(String.class));
+    }
+
+    /**
+     * 제한 시간이 지난 단계가 rollback(namespace 삭제) 중에도 실행 중인 경우,
+     * 실행 중인 단계는 interrupt 되고 대기 중이던 단계는 rollback 이후에도 실행되지 않는다.
+     */
+    @Test
+    public void testCreateCpNamespaceCancelsTimedOutSteps() throws Exception {
+        executor.shutdownNow();
+        executor = Executors.newSingleThreadExecutor();
+        ReflectionTestUtils.setField(caasService, "namespaceTaskExecutor", executor);
+        ReflectionTestUtils.setField(caasService, "namespaceCreateTimeout", 200L);
+        jpaServiceInstance.setCaasNamespace(null);
+
+        // resourcequota 요청은 (socket read 와 같이 interrupt 로 중단되지 않고) rollback 이 끝날 때까지 응답하지 않는다.
+        CountDownLatch rolledBack = new CountDownLatch(1);
+        AtomicBoolean inFlightDuringRollback = new AtomicBoolean();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean inFlight = new AtomicBoolean();
+        doAnswer(invocation -> {
+            String url = (String) invocation.getArguments()[0];
+            if (url.endsWith("/resourcequotas")) {
+                inFlight.set(true);
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (rolledBack.getCount() > 0 && System.nanoTime() < deadline) {
+                    Thread.yield();
+                }
+                interrupted.set(Thread.currentThread().isInterrupted());
+                inFlight.set(false);
+            }
+            return null;
+        }).when(restTemplateService).sendJson(any(), any(), eq(HttpMethod.POST), eq(String.class));
+        when(restTemplateService.send(contains("/api/v1/namespaces/paas-"), eq(HttpMethod.DELETE), eq(String.class))).thenAnswer(invocation -> {
+            inFlightDuringRollback.set(inFlight.get());
+            rolledBack.countDown();
+            return null;
+        });
+
+        String result = caasService.createCpNamespace(jpaServiceInstance, PlanFixture.getPlanOne());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(Constants.RESULT_STATUS_FAIL, result);
+        assertTrue(inFlightDuringRollback.get());
+        assertTrue(interrupted.get());
+        verify(restTemplateService, never()).sendJson(contains("/limitranges"), any(), eq(HttpMethod.POST), eq(String.class));
+        verify(restTemplateService, never()).sendJson(contains("/roles"), any(), eq(HttpMethod.POST), eq(String.class));
+    }
+
+    @Test
+    public void testExistsNamespaceFromSyncedCache() {
+        String namespace = "paas-" + TestConstants.SV_INSTANCE_ID_001.toLowerCase() + "-caas";
+        when(namespaceCache.isSynced()).thenReturn(true);
+        when(namespaceCache.isManaged(namespace)).thenReturn(true);
+        when(namespaceCache.contains(namespace)).thenReturn(false);
+
+        assertFalse(caasService.existsNamespace(namespace));
+        verify(restTemplateService, never()).send(any(), any(), eq(String.class));
+    }
+
+    @Test
+    public void testChangeResourceQuotaRetriesOnConflict() {
+        AtomicInteger reads = new AtomicInteger();
+        doAnswer(invocation -> {
+            String quota = reads.incrementAndGet() == 1 ? resourceQuota("100", "1", "1Gi", "5Gi") : resourceQuota("101", "1", "1Gi", "5Gi");
+            return ((ResponseExtractor<?>) invocation.getArguments()[2]).extractData(new MockClientHttpResponse(quota.getBytes(StandardCharsets.UTF_8), HttpStatus.OK));
+        }).when(restTemplateService).stream(contains("/resourcequotas/"), eq(HttpMethod.GET), any());
+        when(restTemplateService.sendMergePatch(any(), eq(K8sManifest.resourceQuotaPatch("100", "2", "2Gi", "10Gi")), eq(String.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.CONFLICT, "Conflict", null, null, null));
+        ReflectionTestUtils.setField(caasService, "quotaMaxConflictRetries", 3);
+
+        caasService.changeResourceQuota(TestConstants.JPA_CAAS_NAMESPACE, PlanFixture.getPlanOne());
+
+        verify(restTemplateService).sendMergePatch(any(), eq(K8sManifest.resourceQuotaPatch("101", "2", "2Gi", "10Gi")), eq(String.class));
+    }
 
+    @Test
+    public void testChangeResourceQuotasSkipsAppliedAndReportsFailures() {
+        doAnswer(invocation -> {
+            String url = (String) invocation.getArguments()[0];
+            if (url.contains("paas-missing-caas")) {
+                throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null);
+            }
+            String quota = url.contains("paas-applied-caas") ? resourceQuota("7", "2", "2Gi", "10Gi") : resourceQuota("7", "1", "1Gi", "5Gi");
+            return ((ResponseExtractor<?>) invocation.getArguments()[2]).extractData(new MockClientHttpResponse(quota.getBytes(StandardCharsets.UTF_8), HttpStatus.OK));
+        }).when(restTemplateService).stream(contains("/resourcequotas/"), eq(HttpMethod.GET), any());
+
+        Map<String, Plan> plans = new LinkedHashMap<>();
+        plans.put("paas-applied-caas", PlanFixture.getPlanOne());
+        plans.put("paas-changed-caas", PlanFixture.getPlanOne());
+        plans.put("paas-missing-caas", PlanFixture.getPlanOne());
+
+        Map<String, String> results = caasService.changeResourceQuotas(plans);
+
+        assertEquals(Constants.RESULT_STATUS_SUCCESS, results.get("paas-applied-caas"));
+        assertEquals(Constants.RESULT_STATUS_SUCCESS, results.get("paas-changed-caas"));
+        assertEquals(Constants.RESULT_STATUS_FAIL, results.get("paas-missing-caas"));
+        verify(restTemplateService).sendMergePatch(contains("paas-changed-caas"), any(), eq(String.class));
+        verify(restTemplateService, never()).sendMergePatch(contains("paas-applied-caas"), any(), eq(String.class));
+    }
+
+    /**
+     * 요청 간격은 호출한 thread 에서 대기하므로 namespaceTaskExecutor 의 worker 는 rate limit 으로 대기하지 않는다.
+     */
+    @Test
+    public void testChangeResourceQuotasWaitsOnCallerThread() {
+        AtomicLong maxTaskNanos = new AtomicLong();
+        ReflectionTestUtils.setField(caasService, "namespaceTaskExecutor", (Executor) command -> executor.execute(() -> {
+            long start = System.nanoTime();
+            command.run();
+            maxTaskNanos.accumulateAndGet(System.nanoTime() - start, Math::max);
+        }));
+        ReflectionTestUtils.setField(caasService, "quotaPatchRate", 5.0);
+        respondResourceQuota("7", "2", "2Gi", "10Gi");
+
+        Map<String, Plan> plans = new LinkedHashMap<>();
+        plans.put("paas-a-caas", PlanFixture.getPlanOne());
+        plans.put("paas-b-caas", PlanFixture.getPlanOne());
+        plans.put("paas-c-caas", PlanFixture.getPlanOne());
+
+        long start = System.nanoTime();
+        Map<String, String> results = caasService.changeResourceQuotas(plans);
+
+        assertEquals(3, results.size());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 350);
+        assertTrue("task took " + TimeUnit.NANOSECONDS.toMillis(maxTaskNanos.get()) + " ms", TimeUnit.NANOSECONDS.toMillis(maxTaskNanos.get()) < 150);
+    }
+
+    private void respondResourceQuota(String resourceVersion, String cpu, String memory, String storage) {
+        String quota = resourceQuota(resourceVersion, cpu, memory, storage);
+        when(restTemplateService.stream(contains("/resourcequotas/"), eq(HttpMethod.GET), any())).thenAnswer(invocation ->
+                ((ResponseExtractor<?>) invocation.getArguments()[2]).extractData(new MockClientHttpResponse(quota.getBytes(StandardCharsets.UTF_8), HttpStatus.OK)));
+    }
+
+    private static String resourceQuota(String resourceVersion, String cpu, String memory, String storage) {
+        return "{\"kind\":\"ResourceQuota\",\"metadata\":{\"resourceVersion\":\"" + resourceVersion + "\"},"
+                + "\"spec\":{\"hard\":{\"limits.cpu\":\"" + cpu + "\",\"limits.memory\":\"" + memory + "\",\"requests.storage\":\"" + storage + "\"}},"
+                + "\"status\":{\"hard\":{\"limits.cpu\":\"" + cpu + "\",\"limits.memory\":\"" + memory + "\",\"requests.storage\":\"" + storage + "\"}}}";
+    }
+}
@@ -0,0 +1,103 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openpaas.servicebroker.container.platform.service.impl.IdempotencyService;
+import org.openpaas.servicebroker.exception.ServiceBrokerException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class IdempotencyServiceTest {
+
+    private static final String PUT_KEY = IdempotencyService.key("instance-id", "PUT", "service-id,plan-id");
+
+    private IdempotencyService idempotencyService;
+    private AtomicInteger calls;
+
+    @Before
+    public void setUp() {
+        idempotencyService = new IdempotencyService();
+        ReflectionTestUtils.setField(idempotencyService, "enabled", true);
+        ReflectionTestUtils.setField(idempotencyService, "ttl", 60000L);
+        idempotencyService.init();
+        calls = new AtomicInteger();
+    }
+
+    /**
+     * 성공한 생성 요청과 같은 요청은 다시 처리하지 않고 200 OK 로 응답한다.
+     */
+    @Test
+    public void duplicateRequest_ReplaysStoredResponse() throws Exception {
+        idempotencyService.execute(PUT_KEY, () -> respond(HttpStatus.CREATED));
+
+        ResponseEntity<?> response = idempotencyService.execute(PUT_KEY, () -> respond(HttpStatus.CREATED));
+
+        assertEquals(1, calls.get());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("{}", response.getBody());
+    }
+
+    /**
+     * 처리 중인 요청과 같은 요청은 처리 중인 요청의 결과로 응답한다.
+     */
+    @Test
+    public void inFlightDuplicate_AttachesToRunningRequest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ResponseEntity<String> accepted = new ResponseEntity<>("{\"operation\":\"operation-id\"}", HttpStatus.ACCEPTED);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<?>> first = executor.submit(() -> idempotencyService.execute(PUT_KEY, () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                release.await();
+                return accepted;
+            }));
+            started.await(5, TimeUnit.SECONDS);
+            Future<ResponseEntity<?>> duplicate = executor.submit(() -> idempotencyService.execute(PUT_KEY, () -> respond(HttpStatus.ACCEPTED)));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertSame(accepted, first.get(5, TimeUnit.SECONDS));
+            assertSame(accepted, duplicate.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 실패한 요청은 보관하지 않으므로 다시 요청하면 새로 처리한다.
+     */
+    @Test
+    public void failedRequest_IsNotStored() throws Exception {
+        try {
+            idempotencyService.execute(PUT_KEY, () -> {
+                calls.incrementAndGet();
+                throw new ServiceBrokerException("failed");
+            });
+        } catch (ServiceBrokerException expected) {
+        }
+
+        idempotencyService.execute(PUT_KEY, () -> respond(HttpStatus.CREATED));
+
+        assertEquals(2, calls.get());
+    }
+
+    private ResponseEntity<?> respond(HttpStatus status) {
+        calls.incrementAndGet();
+        return new ResponseEntity<>("{}", status);
+    }
+}
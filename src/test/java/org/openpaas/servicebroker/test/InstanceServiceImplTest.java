@@ -3,32 +3,57 @@ package org.openpaas.servicebroker.test;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.openpaas.servicebroker.container.platform.common.CommonStatusCode;
+import org.openpaas.servicebroker.container.platform.model.Constants;
 import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.model.KeycloakUserStatus;
 import org.openpaas.servicebroker.container.platform.model.User;
+import org.openpaas.servicebroker.container.platform.repo.JpaProvisioningSagaRepository;
+import org.openpaas.servicebroker.container.platform.repo.JpaProvisioningSagaStepRepository;
 import org.openpaas.servicebroker.container.platform.repo.JpaServiceInstanceRepository;
 import org.openpaas.servicebroker.container.platform.service.PropertyService;
 import org.openpaas.servicebroker.container.platform.service.RestTemplateService;
 import org.openpaas.servicebroker.container.platform.service.impl.CatalogServiceImpl;
 import org.openpaas.servicebroker.container.platform.service.impl.InstanceServiceImpl;
 import org.openpaas.servicebroker.container.platform.service.impl.ContainerPlatformService;
+import org.openpaas.servicebroker.container.platform.service.impl.KeycloakAdminClientService;
+import org.openpaas.servicebroker.container.platform.service.impl.NamespacePool;
+import org.openpaas.servicebroker.container.platform.service.impl.OrganizationReservationService;
+import org.openpaas.servicebroker.container.platform.service.impl.ServiceInstanceCache;
+import org.openpaas.servicebroker.container.platform.service.impl.ProvisioningSagaService;
+import org.openpaas.servicebroker.container.platform.service.impl.ProvisioningSteps;
 import org.openpaas.servicebroker.container.platform.service.impl.UserService;
 import org.openpaas.servicebroker.exception.ServiceBrokerException;
 import org.openpaas.servicebroker.exception.ServiceInstanceExistsException;
 import org.openpaas.servicebroker.model.CreateServiceInstanceRequest;
 import org.openpaas.servicebroker.model.DeleteServiceInstanceRequest;
 import org.openpaas.servicebroker.model.Plan;
+import org.openpaas.servicebroker.model.ServiceDefinition;
 import org.openpaas.servicebroker.model.ServiceInstance;
 import org.openpaas.servicebroker.model.UpdateServiceInstanceRequest;
 import org.openpaas.servicebroker.model.fixture.PlanFixture;
@@ -37,7 +62,11 @@ import org.openpaas.servicebroker.model.fixture.ServiceFixture;
 import org.paasta.servicebroker.apiplatform.common.TestConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.HttpStatusCodeException;
 
 
@@ -63,6 +92,18 @@ public class InstanceServiceImplTest {
     
     @Mock
     RestTemplateService restTemplateService;
+
+    @Mock
+    KeycloakAdminClientService keycloakAdminClientService;
+
+    @Mock
+    JpaProvisioningSagaRepository sagaRepository;
+
+    @Mock
+    JpaProvisioningSagaStepRepository sagaStepRepository;
+
+    @Mock
+    OrganizationReservationService organizationReservationService;
     
     @InjectMocks
     InstanceServiceImpl serviceInstance;
@@ -98,6 +139,26 @@ public class InstanceServiceImplTest {
         jpaServiceInstanceDef = new JpaServiceInstance(RequestFixture.getCreateServiceInstanceRequest2());
         
         plan = new Plan("test", "Micro", "Test-desc");
+
+        ServiceInstanceCache serviceInstanceCache = new ServiceInstanceCache();
+        ReflectionTestUtils.setField(serviceInstanceCache, "instanceRepository", instanceRepository);
+        ReflectionTestUtils.setField(serviceInstance, "serviceInstanceCache", serviceInstanceCache);
+
+        ProvisioningSteps provisioningSteps = new ProvisioningSteps();
+        ReflectionTestUtils.setField(provisioningSteps, "containerPlatformService", caasService);
+        ReflectionTestUtils.setField(provisioningSteps, "namespacePool", mock(NamespacePool.class));
+        ReflectionTestUtils.setField(provisioningSteps, "keycloakAdminClientService", keycloakAdminClientService);
+        ReflectionTestUtils.setField(provisioningSteps, "instanceRepository", instanceRepository);
+        ReflectionTestUtils.setField(provisioningSteps, "userService", userService);
+        ReflectionTestUtils.setField(provisioningSteps, "propertyService", propertyService);
+
+        ProvisioningSagaService provisioningSagaService = new ProvisioningSagaService();
+        ReflectionTestUtils.setField(provisioningSagaService, "sagaRepository", sagaRepository);
+        ReflectionTestUtils.setField(provisioningSagaService, "stepRepository", sagaStepRepository);
+        ReflectionTestUtils.setField(provisioningSagaService, "provisioningSteps", provisioningSteps);
+        ReflectionTestUtils.setField(provisioningSagaService, "provisioningTaskExecutor", new SyncTaskExecutor());
+        ReflectionTestUtils.setField(provisioningSagaService, "owner", "test-broker");
+        ReflectionTestUtils.setField(serviceInstance, "provisioningSagaService", provisioningSagaService);
         
     }
     
@@ -470,6 +531,142 @@ public class InstanceServiceImplTest {
     }
     
 
+    /**
+     * 사용자 포탈 namespace 의 ResourceQuota 를 저장된 plan 으로 일괄 변경한다. plan 을 찾을 수 없는 인스턴스는 실패로 응답한다.
+     */
+    @Test
+    public void testReconcileResourceQuotas() throws Exception {
+        JpaServiceInstance unknownPlan = new JpaServiceInstance(new UpdateServiceInstanceRequest("unknown-plan", jpaServiceInstance.getServiceDefinitionId())
+                .withInstanceId(TestConstants.SV_INSTANCE_ID_002));
+        unknownPlan.setCaasNamespace("paas-unknown-plan-caas");
+        when(instanceRepository.findAllByDashboardType(Constants.CONTAINER_PLATFORM_USER_PORTAL)).thenReturn(Arrays.asList(jpaServiceInstance, unknownPlan));
+        when(catalog.getServiceDefinition(jpaServiceInstance.getServiceDefinitionId())).thenReturn(ServiceFixture.getService());
+        when(caasService.changeResourceQuotas(any())).thenAnswer(invocation -> {
+            Map<String, String> results = new LinkedHashMap<>();
+            for (Object namespace : ((Map<?, ?>) invocation.getArguments()[0]).keySet()) {
+                results.put((String) namespace, Constants.RESULT_STATUS_SUCCESS);
+            }
+            return results;
+        });
+
+        Map<String, String> results = serviceInstance.reconcileResourceQuotas();
+
+        assertEquals(Constants.RESULT_STATUS_SUCCESS, results.get(jpaServiceInstance.getCaasNamespace()));
+        assertEquals(Constants.RESULT_STATUS_FAIL, results.get("paas-unknown-plan-caas"));
+    }
+
+    /**
+     * 사용자 포탈 삭제는 DB 에서 읽은 service instance 로 namespace, cp 계정, organization 예약을 정리한 뒤 row 를 삭제한다. (cache 에 보관된 값은 사용하지 않음)
+     */
+    @Test
+    public void testDeleteUserPortalDeletesRowAfterCleanup() throws Exception {
+        JpaServiceInstance stored = userPortalInstance();
+        when(instanceRepository.findByServiceInstanceId(delRequest.getServiceInstanceId())).thenReturn(stored);
+
+        serviceInstance.deleteServiceInstance(delRequest);
+
+        InOrder inOrder = inOrder(instanceRepository, caasService, userService, organizationReservationService);
+        inOrder.verify(instanceRepository).findByServiceInstanceId(delRequest.getServiceInstanceId());
+        inOrder.verify(caasService).deleteNamespace("paas-pool-a-caas");
+        inOrder.verify(userService).deleteCpUser(Constants.CONTAINER_PLATFORM_USER_PORTAL, "paas-pool-a-caas");
+        inOrder.verify(organizationReservationService).release(stored.getOrganizationGuid(), stored.getServiceInstanceId());
+        inOrder.verify(instanceRepository).delete(stored);
+    }
+
+    /**
+     * namespace 삭제가 실패하면 row 를 남겨 두어 재요청이 저장된 namespace(pool namespace 포함)와 cp 계정, organization 예약을 정리할 수 있게 한다.
+     */
+    @Test
+    public void testDeleteUserPortalKeepsRowWhenNamespaceDeleteFails() throws Exception {
+        JpaServiceInstance stored = userPortalInstance();
+        when(instanceRepository.findByServiceInstanceId(delRequest.getServiceInstanceId())).thenReturn(stored);
+        doThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)).doNothing().when(caasService).deleteNamespace("paas-pool-a-caas");
+
+        try {
+            serviceInstance.deleteServiceInstance(delRequest);
+            fail("HttpServerErrorException expected");
+        } catch (HttpServerErrorException expected) {
+        }
+        verify(instanceRepository, never()).delete(any(JpaServiceInstance.class));
+
+        serviceInstance.deleteServiceInstance(delRequest);
+
+        verify(caasService, times(2)).deleteNamespace("paas-pool-a-caas");
+        verify(userService).deleteCpUser(Constants.CONTAINER_PLATFORM_USER_PORTAL, "paas-pool-a-caas");
+        verify(organizationReservationService).release(stored.getOrganizationGuid(), stored.getServiceInstanceId());
+        verify(instanceRepository).delete(stored);
+    }
+
+    private JpaServiceInstance userPortalInstance() throws ServiceBrokerException {
+        JpaServiceInstance stored = new JpaServiceInstance(userPortalRequest());
+        stored.setCaasNamespace("paas-pool-a-caas");
+        stored.setDashboardType(Constants.CONTAINER_PLATFORM_USER_PORTAL);
+        stored.setVersion(3L);
+        return stored;
+    }
+
+    /**
+     * namespace 는 생성되었지만 keycloak 계정 생성이 실패한 경우 namespace 를 삭제한다.
+     */
+    @Test
+    public void testCreateUserPortalRollsBackNamespaceWhenKeycloakFails() throws Exception {
+        CreateServiceInstanceRequest userPortalRequest = userPortalRequest();
+        when(keycloakAdminClientService.createKeycloakUser("portal-user", Constants.AUTH_NAMESPACE_ADMIN))
+                .thenReturn(new KeycloakUserStatus(Constants.RESULT_STATUS_FAIL, null));
+        when(caasService.createCpNamespace(any(JpaServiceInstance.class), any(Plan.class), any(ContainerPlatformService.StepListener.class))).thenAnswer(invocation -> {
+            ((JpaServiceInstance) invocation.getArguments()[0]).setCaasNamespace("paas-portal-instance-caas");
+            return Constants.RESULT_STATUS_SUCCESS;
+        });
+
+        try {
+            serviceInstance.createServiceInstance(userPortalRequest);
+            fail("ServiceBrokerException expected");
+        } catch (ServiceBrokerException e) {
+            assertEquals("Failed to register Single Sign-On user account.", e.getMessage());
+        }
+
+        verify(caasService).deleteNamespace("paas-portal-instance-caas");
+        verify(keycloakAdminClientService, never()).deleteKeycloakUser(any(String.class));
+    }
+
+    /**
+     * keycloak 계정은 생성되었지만 namespace 생성이 실패한 경우 keycloak 계정을 삭제한다.
+     */
+    @Test
+    public void testCreateUserPortalRollsBackKeycloakUserWhenNamespaceFails() throws Exception {
+        CreateServiceInstanceRequest userPortalRequest = userPortalRequest();
+        when(keycloakAdminClientService.createKeycloakUser("portal-user", Constants.AUTH_NAMESPACE_ADMIN))
+                .thenReturn(new KeycloakUserStatus(CommonStatusCode.CREATED.getCode(), "keycloak-user-id"));
+        when(caasService.createCpNamespace(any(JpaServiceInstance.class), any(Plan.class), any(ContainerPlatformService.StepListener.class))).thenThrow(new IllegalStateException("apiserver down"));
+
+        try {
+            serviceInstance.createServiceInstance(userPortalRequest);
+            fail("ServiceBrokerException expected");
+        } catch (ServiceBrokerException e) {
+            assertEquals("Failed to create user portal service instance ..Please check your broker DB or common DB!", e.getMessage());
+        }
+
+        verify(keycloakAdminClientService).deleteKeycloakUser("keycloak-user-id");
+        verify(caasService, never()).deleteNamespace(any(String.class));
+    }
+
+    private CreateServiceInstanceRequest userPortalRequest() throws ServiceBrokerException {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("owner", "portal-user");
+        parameters.put("org_name", "portal-org");
+        parameters.put("space_name", "portal-space");
+
+        ServiceDefinition serviceDefinition = new ServiceDefinition("user-portal-id", "container-platform", "user portal", true,
+                Collections.singletonList(new Plan("portal-plan-id", "Micro", "user portal plan")));
+        when(propertyService.getCpBrokerAdminId()).thenReturn("admin-portal-id");
+        when(instanceRepository.existsByOrganizationGuidAndDashboardType("portal-org-guid", Constants.CONTAINER_PLATFORM_USER_PORTAL)).thenReturn(false);
+        when(catalog.getServiceDefinition("user-portal-id")).thenReturn(serviceDefinition);
+
+        return new CreateServiceInstanceRequest("user-portal-id", "portal-plan-id", "portal-org-guid", "portal-space-guid", parameters)
+                .withServiceDefinition(serviceDefinition)
+                .withServiceInstanceId("portal-instance");
+    }
+
 }
 
 //        //PowerMockito.whenNew(JpaServiceInstance.class).withArguments(upRequest).thenReturn(jpaServiceInstance);
@@ -0,0 +1,84 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.repo.JpaServiceInstanceRepository;
+import org.openpaas.servicebroker.container.platform.service.impl.ServiceInstanceCache;
+import org.openpaas.servicebroker.model.UpdateServiceInstanceRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * service_instance 의 version (optimistic lock) 확인 (H2, flyway migration 으로 생성한 schema)
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:service-instance-version;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=validate"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class JpaServiceInstanceVersionTest {
+
+    private static final String INSTANCE_ID = "instance-id";
+
+    @Autowired
+    private JpaServiceInstanceRepository instanceRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    /**
+     * 다른 요청이 먼저 저장한 뒤 이전 version 으로 저장하면 ObjectOptimisticLockingFailureException 이 발생한다.
+     */
+    @Test
+    public void saveStaleVersion_Conflicts() {
+        entityManager.persistAndFlush(instance("plan-a", 0L));
+        entityManager.clear();
+
+        JpaServiceInstance winner = instanceRepository.findByServiceInstanceId(INSTANCE_ID);
+        winner.setPlanId("plan-b");
+        instanceRepository.saveAndFlush(winner);
+        entityManager.clear();
+        assertEquals(1L, instanceRepository.findByServiceInstanceId(INSTANCE_ID).getVersion());
+        entityManager.clear();
+
+        try {
+            instanceRepository.saveAndFlush(instance("plan-c", 0L));
+            fail("ObjectOptimisticLockingFailureException expected");
+        } catch (ObjectOptimisticLockingFailureException e) {
+            entityManager.clear();
+            assertEquals("plan-b", instanceRepository.findByServiceInstanceId(INSTANCE_ID).getPlanId());
+        }
+    }
+
+    private JpaServiceInstance instance(String planId, long version) {
+        JpaServiceInstance instance = new JpaServiceInstance(new UpdateServiceInstanceRequest(planId, "service-definition-id").withInstanceId(INSTANCE_ID));
+        instance.setCaasNamespace("paas-instance-id-caas");
+        instance.setVersion(version);
+        return instance;
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = JpaServiceInstance.class)
+    @EnableJpaRepositories(basePackageClasses = JpaServiceInstanceRepository.class)
+    // JpaServiceInstance 의 entity listener 가 사용하는 cache
+    @Import(ServiceInstanceCache.class)
+    static class RepositoryConfig {
+    }
+}
@@ -0,0 +1,53 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.Test;
+import org.openpaas.servicebroker.container.platform.common.JsonFieldExtractor;
+
+public class JsonFieldExtractorTest {
+
+    private static final String RESOURCE_QUOTA = "{\"kind\":\"ResourceQuota\",\"apiVersion\":\"v1\","
+            + "\"metadata\":{\"name\":\"paas-test-caas-resourcequota\",\"resourceVersion\":\"4540178\",\"managedFields\":[{\"manager\":\"broker\",\"fieldsV1\":{\"f:spec\":{}}}]},"
+            + "\"spec\":{\"hard\":{\"limits.cpu\":\"2\",\"limits.memory\":\"4Gi\"}},"
+            + "\"status\":{\"hard\":{\"limits.cpu\":\"2\",\"limits.memory\":\"4Gi\",\"requests.storage\":\"20Gi\"},"
+            + "\"used\":{\"limits.cpu\":\"500m\",\"limits.memory\":\"1Gi\",\"requests.storage\":\"0\"}}}";
+
+    @Test
+    public void testExtractNestedFields() throws IOException {
+        Map<String, String> values = JsonFieldExtractor.of("/metadata/resourceVersion", "/status/hard/limits.cpu", "/status/used/limits.memory")
+                .extract(stream(RESOURCE_QUOTA));
+
+        assertEquals(3, values.size());
+        assertEquals("4540178", values.get("/metadata/resourceVersion"));
+        assertEquals("2", values.get("/status/hard/limits.cpu"));
+        assertEquals("1Gi", values.get("/status/used/limits.memory"));
+    }
+
+    @Test
+    public void testExtractArrayElement() throws IOException {
+        String serviceAccount = "{\"kind\":\"ServiceAccount\",\"secrets\":[{\"name\":\"first-token\"},{\"name\":\"second-token\"}]}";
+
+        assertEquals("first-token", JsonFieldExtractor.of("/secrets/0/name").extract(stream(serviceAccount)).get("/secrets/0/name"));
+        assertEquals("second-token", JsonFieldExtractor.of("/secrets/1/name").extract(stream(serviceAccount)).get("/secrets/1/name"));
+    }
+
+    @Test
+    public void testMissingFieldAndEmptyBody() throws IOException {
+        Map<String, String> values = JsonFieldExtractor.of("/secrets/0/name", "/status/phase").extract(stream("{\"kind\":\"ServiceAccount\",\"secrets\":[]}"));
+        assertTrue(values.isEmpty());
+
+        assertFalse(JsonFieldExtractor.of("/status/phase").extract(stream("")).containsKey("/status/phase"));
+    }
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,102 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openpaas.servicebroker.container.platform.common.K8sManifest;
+import org.openpaas.servicebroker.container.platform.service.impl.TemplateServiceImpl;
+import org.yaml.snakeyaml.Yaml;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import freemarker.template.Configuration;
+
+/**
+ * K8sManifest 가 만든 JSON 이 기존 FreeMarker 템플릿(YAML)과 같은 객체를 나타내는지 확인한다.
+ */
+public class K8sManifestTest {
+
+    private static final String NAMESPACE = "paas-instance-caas";
+
+    private TemplateServiceImpl templateService;
+
+    @Before
+    public void setUp() {
+        Configuration configuration = new Configuration(Configuration.VERSION_2_3_28);
+        configuration.setClassForTemplateLoading(getClass(), "/templates");
+        templateService = new TemplateServiceImpl(configuration);
+    }
+
+    @Test
+    public void testNamespace() throws Exception {
+        assertSame("instance/create_namespace.ftl", model("name", NAMESPACE), K8sManifest.namespace(NAMESPACE));
+    }
+
+    @Test
+    public void testServiceAccount() throws Exception {
+        assertSame("instance/create_account.ftl", model("spaceName", NAMESPACE, "userName", "user-admin"),
+                K8sManifest.serviceAccount(NAMESPACE, "user-admin"));
+    }
+
+    @Test
+    public void testResourceQuota() throws Exception {
+        Map<String, Object> plan = new HashMap<>();
+        plan.put("cpu", "2");
+        plan.put("memory", "4Gi");
+        plan.put("disk", "20Gi");
+        assertSame("instance/create_resource_quota.ftl", model("quotaName", NAMESPACE + "-resourcequota", "plan", plan),
+                K8sManifest.resourceQuota(NAMESPACE + "-resourcequota", "2", "4Gi", "20Gi"));
+    }
+
+    @Test
+    public void testLimitRange() throws Exception {
+        assertSame("instance/create_limit_range.ftl", model("rangeName", NAMESPACE + "-limitrange"),
+                K8sManifest.limitRange(NAMESPACE + "-limitrange", "100m", "500Mi"));
+    }
+
+    @Test
+    public void testRoles() throws Exception {
+        assertSame("instance/create_init_role.ftl", model("spaceName", NAMESPACE, "roleName", "init-role"),
+                K8sManifest.role(NAMESPACE, "init-role", K8sManifest.INIT_ROLE_RULES));
+        assertSame("instance/create_admin_role.ftl", model("spaceName", NAMESPACE, "roleName", "admin-role"),
+                K8sManifest.role(NAMESPACE, "admin-role", K8sManifest.ADMIN_ROLE_RULES));
+        assertSame("instance/create_role.ftl", model("spaceName", NAMESPACE, "roleName", NAMESPACE + "-role"),
+                K8sManifest.role(NAMESPACE, NAMESPACE + "-role", K8sManifest.ADMIN_ROLE_RULES));
+    }
+
+    @Test
+    public void testRoleBinding() throws Exception {
+        assertSame("instance/create_roleBinding.ftl", model("spaceName", NAMESPACE, "roleName", NAMESPACE + "-role", "userName", "user-admin"),
+                K8sManifest.roleBinding(NAMESPACE, NAMESPACE + "-role-binding", NAMESPACE + "-role", "user-admin"));
+    }
+
+    @Test
+    public void testSecrets() throws Exception {
+        assertSame("privateDocker/create_private_docker_secret.ftl", model("secretName", "registry", "spaceName", NAMESPACE, "configJson", "e30="),
+                K8sManifest.dockerConfigSecret(NAMESPACE, "registry", "e30="));
+        assertSame("instance/create_secret.ftl", model("userName", "user-admin", "tokenName", "user-admin-token", "spaceName", NAMESPACE),
+                K8sManifest.serviceAccountTokenSecret(NAMESPACE, "user-admin-token", "user-admin"));
+    }
+
+    private void assertSame(String templateName, Map<String, Object> model, byte[] manifest) throws Exception {
+        Object yaml = new Yaml().load(templateService.convert(templateName, model));
+        JsonElement expected = new Gson().toJsonTree(yaml);
+        JsonElement actual = new JsonParser().parse(new String(manifest, StandardCharsets.UTF_8));
+        assertEquals(templateName, expected, actual);
+    }
+
+    private static Map<String, Object> model(Object... keyValues) {
+        Map<String, Object> model = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            model.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return model;
+    }
+}
@@ -0,0 +1,152 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openpaas.servicebroker.container.platform.service.K8sRetryPolicy;
+import org.openpaas.servicebroker.container.platform.service.K8sRetryPolicy.Operation;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+public class K8sRetryPolicyTest {
+
+    private final List<Long> sleeps = new ArrayList<>();
+
+    private K8sRetryPolicy retryPolicy;
+
+    @Before
+    public void setUp() {
+        retryPolicy = new K8sRetryPolicy() {
+            @Override
+            protected boolean sleep(long millis) {
+                sleeps.add(millis);
+                return true;
+            }
+        };
+        ReflectionTestUtils.setField(retryPolicy, "maxAttempts", 4);
+        ReflectionTestUtils.setField(retryPolicy, "initialBackoff", 200L);
+        ReflectionTestUtils.setField(retryPolicy, "maxBackoff", 5000L);
+        ReflectionTestUtils.setField(retryPolicy, "maxRetryAfter", 10000L);
+        ReflectionTestUtils.setField(retryPolicy, "budgetRatio", 0.2);
+        ReflectionTestUtils.setField(retryPolicy, "budgetMaxTokens", 20);
+        retryPolicy.init();
+    }
+
+    @Test
+    public void testTooManyRequestsHonoursRetryAfter() {
+        AtomicInteger calls = new AtomicInteger();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "2");
+
+        String result = retryPolicy.execute(HttpMethod.GET, Operation.IDEMPOTENT, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers, new byte[0], StandardCharsets.UTF_8);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        assertEquals(Long.valueOf(2000), sleeps.get(0));
+    }
+
+    @Test
+    public void testRetriedCreateTreatsAlreadyExistsAsSuccess() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = retryPolicy.execute(HttpMethod.POST, Operation.CREATE, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new ResourceAccessException("Connection reset", new ConnectException());
+            }
+            throw status(HttpStatus.CONFLICT, "AlreadyExists");
+        });
+
+        assertNull(result);
+        assertEquals(2, calls.get());
+        assertEquals(1, sleeps.size());
+    }
+
+    @Test
+    public void testFirstConflictAndClientErrorsAreNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            retryPolicy.execute(HttpMethod.POST, Operation.CREATE, () -> {
+                calls.incrementAndGet();
+                throw status(HttpStatus.CONFLICT, "AlreadyExists");
+            });
+            fail();
+        } catch (HttpClientErrorException.Conflict expected) {
+            assertEquals(1, calls.get());
+        }
+
+        try {
+            retryPolicy.execute(HttpMethod.PUT, Operation.IDEMPOTENT, () -> {
+                calls.incrementAndGet();
+                throw status(HttpStatus.UNPROCESSABLE_ENTITY, "Invalid");
+            });
+            fail();
+        } catch (HttpClientErrorException expected) {
+            assertEquals(2, calls.get());
+        }
+        assertEquals(0, sleeps.size());
+    }
+
+    @Test
+    public void testStreamReadErrorIsNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            retryPolicy.execute(HttpMethod.GET, Operation.STREAM, () -> {
+                calls.incrementAndGet();
+                throw new ResourceAccessException("Read timed out");
+            });
+            fail();
+        } catch (ResourceAccessException expected) {
+            assertEquals(1, calls.get());
+        }
+    }
+
+    @Test
+    public void testBoundedBackoffAndBudget() {
+        ReflectionTestUtils.setField(retryPolicy, "budgetMaxTokens", 4);
+        retryPolicy.init();
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                retryPolicy.execute(HttpMethod.GET, Operation.IDEMPOTENT, () -> {
+                    calls.incrementAndGet();
+                    throw HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", null, null, null);
+                });
+                fail();
+            } catch (HttpServerErrorException expected) {
+                // 재시도 후에도 실패
+            }
+        }
+
+        // 첫 요청은 최대 4번, 이후에는 budget 이 남은 만큼만 재시도한다.
+        assertEquals(4 + 2 + 1, calls.get());
+        assertEquals(4, sleeps.size());
+        assertTrue(sleeps.get(0) <= 200 && sleeps.get(1) <= 400 && sleeps.get(2) <= 800 && sleeps.get(3) <= 200);
+    }
+
+    private static HttpClientErrorException status(HttpStatus status, String reason) {
+        byte[] body = ("{\"kind\":\"Status\",\"apiVersion\":\"v1\",\"status\":\"Failure\",\"reason\":\"" + reason + "\",\"code\":" + status.value() + "}")
+                .getBytes(StandardCharsets.UTF_8);
+        return HttpClientErrorException.create(status, status.getReasonPhrase(), new HttpHeaders(), body, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,180 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.UserResource;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.PartialImportRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.openpaas.servicebroker.container.platform.common.CircuitBreaker;
+import org.openpaas.servicebroker.container.platform.common.CommonStatusCode;
+import org.openpaas.servicebroker.container.platform.model.Constants;
+import org.openpaas.servicebroker.container.platform.model.KeycloakUserStatus;
+import org.openpaas.servicebroker.container.platform.service.impl.KeycloakAdminClientService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.Response;
+
+public class KeycloakAdminClientServiceTest {
+
+    private static final String REALM = "cp-realm";
+    private static final String USER_ID = "user-id-001";
+
+    private KeycloakAdminClientService keycloakAdminClientService;
+    private RealmResource realmResource;
+    private UsersResource usersResource;
+    private UserResource userResource;
+
+    @Before
+    public void setUp() {
+        Keycloak keycloak = mock(Keycloak.class);
+        realmResource = mock(RealmResource.class);
+        usersResource = mock(UsersResource.class);
+        userResource = mock(UserResource.class);
+
+        UserRepresentation user = new UserRepresentation();
+        user.setId(USER_ID);
+        when(keycloak.realm(REALM)).thenReturn(realmResource);
+        when(realmResource.users()).thenReturn(usersResource);
+        when(usersResource.search(anyString(), eq(true))).thenReturn(Collections.singletonList(user));
+        when(usersResource.get(USER_ID)).thenReturn(userResource);
+        when(realmResource.getGroupByPath("/cp-cluster-admin")).thenReturn(group("group-id-1"));
+
+        keycloakAdminClientService = new KeycloakAdminClientService();
+        ReflectionTestUtils.setField(keycloakAdminClientService, "keycloak", keycloak);
+        ReflectionTestUtils.setField(keycloakAdminClientService, "keycloakCircuitBreaker",
+                new CircuitBreaker(Constants.DESTINATION_KEYCLOAK, new CircuitBreaker.Settings(), exception -> true));
+        ReflectionTestUtils.setField(keycloakAdminClientService, "cpRealm", REALM);
+        ReflectionTestUtils.setField(keycloakAdminClientService, "clusterAdminGroup", "cp-cluster-admin");
+        ReflectionTestUtils.setField(keycloakAdminClientService, "groupCacheTtl", 600000L);
+        ReflectionTestUtils.setField(keycloakAdminClientService, "userCacheTtl", 60000L);
+        ReflectionTestUtils.setField(keycloakAdminClientService, "importChunkSize", 2);
+        ReflectionTestUtils.setField(keycloakAdminClientService, "importRetention", 3600000L);
+        ReflectionTestUtils.setField(keycloakAdminClientService, "keycloakTaskExecutor", (Executor) Runnable::run);
+        keycloakAdminClientService.init();
+    }
+
+    @Test
+    public void testGroupIdIsResolvedOnceByPath() {
+        assertEquals(Constants.RESULT_STATUS_SUCCESS, keycloakAdminClientService.manageClusterAdminGroupToUser("user", Constants.TYPE_JOIN));
+        assertEquals(Constants.RESULT_STATUS_SUCCESS, keycloakAdminClientService.manageClusterAdminGroupToUser("user", Constants.TYPE_LEAVE));
+
+        verify(realmResource, times(1)).getGroupByPath("/cp-cluster-admin");
+        verify(realmResource, never()).groups();
+        verify(userResource).joinGroup("group-id-1");
+        verify(userResource).leaveGroup("group-id-1");
+    }
+
+    @Test
+    public void testGroupIdIsResolvedAgainOnNotFound() {
+        keycloakAdminClientService.getClusterAdminGroupId();
+        // 그룹이 다시 만들어져 id 가 바뀐 경우
+        when(realmResource.getGroupByPath("/cp-cluster-admin")).thenReturn(group("group-id-2"));
+        doThrow(new NotFoundException()).when(userResource).joinGroup("group-id-1");
+
+        assertEquals(Constants.RESULT_STATUS_SUCCESS, keycloakAdminClientService.manageClusterAdminGroupToUser("user", Constants.TYPE_JOIN));
+
+        verify(userResource).joinGroup("group-id-2");
+        assertEquals("group-id-2", keycloakAdminClientService.getClusterAdminGroupId());
+    }
+
+    @Test
+    public void testCreatedUserIdIsTakenFromLocationHeader() {
+        when(usersResource.create(any(UserRepresentation.class)))
+                .thenReturn(Response.created(URI.create("http://keycloak/admin/realms/" + REALM + "/users/new-user-id")).build());
+
+        KeycloakUserStatus keycloakUserStatus = keycloakAdminClientService.createKeycloakUser("new-user", Constants.AUTH_NAMESPACE_ADMIN);
+
+        assertEquals("201", keycloakUserStatus.getResultCode());
+        assertEquals("new-user-id", keycloakUserStatus.getUserId());
+        // 이후 단계의 조회는 keycloak 에 요청하지 않는다.
+        assertEquals("new-user-id", keycloakAdminClientService.getKeycloakUserDetails("new-user").getId());
+        verify(usersResource, never()).search(anyString(), any());
+    }
+
+    /**
+     * 대소문자가 섞인 username 으로 생성한 사용자는 keycloak 과 같이 소문자 username 으로 보관하고 조회한다.
+     */
+    @Test
+    public void testCreatedUserIsCachedWithLowercaseUsername() {
+        when(usersResource.create(any(UserRepresentation.class)))
+                .thenReturn(Response.created(URI.create("http://keycloak/admin/realms/" + REALM + "/users/new-user-id")).build());
+
+        keycloakAdminClientService.createKeycloakUser("New-User", Constants.AUTH_NAMESPACE_ADMIN);
+
+        UserRepresentation cached = keycloakAdminClientService.getKeycloakUserDetails("NEW-user");
+        assertEquals("new-user-id", cached.getId());
+        assertEquals("new-user", cached.getUsername());
+        verify(usersResource, never()).search(anyString(), any());
+    }
+
+    @Test
+    public void testImportUsersInChunksAndSkipCreateForImportedUsers() {
+        Response first = importResponse(importResult("ADDED", "user-a", "id-a"), importResult("SKIPPED", "user-b", "id-b"));
+        when(realmResource.partialImport(any(PartialImportRepresentation.class))).thenReturn(first).thenThrow(new IllegalStateException("keycloak down"));
+
+        Map<String, KeycloakUserStatus> results = keycloakAdminClientService.importKeycloakUsers(Arrays.asList("User-A", "user-b", "user-c", "user-b"), Constants.AUTH_NAMESPACE_ADMIN);
+
+        assertEquals(Arrays.asList("User-A", "user-b", "user-c"), Arrays.asList(results.keySet().toArray()));
+        assertEquals(CommonStatusCode.CREATED.getCode(), results.get("User-A").getResultCode());
+        assertEquals("id-a", results.get("User-A").getUserId());
+        assertEquals(CommonStatusCode.CONFLICT.getCode(), results.get("user-b").getResultCode());
+        assertEquals(Constants.RESULT_STATUS_FAIL, results.get("user-c").getResultCode());
+        verify(realmResource, times(2)).partialImport(any(PartialImportRepresentation.class));
+
+        // 가져온 사용자는 생성 요청을 보내지 않는다.
+        KeycloakUserStatus keycloakUserStatus = keycloakAdminClientService.createKeycloakUser("User-A", Constants.AUTH_NAMESPACE_ADMIN);
+        assertEquals(CommonStatusCode.CONFLICT.getCode(), keycloakUserStatus.getResultCode());
+        assertEquals("id-a", keycloakUserStatus.getUserId());
+        verify(usersResource, never()).create(any(UserRepresentation.class));
+    }
+
+    @SafeVarargs
+    private static Response importResponse(Map<String, Object>... importResults) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("results", Arrays.asList(importResults));
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(200);
+        when(response.readEntity(Map.class)).thenReturn(body);
+        return response;
+    }
+
+    private static Map<String, Object> importResult(String action, String username, String id) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("action", action);
+        result.put("resourceType", "USER");
+        // keycloak 은 username 을 소문자로 저장한다.
+        result.put("resourceName", username.toLowerCase());
+        result.put("id", id);
+        return result;
+    }
+
+    private static GroupRepresentation group(String id) {
+        GroupRepresentation group = new GroupRepresentation();
+        group.setId(id);
+        group.setName("cp-cluster-admin");
+        return group;
+    }
+}
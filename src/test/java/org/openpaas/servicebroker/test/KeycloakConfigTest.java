@@ -0,0 +1,109 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.net.ssl.SSLContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.openpaas.servicebroker.container.platform.common.PooledHttpClient;
+import org.openpaas.servicebroker.container.platform.config.KeycloakConfig;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 공유 Keycloak 객체가 token 을 한번만 발급받고, 만료가 가까워지면 refresh token 으로 갱신하는지 확인한다.
+ */
+public class KeycloakConfigTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private PooledHttpClient httpClient;
+    private Keycloak keycloak;
+    private final Queue<String> tokenRequests = new ConcurrentLinkedQueue<>();
+    private volatile int expiresIn = 300;
+
+    @Before
+    public void setUp() throws Exception {
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+        server.createContext("/", this::handle);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        KeycloakConfig config = new KeycloakConfig();
+        ReflectionTestUtils.setField(config, "serverUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(config, "realm", "master");
+        ReflectionTestUtils.setField(config, "grantType", "password");
+        ReflectionTestUtils.setField(config, "username", "admin");
+        ReflectionTestUtils.setField(config, "password", "admin-password");
+        ReflectionTestUtils.setField(config, "clientId", "admin-cli");
+        ReflectionTestUtils.setField(config, "minTokenValidity", 30L);
+
+        httpClient = new PooledHttpClient("keycloak", new PooledHttpClient.Settings(), SSLContext.getDefault());
+        keycloak = config.keycloak(httpClient);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        keycloak.close();
+        httpClient.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testTokenIsGrantedOnceAndReused() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(keycloak.realm("cp").users().search("user-" + i, true).isEmpty());
+        }
+
+        assertEquals(1, tokenRequests.size());
+        assertTrue(tokenRequests.peek().contains("grant_type=password"));
+        assertEquals(0, httpClient.getTotalStats().getLeased());
+    }
+
+    @Test
+    public void testTokenIsRefreshedBeforeExpiry() {
+        // min-token-validity(30초) 보다 짧게 만료되는 token 은 다음 요청 전에 갱신한다.
+        expiresIn = 10;
+        keycloak.realm("cp").users().search("first", true);
+        keycloak.realm("cp").users().search("second", true);
+
+        assertEquals(2, tokenRequests.size());
+        assertTrue(tokenRequests.toArray()[1].toString().contains("grant_type=refresh_token"));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String body;
+        if (path.endsWith("/protocol/openid-connect/token")) {
+            tokenRequests.add(StreamUtils.copyToString(exchange.getRequestBody(), StandardCharsets.UTF_8));
+            body = "{\"access_token\":\"access-" + tokenRequests.size() + "\",\"expires_in\":" + expiresIn
+                    + ",\"refresh_expires_in\":1800,\"refresh_token\":\"refresh\",\"token_type\":\"bearer\"}";
+        } else {
+            body = "[]";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
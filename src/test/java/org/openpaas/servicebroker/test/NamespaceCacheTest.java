@@ -0,0 +1,118 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openpaas.servicebroker.container.platform.service.NamespaceCache;
+import org.openpaas.servicebroker.container.platform.service.PropertyService;
+import org.openpaas.servicebroker.container.platform.service.RestTemplateService;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResponseExtractor;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NamespaceCacheTest {
+
+    private static final String FIRST_PAGE = "{\"kind\":\"NamespaceList\",\"metadata\":{\"resourceVersion\":\"100\",\"continue\":\"next-page\"},"
+            + "\"items\":[{\"metadata\":{\"name\":\"paas-instance-1-caas\",\"labels\":{\"a\":\"b\"}},\"status\":{\"phase\":\"Active\"}},"
+            + "{\"metadata\":{\"name\":\"kube-system\"}}]}";
+
+    private static final String LAST_PAGE = "{\"kind\":\"NamespaceList\",\"metadata\":{\"resourceVersion\":\"101\"},"
+            + "\"items\":[{\"metadata\":{\"name\":\"paas-instance-2-caas\"}}]}";
+
+    private static final String WATCH_EVENTS =
+            "{\"type\":\"ADDED\",\"object\":{\"kind\":\"Namespace\",\"metadata\":{\"name\":\"paas-instance-3-caas\",\"resourceVersion\":\"102\",\"creationTimestamp\":\"2026-10-18T00:00:00Z\"}}}\n"
+            + "{\"type\":\"DELETED\",\"object\":{\"kind\":\"Namespace\",\"metadata\":{\"name\":\"paas-instance-1-caas\",\"resourceVersion\":\"103\"}}}\n"
+            + "{\"type\":\"ADDED\",\"object\":{\"kind\":\"Namespace\",\"metadata\":{\"name\":\"default\",\"resourceVersion\":\"104\"}}}\n"
+            + "{\"type\":\"BOOKMARK\",\"object\":{\"kind\":\"Namespace\",\"metadata\":{\"resourceVersion\":\"110\"}}}\n";
+
+    private static final String WATCH_EXPIRED =
+            "{\"type\":\"ERROR\",\"object\":{\"kind\":\"Status\",\"status\":\"Failure\",\"message\":\"too old resource version\",\"reason\":\"Expired\",\"code\":410}}\n";
+
+    @Mock
+    RestTemplateService restTemplateService;
+
+    @Mock
+    PropertyService propertyService;
+
+    @InjectMocks
+    NamespaceCache namespaceCache;
+
+    @Before
+    public void setUp() {
+        when(propertyService.getContainerPlatformUrl()).thenReturn("https://k8s");
+        respond("limit=", FIRST_PAGE);
+        respond("continue=next-page", LAST_PAGE);
+    }
+
+    @Test
+    public void testListFiltersBrokerNamespaces() {
+        namespaceCache.list();
+
+        assertTrue(namespaceCache.contains("paas-instance-1-caas"));
+        assertTrue(namespaceCache.contains("paas-instance-2-caas"));
+        assertFalse(namespaceCache.contains("kube-system"));
+        assertFalse(namespaceCache.isSynced());
+    }
+
+    @Test
+    public void testWatchAppliesEvents() {
+        namespaceCache.list();
+        respondWatch("resourceVersion=101", WATCH_EVENTS);
+
+        namespaceCache.watch();
+
+        assertTrue(namespaceCache.isSynced());
+        assertTrue(namespaceCache.contains("paas-instance-3-caas"));
+        assertFalse(namespaceCache.contains("paas-instance-1-caas"));
+        assertFalse(namespaceCache.contains("default"));
+
+        // bookmark 의 resourceVersion 부터 다시 WATCH 한다.
+        respondWatch("resourceVersion=110", "");
+        namespaceCache.watch();
+    }
+
+    @Test
+    public void testWatchExpiredResourceVersion() {
+        namespaceCache.list();
+        respondWatch("resourceVersion=101", WATCH_EXPIRED);
+
+        try {
+            namespaceCache.watch();
+        } catch (HttpClientErrorException.Gone exception) {
+            assertEquals(HttpStatus.GONE, exception.getStatusCode());
+            return;
+        }
+        throw new AssertionError("expected 410 Gone");
+    }
+
+    private void respond(String urlPart, String body) {
+        doAnswer(invocation -> {
+            ResponseExtractor<?> extractor = (ResponseExtractor<?>) invocation.getArguments()[2];
+            return extractor.extractData(new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), HttpStatus.OK));
+        }).when(restTemplateService).stream(contains(urlPart), eq(HttpMethod.GET), any());
+    }
+
+    private void respondWatch(String urlPart, String body) {
+        doAnswer(invocation -> {
+            ResponseExtractor<?> extractor = (ResponseExtractor<?>) invocation.getArguments()[1];
+            return extractor.extractData(new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), HttpStatus.OK));
+        }).when(restTemplateService).watch(contains(urlPart), any());
+    }
+}
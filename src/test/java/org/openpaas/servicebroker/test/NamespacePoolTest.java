@@ -0,0 +1,119 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.service.PropertyService;
+import org.openpaas.servicebroker.container.platform.service.RestTemplateService;
+import org.openpaas.servicebroker.container.platform.service.impl.ContainerPlatformService;
+import org.openpaas.servicebroker.container.platform.service.impl.NamespacePool;
+import org.openpaas.servicebroker.model.Plan;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NamespacePoolTest {
+
+    private static final String AVAILABLE = "{\"kind\":\"NamespaceList\",\"items\":["
+            + "{\"metadata\":{\"name\":\"paas-pool-a-caas\",\"resourceVersion\":\"10\",\"creationTimestamp\":\"2026-10-18T00:00:00Z\"},\"status\":{\"phase\":\"Active\"}},"
+            + "{\"metadata\":{\"name\":\"paas-pool-b-caas\",\"resourceVersion\":\"11\",\"creationTimestamp\":\"2026-10-18T00:00:00Z\"},\"status\":{\"phase\":\"Active\"}}]}";
+
+    @Mock
+    RestTemplateService restTemplateService;
+
+    @Mock
+    PropertyService propertyService;
+
+    @Mock
+    ContainerPlatformService containerPlatformService;
+
+    @InjectMocks
+    NamespacePool namespacePool;
+
+    private JpaServiceInstance instance;
+    private Plan plan;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(namespacePool, "enabled", true);
+        when(propertyService.getContainerPlatformUrl()).thenReturn("https://k8s");
+        when(restTemplateService.send(eq("https://k8s/api/v1/namespaces?labelSelector=cp-broker/pool=available"), eq(HttpMethod.GET), eq(String.class)))
+                .thenReturn(AVAILABLE);
+
+        instance = new JpaServiceInstance();
+        instance.setServiceInstanceId("instance-id");
+        instance.setUserId("user-id");
+        plan = new Plan();
+    }
+
+    /**
+     * 다른 broker 가 먼저 가져간 namespace (409 Conflict) 는 건너뛰고 다음 namespace 를 할당 받는다.
+     */
+    @Test
+    public void claim_SkipsConflictedNamespace() {
+        when(restTemplateService.sendMergePatch(anyString(), any(byte[].class), eq(String.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.CONFLICT, "Conflict", HttpHeaders.EMPTY, null, null))
+                .thenReturn("{}");
+
+        assertTrue(namespacePool.claim(instance, plan, ContainerPlatformService.StepListener.NONE));
+
+        assertTrue(instance.getCaasNamespace().startsWith("paas-pool-"));
+        assertEquals("user-id", instance.getCaasAccountName());
+        verify(containerPlatformService).changeResourceQuota(instance.getCaasNamespace(), plan);
+    }
+
+    /**
+     * 모든 namespace 를 다른 broker 가 가져갔으면 할당 받지 못한다. (새로 생성)
+     */
+    @Test
+    public void claim_AllConflicted() {
+        when(restTemplateService.sendMergePatch(anyString(), any(byte[].class), eq(String.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.CONFLICT, "Conflict", HttpHeaders.EMPTY, null, null));
+
+        assertFalse(namespacePool.claim(instance, plan, ContainerPlatformService.StepListener.NONE));
+
+        verify(containerPlatformService, never()).changeResourceQuota(anyString(), any(Plan.class));
+    }
+
+    /**
+     * 응답을 받지 못해 재요청한 PATCH 가 자신의 변경 때문에 409 Conflict 를 받으면, 이미 할당 받은 namespace 로 처리한다.
+     */
+    @Test
+    public void claim_ConflictFromOwnRetriedPatch() {
+        when(restTemplateService.sendMergePatch(anyString(), any(byte[].class), eq(String.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.CONFLICT, "Conflict", HttpHeaders.EMPTY, null, null));
+        // paas-pool-a-caas 는 이 인스턴스가, paas-pool-b-caas 는 다른 broker 가 가져간 상태
+        when(restTemplateService.send(startsWith("https://k8s/api/v1/namespaces/paas-pool-"), eq(HttpMethod.GET), eq(String.class))).thenAnswer(invocation -> {
+            String url = (String) invocation.getArguments()[0];
+            return url.endsWith("paas-pool-a-caas") ? namespace("paas-pool-a-caas", "claimed", "instance-id") : namespace("paas-pool-b-caas", "claimed", "other-instance-id");
+        });
+
+        assertTrue(namespacePool.claim(instance, plan, ContainerPlatformService.StepListener.NONE));
+
+        assertEquals("paas-pool-a-caas", instance.getCaasNamespace());
+        verify(containerPlatformService).changeResourceQuota("paas-pool-a-caas", plan);
+    }
+
+    private static String namespace(String name, String pool, String serviceInstanceId) {
+        return "{\"kind\":\"Namespace\",\"metadata\":{\"name\":\"" + name + "\",\"resourceVersion\":\"12\","
+                + "\"labels\":{\"cp-broker/pool\":\"" + pool + "\",\"cp-broker/service-instance-id\":\"" + serviceInstanceId + "\"}}}";
+    }
+}
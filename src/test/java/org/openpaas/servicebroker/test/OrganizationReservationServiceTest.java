@@ -0,0 +1,92 @@
+package org.openpaas.servicebroker.test;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openpaas.servicebroker.container.platform.model.JpaOrganizationReservation;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.repo.JpaOrganizationReservationRepository;
+import org.openpaas.servicebroker.container.platform.repo.JpaServiceInstanceRepository;
+import org.openpaas.servicebroker.container.platform.service.impl.OrganizationReservationService;
+import org.openpaas.servicebroker.exception.ServiceBrokerException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OrganizationReservationServiceTest {
+
+    private static final String ORG_GUID = "org-guid";
+
+    @Mock
+    JpaOrganizationReservationRepository reservationRepository;
+
+    @Mock
+    JpaServiceInstanceRepository instanceRepository;
+
+    @InjectMocks
+    OrganizationReservationService organizationReservationService;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(organizationReservationService, "staleAfter", 900000L);
+        when(reservationRepository.insert(eq(ORG_GUID), anyString(), anyLong())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+    }
+
+    /**
+     * 다른 서비스 인스턴스가 생성 중인 organization 은 예약할 수 없다.
+     */
+    @Test(expected = ServiceBrokerException.class)
+    public void reserve_ReservedByOtherInstance() throws Exception {
+        when(reservationRepository.findById(ORG_GUID)).thenReturn(Optional.of(reservation("instance-1", System.currentTimeMillis())));
+
+        organizationReservationService.reserve(ORG_GUID, "instance-2");
+    }
+
+    /**
+     * 생성 도중 중단되어 남은 예약(서비스 인스턴스 저장 전, stale-after 경과)은 넘겨 받는다.
+     */
+    @Test
+    public void reserve_TakesOverStaleReservation() throws Exception {
+        when(reservationRepository.findById(ORG_GUID)).thenReturn(Optional.of(reservation("instance-1", 1000L)));
+        when(reservationRepository.takeOver(eq(ORG_GUID), eq("instance-1"), eq(1000L), eq("instance-2"), anyLong())).thenReturn(1);
+
+        organizationReservationService.reserve(ORG_GUID, "instance-2");
+
+        verify(reservationRepository).takeOver(eq(ORG_GUID), eq("instance-1"), eq(1000L), eq("instance-2"), anyLong());
+    }
+
+    /**
+     * 오래된 예약이라도 서비스 인스턴스가 저장되어 있으면 넘겨 받지 않는다.
+     */
+    @Test(expected = ServiceBrokerException.class)
+    public void reserve_StaleReservationOfExistingInstance() throws Exception {
+        when(reservationRepository.findById(ORG_GUID)).thenReturn(Optional.of(reservation("instance-1", 1000L)));
+        when(instanceRepository.findByServiceInstanceId("instance-1")).thenReturn(new JpaServiceInstance());
+
+        try {
+            organizationReservationService.reserve(ORG_GUID, "instance-2");
+        } finally {
+            verify(reservationRepository, never()).takeOver(anyString(), anyString(), anyLong(), anyString(), anyLong());
+        }
+    }
+
+    private JpaOrganizationReservation reservation(String serviceInstanceId, long createdAt) {
+        JpaOrganizationReservation reservation = new JpaOrganizationReservation();
+        ReflectionTestUtils.setField(reservation, "organizationGuid", ORG_GUID);
+        ReflectionTestUtils.setField(reservation, "serviceInstanceId", serviceInstanceId);
+        ReflectionTestUtils.setField(reservation, "createdAt", createdAt);
+        return reservation;
+    }
+}
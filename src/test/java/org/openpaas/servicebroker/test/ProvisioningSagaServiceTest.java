@@ -0,0 +1,160 @@
+package org.openpaas.servicebroker.test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openpaas.servicebroker.container.platform.common.CommonStatusCode;
+import org.openpaas.servicebroker.container.platform.model.Constants;
+import org.openpaas.servicebroker.container.platform.model.JpaProvisioningSaga;
+import org.openpaas.servicebroker.container.platform.model.JpaProvisioningSagaStep;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.repo.JpaProvisioningSagaRepository;
+import org.openpaas.servicebroker.container.platform.repo.JpaProvisioningSagaStepRepository;
+import org.openpaas.servicebroker.container.platform.repo.JpaServiceInstanceRepository;
+import org.openpaas.servicebroker.container.platform.service.PropertyService;
+import org.openpaas.servicebroker.container.platform.service.impl.ContainerPlatformService;
+import org.openpaas.servicebroker.container.platform.service.impl.KeycloakAdminClientService;
+import org.openpaas.servicebroker.container.platform.service.impl.NamespacePool;
+import org.openpaas.servicebroker.container.platform.service.impl.OrganizationReservationService;
+import org.openpaas.servicebroker.container.platform.service.impl.ProvisioningSagaService;
+import org.openpaas.servicebroker.container.platform.service.impl.ProvisioningSteps;
+import org.openpaas.servicebroker.container.platform.service.impl.UserService;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ProvisioningSagaServiceTest {
+
+    private static final String SAGA_ID = "saga-id";
+    private static final String INSTANCE_ID = "instance-id";
+    private static final String ORGANIZATION_GUID = "organization-guid";
+
+    private ProvisioningSagaService provisioningSagaService;
+    private JpaProvisioningSagaRepository sagaRepository;
+    private JpaProvisioningSagaStepRepository stepRepository;
+    private ContainerPlatformService containerPlatformService;
+    private KeycloakAdminClientService keycloakAdminClientService;
+    private JpaServiceInstanceRepository instanceRepository;
+    private OrganizationReservationService organizationReservationService;
+
+    @Before
+    public void setUp() {
+        sagaRepository = mock(JpaProvisioningSagaRepository.class);
+        stepRepository = mock(JpaProvisioningSagaStepRepository.class);
+        containerPlatformService = mock(ContainerPlatformService.class);
+        keycloakAdminClientService = mock(KeycloakAdminClientService.class);
+        instanceRepository = mock(JpaServiceInstanceRepository.class);
+        organizationReservationService = mock(OrganizationReservationService.class);
+        when(sagaRepository.claim(anyString(), any(JpaProvisioningSaga.State.class), anyLong(), any(JpaProvisioningSaga.State.class), anyString(), anyLong())).thenReturn(1);
+
+        ProvisioningSteps provisioningSteps = new ProvisioningSteps();
+        ReflectionTestUtils.setField(provisioningSteps, "containerPlatformService", containerPlatformService);
+        ReflectionTestUtils.setField(provisioningSteps, "namespacePool", mock(NamespacePool.class));
+        ReflectionTestUtils.setField(provisioningSteps, "keycloakAdminClientService", keycloakAdminClientService);
+        ReflectionTestUtils.setField(provisioningSteps, "instanceRepository", instanceRepository);
+        ReflectionTestUtils.setField(provisioningSteps, "userService", mock(UserService.class));
+        ReflectionTestUtils.setField(provisioningSteps, "propertyService", mock(PropertyService.class));
+        ReflectionTestUtils.setField(provisioningSteps, "organizationReservationService", organizationReservationService);
+
+        provisioningSagaService = new ProvisioningSagaService();
+        ReflectionTestUtils.setField(provisioningSagaService, "sagaRepository", sagaRepository);
+        ReflectionTestUtils.setField(provisioningSagaService, "stepRepository", stepRepository);
+        ReflectionTestUtils.setField(provisioningSagaService, "provisioningSteps", provisioningSteps);
+        ReflectionTestUtils.setField(provisioningSagaService, "provisioningTaskExecutor", new SyncTaskExecutor());
+        ReflectionTestUtils.setField(provisioningSagaService, "owner", "broker-0");
+        ReflectionTestUtils.setField(provisioningSagaService, "recoveryAfter", 900000L);
+    }
+
+    /**
+     * 이전에 같은 pod 에서 실행하다 중단된 saga 는 완료된 단계를 보상한다.
+     */
+    @Test
+    public void recoverAbandonedSaga_Compensates() {
+        JpaProvisioningSaga saga = saga("broker-0", 1000L);
+        saga.setContext("{\"serviceInstanceId\":\"" + INSTANCE_ID + "\",\"organizationGuid\":\"" + ORGANIZATION_GUID + "\","
+                + "\"namespace\":\"paas-instance-id-caas\",\"keycloakResultCode\":\"" + CommonStatusCode.CREATED.getCode() + "\",\"keycloakUserId\":\"keycloak-user-id\"}");
+        when(sagaRepository.findAllByStateIn(any())).thenReturn(Collections.singletonList(saga));
+        when(stepRepository.findAllBySagaId(SAGA_ID)).thenReturn(Arrays.asList(
+                step(ProvisioningSteps.STEP_KEYCLOAK_USER, JpaProvisioningSagaStep.Status.DONE),
+                step(ProvisioningSteps.STEP_NAMESPACE, JpaProvisioningSagaStep.Status.DONE),
+                step(ProvisioningSteps.STEP_INSTANCE_DB, JpaProvisioningSagaStep.Status.STARTED)));
+        JpaServiceInstance instance = new JpaServiceInstance();
+        when(instanceRepository.findByServiceInstanceId(INSTANCE_ID)).thenReturn(instance);
+        when(keycloakAdminClientService.deleteKeycloakUser("keycloak-user-id")).thenReturn("204");
+
+        provisioningSagaService.recoverUnfinishedSagas();
+
+        verify(sagaRepository).claim(eq(SAGA_ID), eq(JpaProvisioningSaga.State.RUNNING), eq(1000L), eq(JpaProvisioningSaga.State.COMPENSATING), eq("broker-0"), anyLong());
+        verify(instanceRepository).delete(instance);
+        verify(containerPlatformService).deleteNamespace("paas-instance-id-caas");
+        verify(keycloakAdminClientService).deleteKeycloakUser("keycloak-user-id");
+        verify(organizationReservationService).release(ORGANIZATION_GUID, INSTANCE_ID);
+    }
+
+    /**
+     * 보상에 실패한 saga 는 다음 복구 주기에 다시 보상하므로 organization 예약을 유지한다.
+     */
+    @Test
+    public void recoverAbandonedSaga_CompensationFailed_KeepsReservation() {
+        JpaProvisioningSaga saga = saga("broker-0", 1000L);
+        saga.setContext("{\"serviceInstanceId\":\"" + INSTANCE_ID + "\",\"organizationGuid\":\"" + ORGANIZATION_GUID + "\","
+                + "\"keycloakResultCode\":\"" + CommonStatusCode.CREATED.getCode() + "\",\"keycloakUserId\":\"keycloak-user-id\"}");
+        when(sagaRepository.findAllByStateIn(any())).thenReturn(Collections.singletonList(saga));
+        when(stepRepository.findAllBySagaId(SAGA_ID)).thenReturn(Collections.singletonList(
+                step(ProvisioningSteps.STEP_KEYCLOAK_USER, JpaProvisioningSagaStep.Status.DONE)));
+        when(keycloakAdminClientService.deleteKeycloakUser("keycloak-user-id")).thenReturn(Constants.RESULT_STATUS_FAIL);
+
+        provisioningSagaService.recoverUnfinishedSagas();
+
+        verify(organizationReservationService, never()).release(anyString(), anyString());
+    }
+
+    /**
+     * 모든 단계가 완료된 saga 는 보상하지 않고 완료로 기록한다.
+     */
+    @Test
+    public void recoverAbandonedSaga_AllStepsDone() {
+        JpaProvisioningSaga saga = saga("broker-0", 1000L);
+        when(sagaRepository.findAllByStateIn(any())).thenReturn(Collections.singletonList(saga));
+        when(stepRepository.findAllBySagaId(SAGA_ID)).thenReturn(Arrays.asList(
+                step(ProvisioningSteps.STEP_KEYCLOAK_USER, JpaProvisioningSagaStep.Status.DONE),
+                step(ProvisioningSteps.STEP_NAMESPACE, JpaProvisioningSagaStep.Status.DONE),
+                step(ProvisioningSteps.STEP_INSTANCE_DB, JpaProvisioningSagaStep.Status.DONE),
+                step(ProvisioningSteps.STEP_CP_USER, JpaProvisioningSagaStep.Status.DONE)));
+
+        provisioningSagaService.recoverUnfinishedSagas();
+
+        verify(sagaRepository).claim(eq(SAGA_ID), eq(JpaProvisioningSaga.State.RUNNING), eq(1000L), eq(JpaProvisioningSaga.State.COMPLETED), eq("broker-0"), anyLong());
+        verify(containerPlatformService, never()).deleteNamespace(anyString());
+    }
+
+    /**
+     * 다른 pod 가 최근까지 진행 중인 saga 는 복구하지 않는다.
+     */
+    @Test
+    public void recoverRunningSagaOfOtherBroker_Skipped() {
+        when(sagaRepository.findAllByStateIn(any())).thenReturn(Collections.singletonList(saga("broker-1", System.currentTimeMillis())));
+
+        provisioningSagaService.recoverUnfinishedSagas();
+
+        verify(sagaRepository, never()).claim(anyString(), any(JpaProvisioningSaga.State.class), anyLong(), any(JpaProvisioningSaga.State.class), anyString(), anyLong());
+    }
+
+    private JpaProvisioningSaga saga(String owner, long updatedAt) {
+        return new JpaProvisioningSaga(SAGA_ID, INSTANCE_ID, Constants.CONTAINER_PLATFORM_USER_PORTAL, owner, updatedAt);
+    }
+
+    private JpaProvisioningSagaStep step(String stepName, JpaProvisioningSagaStep.Status status) {
+        return new JpaProvisioningSagaStep(SAGA_ID, stepName, status, 1000L);
+    }
+}
@@ -0,0 +1,227 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openpaas.servicebroker.container.platform.common.CircuitBreaker;
+import org.openpaas.servicebroker.container.platform.common.PooledHttpClient;
+import org.openpaas.servicebroker.container.platform.model.ResultStatus;
+import org.openpaas.servicebroker.container.platform.model.Users;
+import org.openpaas.servicebroker.container.platform.service.AdminTokenProvider;
+import org.openpaas.servicebroker.container.platform.service.K8sRetryPolicy;
+import org.openpaas.servicebroker.container.platform.service.PropertyService;
+import org.openpaas.servicebroker.container.platform.service.RestTemplateService;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 여러 대상(k8s api, cp-api, common-api)으로 동시에 요청을 보내도
+ * 각 요청이 자기 대상의 header 만 가지고 나가는지 확인한다.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RestTemplateServiceTest {
+
+    private static final String K8S_TOKEN = "k8s-admin-token";
+    private static final String COMMON_ID = "common-id";
+    private static final String COMMON_PASSWORD = "common-password";
+    private static final int REQUEST_COUNT = 600;
+
+    @Mock
+    PropertyService propertyService;
+
+    @Mock
+    AdminTokenProvider adminTokenProvider;
+
+    @InjectMocks
+    RestTemplateService restTemplateService;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final List<PooledHttpClient> clients = new ArrayList<>();
+    private final Queue<String> violations = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger received = new AtomicInteger();
+    private final AtomicInteger unavailable = new AtomicInteger();
+    private String baseUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        serverExecutor = Executors.newFixedThreadPool(32);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        server.createContext("/", this::handle);
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        ReflectionTestUtils.setField(restTemplateService, "restTemplate", createClient("k8s").createRestTemplate());
+        ReflectionTestUtils.setField(restTemplateService, "cpApiRestTemplate", createClient("cp-api").createRestTemplate());
+        ReflectionTestUtils.setField(restTemplateService, "commonApiRestTemplate", createClient("common-api").createRestTemplate());
+        ReflectionTestUtils.setField(restTemplateService, "k8sRetryPolicy", new K8sRetryPolicy());
+        ReflectionTestUtils.setField(restTemplateService, "k8sCircuitBreaker", createCircuitBreaker("k8s"));
+        ReflectionTestUtils.setField(restTemplateService, "cpApiCircuitBreaker", createCircuitBreaker("cp-api"));
+        ReflectionTestUtils.setField(restTemplateService, "commonApiCircuitBreaker", createCircuitBreaker("common-api"));
+
+        when(adminTokenProvider.getToken()).thenReturn(K8S_TOKEN);
+        when(propertyService.getCpApiUrl()).thenReturn(baseUrl + "/cp-api");
+        when(propertyService.getCommonId()).thenReturn(COMMON_ID);
+        when(propertyService.getCommonPassword()).thenReturn(COMMON_PASSWORD);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        for (PooledHttpClient client : clients) {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentRequestsCarryOwnHeaders() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                Callable<Object> call = requestOf(i);
+                results.add(callers.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+
+            for (Future<Object> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(REQUEST_COUNT, received.get());
+        assertTrue("Header leaked between requests : " + violations, violations.isEmpty());
+    }
+
+    /**
+     * 재요청 끝에 성공한 요청은 circuit breaker 에 성공 1건으로 집계된다.
+     */
+    @Test
+    public void testRetriedRequestCountsOnceInCircuitBreaker() throws Exception {
+        K8sRetryPolicy k8sRetryPolicy = new K8sRetryPolicy();
+        ReflectionTestUtils.setField(k8sRetryPolicy, "maxAttempts", 4);
+        ReflectionTestUtils.setField(k8sRetryPolicy, "initialBackoff", 1L);
+        ReflectionTestUtils.setField(k8sRetryPolicy, "maxBackoff", 10L);
+        ReflectionTestUtils.setField(k8sRetryPolicy, "budgetRatio", 0.2);
+        ReflectionTestUtils.setField(k8sRetryPolicy, "budgetMaxTokens", 20);
+        k8sRetryPolicy.init();
+        ReflectionTestUtils.setField(restTemplateService, "k8sRetryPolicy", k8sRetryPolicy);
+        CircuitBreaker k8sCircuitBreaker = (CircuitBreaker) ReflectionTestUtils.getField(restTemplateService, "k8sCircuitBreaker");
+        unavailable.set(2);
+
+        restTemplateService.send(baseUrl + "/k8s/unavailable", HttpMethod.GET, String.class);
+
+        assertEquals(3, received.get());
+        assertEquals(1, k8sCircuitBreaker.snapshot().get("bufferedCalls"));
+        assertEquals(0, k8sCircuitBreaker.snapshot().get("failureRate"));
+    }
+
+    private Callable<Object> requestOf(int i) {
+        switch (i % 4) {
+            case 0:
+                return () -> restTemplateService.send(baseUrl + "/k8s/" + i, HttpMethod.GET, String.class);
+            case 1:
+                return () -> restTemplateService.send(baseUrl + "/k8s/" + i, "kind: Namespace", HttpMethod.POST, String.class);
+            case 2:
+                return () -> restTemplateService.requestCpApi(new Users(), "/" + i, HttpMethod.POST, ResultStatus.class);
+            default:
+                return () -> restTemplateService.requestCpCommonApi(baseUrl + "/common-api/" + i, HttpMethod.DELETE, ResultStatus.class);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        received.incrementAndGet();
+        String path = exchange.getRequestURI().getPath();
+        List<String> authorization = exchange.getRequestHeaders().get("Authorization");
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+
+        if (path.startsWith("/k8s/")) {
+            expect(path, "Authorization", singleValue("Bearer " + K8S_TOKEN), authorization);
+            expect(path, "Content-Type", "application/yaml;charset=UTF-8", contentType);
+        } else if (path.startsWith("/cp-api/")) {
+            expect(path, "Authorization", null, authorization);
+            expect(path, "Content-Type", "application/json;charset=UTF-8", contentType);
+        } else {
+            String basic = Base64.getEncoder().encodeToString((COMMON_ID + ":" + COMMON_PASSWORD).getBytes(StandardCharsets.UTF_8));
+            expect(path, "Authorization", singleValue("Basic " + basic), authorization);
+            expect(path, "Content-Type", "application/json;charset=UTF-8", contentType);
+        }
+
+        if (unavailable.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = "{\"resultCode\":\"SUCCESS\"}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void expect(String path, String header, Object expected, Object actual) {
+        if (expected == null ? actual != null : !expected.equals(actual)) {
+            violations.add(path + " " + header + "=" + actual);
+        }
+    }
+
+    private static List<String> singleValue(String value) {
+        List<String> values = new ArrayList<>();
+        values.add(value);
+        return values;
+    }
+
+    private CircuitBreaker createCircuitBreaker(String destination) {
+        CircuitBreaker.Settings settings = new CircuitBreaker.Settings();
+        settings.setMaxConcurrent(64);
+        return new CircuitBreaker(destination, settings, exception -> true);
+    }
+
+    private PooledHttpClient createClient(String destination) throws Exception {
+        PooledHttpClient.Settings settings = new PooledHttpClient.Settings();
+        settings.setMaxTotal(64);
+        settings.setMaxPerRoute(64);
+        PooledHttpClient client = new PooledHttpClient(destination, settings, org.apache.http.ssl.SSLContexts.createDefault());
+        clients.add(client);
+        return client;
+    }
+}
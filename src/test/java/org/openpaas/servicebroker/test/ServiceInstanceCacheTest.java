@@ -0,0 +1,91 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.repo.JpaServiceInstanceRepository;
+import org.openpaas.servicebroker.container.platform.service.impl.ServiceInstanceCache;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServiceInstanceCacheTest {
+
+    @Mock
+    JpaServiceInstanceRepository instanceRepository;
+
+    @InjectMocks
+    ServiceInstanceCache serviceInstanceCache;
+
+    private JpaServiceInstance instance;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(serviceInstanceCache, "enabled", true);
+        ReflectionTestUtils.setField(serviceInstanceCache, "maxSize", 2);
+        ReflectionTestUtils.setField(serviceInstanceCache, "ttl", 60000L);
+        ReflectionTestUtils.setField(serviceInstanceCache, "negativeTtl", 60000L);
+        serviceInstanceCache.init();
+
+        instance = new JpaServiceInstance();
+        instance.setServiceInstanceId("instance-1");
+        when(instanceRepository.findByServiceInstanceId("instance-1")).thenReturn(instance);
+    }
+
+    /**
+     * 두번째 조회부터는 DB 를 조회하지 않는다. (조회 결과가 없는 경우 포함)
+     */
+    @Test
+    public void find_CachesFoundAndNotFound() {
+        assertSame(instance, serviceInstanceCache.find("instance-1"));
+        assertSame(instance, serviceInstanceCache.find("instance-1"));
+        assertNull(serviceInstanceCache.find("instance-2"));
+        assertNull(serviceInstanceCache.find("instance-2"));
+
+        verify(instanceRepository, times(1)).findByServiceInstanceId("instance-1");
+        verify(instanceRepository, times(1)).findByServiceInstanceId("instance-2");
+    }
+
+    /**
+     * 저장/삭제된 인스턴스는 다시 DB 에서 읽는다.
+     */
+    @Test
+    public void onChanged_Invalidates() {
+        ServiceInstanceCache.EntityListener listener = new ServiceInstanceCache.EntityListener();
+        ReflectionTestUtils.setField(listener, "serviceInstanceCache", serviceInstanceCache);
+        serviceInstanceCache.find("instance-1");
+
+        listener.onChanged(instance);
+        serviceInstanceCache.find("instance-1");
+
+        verify(instanceRepository, times(2)).findByServiceInstanceId("instance-1");
+    }
+
+    /**
+     * 최대 개수를 넘으면 가장 오래 사용하지 않은 값을 버린다.
+     */
+    @Test
+    public void find_EvictsLeastRecentlyUsed() {
+        serviceInstanceCache.find("instance-1");
+        serviceInstanceCache.find("instance-2");
+        serviceInstanceCache.find("instance-1");
+        serviceInstanceCache.find("instance-3");
+
+        serviceInstanceCache.find("instance-1");
+        serviceInstanceCache.find("instance-2");
+
+        verify(instanceRepository, times(1)).findByServiceInstanceId("instance-1");
+        verify(instanceRepository, times(2)).findByServiceInstanceId("instance-2");
+        assertEquals(2L, ((Number) ReflectionTestUtils.invokeGetterMethod(ReflectionTestUtils.getField(serviceInstanceCache, "cache"), "evictionCount")).longValue());
+    }
+}
@@ -0,0 +1,155 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceInstance;
+import org.openpaas.servicebroker.container.platform.repo.JpaServiceInstanceRepository;
+import org.openpaas.servicebroker.container.platform.service.impl.ContainerPlatformService;
+import org.openpaas.servicebroker.container.platform.service.impl.InstanceServiceImpl;
+import org.openpaas.servicebroker.exception.ServiceBrokerException;
+import org.openpaas.servicebroker.model.Plan;
+import org.openpaas.servicebroker.model.ServiceDefinition;
+import org.openpaas.servicebroker.model.UpdateServiceInstanceRequest;
+import org.openpaas.servicebroker.service.CatalogService;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 같은 서비스 인스턴스의 plan 변경이 동시에 들어와도 broker DB 의 plan 과 ResourceQuota 가 같은 값으로 끝나는지 확인한다.
+ * repository 는 version 을 비교하여 저장하는 (optimistic lock) 메모리 구현을 사용한다.
+ */
+public class ServiceInstanceUpdateConcurrencyTest {
+
+    private static final String SERVICE_DEFINITION_ID = "service-definition-id";
+    private static final String INSTANCE_ID = "instance-id";
+    private static final String NAMESPACE = "paas-instance-id-caas";
+    private static final int UPDATES = 50;
+
+    private InstanceServiceImpl instanceService;
+
+    // broker DB 의 row (plan id, version)
+    private final Object rowLock = new Object();
+    private String storedPlanId;
+    private long storedVersion;
+    private final AtomicInteger conflicts = new AtomicInteger();
+
+    // k8s ResourceQuota 에 적용된 plan
+    private final AtomicReference<String> quotaPlanId = new AtomicReference<>();
+
+    @Before
+    public void setUp() throws Exception {
+        List<Plan> plans = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Plan plan = new Plan("plan-" + i, "plan-" + i, "plan " + i);
+            // plan-3, plan-4 는 같은 단계 (서로 변경 가능), plan-0 은 낮은 단계
+            plan.setWeight(i < 3 ? i : 3);
+            plans.add(plan);
+        }
+        CatalogService catalog = mock(CatalogService.class);
+        when(catalog.getServiceDefinition(SERVICE_DEFINITION_ID))
+                .thenReturn(new ServiceDefinition(SERVICE_DEFINITION_ID, "container-platform", "container platform", false, plans));
+
+        storedPlanId = "plan-0";
+        quotaPlanId.set("plan-0");
+
+        JpaServiceInstanceRepository instanceRepository = mock(JpaServiceInstanceRepository.class);
+        when(instanceRepository.findByServiceInstanceId(INSTANCE_ID)).thenAnswer(invocation -> {
+            synchronized (rowLock) {
+                JpaServiceInstance instance = new JpaServiceInstance(new UpdateServiceInstanceRequest(storedPlanId, SERVICE_DEFINITION_ID).withInstanceId(INSTANCE_ID));
+                instance.setCaasNamespace(NAMESPACE);
+                instance.setVersion(storedVersion);
+                return instance;
+            }
+        });
+        when(instanceRepository.save(any(JpaServiceInstance.class))).thenAnswer(invocation -> {
+            JpaServiceInstance instance = (JpaServiceInstance) invocation.getArguments()[0];
+            pause();
+            synchronized (rowLock) {
+                if (instance.getVersion() != storedVersion) {
+                    conflicts.incrementAndGet();
+                    throw new ObjectOptimisticLockingFailureException(JpaServiceInstance.class, INSTANCE_ID);
+                }
+                storedPlanId = instance.getPlanId();
+                storedVersion++;
+                return instance;
+            }
+        });
+
+        ContainerPlatformService containerPlatformService = mock(ContainerPlatformService.class);
+        doAnswer(invocation -> {
+            pause();
+            quotaPlanId.set(((Plan) invocation.getArguments()[1]).getId());
+            return null;
+        }).when(containerPlatformService).changeResourceQuota(anyString(), any(Plan.class));
+
+        instanceService = new InstanceServiceImpl();
+        ReflectionTestUtils.setField(instanceService, "catalog", catalog);
+        ReflectionTestUtils.setField(instanceService, "instanceRepository", instanceRepository);
+        ReflectionTestUtils.setField(instanceService, "containerPlatformService", containerPlatformService);
+        ReflectionTestUtils.setField(instanceService, "updateMaxConflictRetries", 100);
+    }
+
+    /**
+     * 50 개의 plan 변경이 동시에 실행된 뒤 broker DB 의 plan 과 ResourceQuota 의 plan 이 같아야 한다.
+     * 낮은 plan 으로의 변경은 거절되므로 DB 의 plan 은 내려가지 않는다.
+     */
+    @Test
+    public void racingPlanChanges_DbAndQuotaConverge() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(UPDATES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < UPDATES; i++) {
+            String planId = "plan-" + (i % 5);
+            results.add(executor.submit((Callable<Boolean>) () -> {
+                start.await();
+                try {
+                    instanceService.updateServiceInstance(new UpdateServiceInstanceRequest(planId, SERVICE_DEFINITION_ID).withInstanceId(INSTANCE_ID));
+                    return true;
+                } catch (ServiceBrokerException e) {
+                    // 다른 요청이 먼저 높은 plan 으로 변경한 경우 (Cannot change lower plan)
+                    assertTrue(e.getMessage(), e.getMessage().startsWith("Cannot change lower plan"));
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                succeeded++;
+            }
+        }
+        executor.shutdown();
+
+        assertTrue(succeeded > 0);
+        assertTrue("conflicts : " + conflicts.get(), conflicts.get() > 0);
+        assertTrue(storedPlanId, Arrays.asList("plan-3", "plan-4").contains(storedPlanId));
+        assertEquals(storedPlanId, quotaPlanId.get());
+    }
+
+    private static void pause() throws InterruptedException {
+        Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+    }
+}
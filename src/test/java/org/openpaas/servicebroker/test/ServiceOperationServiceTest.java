@@ -0,0 +1,156 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openpaas.servicebroker.container.platform.exception.ConcurrentOperationException;
+import org.openpaas.servicebroker.container.platform.model.Constants;
+import org.openpaas.servicebroker.container.platform.model.JpaServiceOperation;
+import org.openpaas.servicebroker.container.platform.repo.JpaServiceOperationRepository;
+import org.openpaas.servicebroker.container.platform.service.impl.IdempotencyService;
+import org.openpaas.servicebroker.container.platform.service.impl.ServiceOperationService;
+import org.openpaas.servicebroker.model.OperationState;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ServiceOperationServiceTest {
+
+    private static final String INSTANCE_ID = "service-instance-id";
+
+    private ServiceOperationService serviceOperationService;
+    private JpaServiceOperationRepository operationRepository;
+    private IdempotencyService idempotencyService;
+
+    @Before
+    public void setUp() {
+        operationRepository = mock(JpaServiceOperationRepository.class);
+        when(operationRepository.save(any(JpaServiceOperation.class))).thenAnswer(invocation -> invocation.getArguments()[0]);
+        when(operationRepository.finish(anyString(), any(OperationState.class), any(), anyLong())).thenReturn(1);
+
+        idempotencyService = new IdempotencyService();
+        ReflectionTestUtils.setField(idempotencyService, "enabled", true);
+        ReflectionTestUtils.setField(idempotencyService, "ttl", 600000L);
+        idempotencyService.init();
+
+        serviceOperationService = new ServiceOperationService();
+        ReflectionTestUtils.setField(serviceOperationService, "operationRepository", operationRepository);
+        ReflectionTestUtils.setField(serviceOperationService, "idempotencyService", idempotencyService);
+        ReflectionTestUtils.setField(serviceOperationService, "operationTaskExecutor", new SyncTaskExecutor());
+        ReflectionTestUtils.setField(serviceOperationService, "operationTimeout", 600000L);
+    }
+
+    @Test
+    public void submit_Succeeded() throws Exception {
+        JpaServiceOperation operation = serviceOperationService.submit(INSTANCE_ID, Constants.OPERATION_TYPE_CREATE, () -> { });
+
+        assertEquals(OperationState.SUCCEEDED, operation.getState());
+        verify(operationRepository).finish(eq(operation.getOperationId()), eq(OperationState.SUCCEEDED), any(), anyLong());
+    }
+
+    @Test
+    public void submit_TaskFailed() throws Exception {
+        JpaServiceOperation operation = serviceOperationService.submit(INSTANCE_ID, Constants.OPERATION_TYPE_CREATE, () -> {
+            throw new IllegalStateException("namespace creation failed");
+        });
+
+        assertEquals(OperationState.FAILED, operation.getState());
+        assertEquals("namespace creation failed", operation.getDescription());
+    }
+
+    @Test
+    public void submit_SameOperationInProgress() throws Exception {
+        JpaServiceOperation running = inProgress(Constants.OPERATION_TYPE_CREATE, System.currentTimeMillis() + 60000);
+        when(operationRepository.findFirstByServiceInstanceIdAndStateOrderByCreatedAtDesc(INSTANCE_ID, OperationState.IN_PROGRESS)).thenReturn(running);
+
+        assertSame(running, serviceOperationService.submit(INSTANCE_ID, Constants.OPERATION_TYPE_CREATE, () -> { }));
+        verify(operationRepository, never()).save(any(JpaServiceOperation.class));
+    }
+
+    @Test(expected = ConcurrentOperationException.class)
+    public void submit_OtherOperationInProgress() throws Exception {
+        when(operationRepository.findFirstByServiceInstanceIdAndStateOrderByCreatedAtDesc(INSTANCE_ID, OperationState.IN_PROGRESS))
+                .thenReturn(inProgress(Constants.OPERATION_TYPE_CREATE, System.currentTimeMillis() + 60000));
+
+        serviceOperationService.submit(INSTANCE_ID, Constants.OPERATION_TYPE_DELETE, () -> { });
+    }
+
+    @Test
+    public void expireOverdueOperations() {
+        JpaServiceOperation overdue = inProgress(Constants.OPERATION_TYPE_CREATE, System.currentTimeMillis() - 1);
+        when(operationRepository.findAllByStateAndDeadlineLessThan(eq(OperationState.IN_PROGRESS), anyLong())).thenReturn(Collections.singletonList(overdue));
+
+        serviceOperationService.expireOverdueOperations();
+
+        assertEquals(OperationState.FAILED, overdue.getState());
+        assertEquals("Operation timed out.", overdue.getDescription());
+    }
+
+    /**
+     * 202 Accepted 로 응답한 비동기 생성 작업이 실패하면 같은 생성 요청을 다시 처리한다.
+     */
+    @Test
+    public void retryAfterFailedAsyncCreate_IsProcessedAgain() throws Exception {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        Executor queued = tasks::add;
+        ReflectionTestUtils.setField(serviceOperationService, "operationTaskExecutor", queued);
+        String key = IdempotencyService.key(INSTANCE_ID, "PUT", "service-id,plan-id");
+        AtomicInteger calls = new AtomicInteger();
+
+        ResponseEntity<?> accepted = idempotencyService.execute(key, () -> submitCreate(calls));
+        assertSame(accepted, idempotencyService.execute(key, () -> submitCreate(calls)));
+        assertEquals(1, calls.get());
+
+        tasks.poll().run();
+
+        ResponseEntity<?> retried = idempotencyService.execute(key, () -> submitCreate(calls));
+        assertEquals(2, calls.get());
+        assertEquals(HttpStatus.ACCEPTED, retried.getStatusCode());
+        assertNotEquals(((Map<?, ?>) accepted.getBody()).get("operation"), ((Map<?, ?>) retried.getBody()).get("operation"));
+    }
+
+    /**
+     * 202 Accepted 로 응답하기 전에 실패한 비동기 작업의 응답은 보관하지 않는다.
+     */
+    @Test
+    public void asyncCreateFailedBeforeResponse_IsNotStored() throws Exception {
+        String key = IdempotencyService.key(INSTANCE_ID, "PUT", "service-id,plan-id");
+        AtomicInteger calls = new AtomicInteger();
+
+        idempotencyService.execute(key, () -> submitCreate(calls));
+        idempotencyService.execute(key, () -> submitCreate(calls));
+
+        assertEquals(2, calls.get());
+    }
+
+    private ResponseEntity<?> submitCreate(AtomicInteger calls) throws Exception {
+        calls.incrementAndGet();
+        JpaServiceOperation operation = serviceOperationService.submit(INSTANCE_ID, Constants.OPERATION_TYPE_CREATE, () -> {
+            throw new IllegalStateException("namespace creation failed");
+        });
+        return new ResponseEntity<>(Collections.singletonMap("operation", operation.getOperationId()), HttpStatus.ACCEPTED);
+    }
+
+    private JpaServiceOperation inProgress(String operationType, long deadline) {
+        return new JpaServiceOperation("operation-id", INSTANCE_ID, operationType, System.currentTimeMillis(), deadline);
+    }
+}
@@ -0,0 +1,98 @@
+package org.openpaas.servicebroker.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpaas.servicebroker.container.platform.common.InstrumentedDataSource;
+import org.openpaas.servicebroker.container.platform.service.impl.SqlStatementStatistics;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SqlStatementStatisticsTest {
+
+    private SqlStatementStatistics statementStatistics;
+    private SimpleMeterRegistry registry;
+
+    @Before
+    public void setUp() {
+        statementStatistics = new SqlStatementStatistics();
+        ReflectionTestUtils.setField(statementStatistics, "slowThreshold", 200L);
+        ReflectionTestUtils.setField(statementStatistics, "slowLogSampleRate", 1.0);
+        ReflectionTestUtils.setField(statementStatistics, "maxShapes", 2);
+        registry = new SimpleMeterRegistry();
+        statementStatistics.bindTo(registry);
+    }
+
+    /**
+     * literal 값은 ? 로 바꾸고 IN / VALUES 목록은 하나로 줄인다.
+     */
+    @Test
+    public void shape_RedactsLiterals() {
+        assertEquals("select * from service_instance where organization_guid=? and version=?",
+                SqlStatementStatistics.shape("select *\n  from service_instance where organization_guid='org-''1' and version=12"));
+        assertEquals("delete from admin_token where token_name in (?)",
+                SqlStatementStatistics.shape("delete from admin_token where token_name in ('a', 'b', ?)"));
+        assertEquals("insert into t (a, b) values (?, ?)",
+                SqlStatementStatistics.shape("insert into t (a, b) values (?, ?), (1, 'x')"));
+        assertEquals("select t1.col2 from t1", SqlStatementStatistics.shape("select t1.col2 from t1"));
+    }
+
+    /**
+     * InstrumentedDataSource 로 실행한 SQL 은 형태별로 집계되고, max-shapes 를 넘으면 other 로 모인다.
+     */
+    @Test
+    public void executed_GroupedByShape() throws Exception {
+        DataSource dataSource = new InstrumentedDataSource(
+                JdbcConnectionPool.create("jdbc:h2:mem:statement-statistics;DB_CLOSE_DELAY=-1", "sa", ""), statementStatistics);
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table item (id int, name varchar(10))");
+            }
+            try (PreparedStatement insert = connection.prepareStatement("insert into item (id, name) values (?, ?)")) {
+                for (int i = 0; i < 3; i++) {
+                    insert.setInt(1, i);
+                    insert.setString(2, "name-" + i);
+                    insert.executeUpdate();
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.executeQuery("select name from item where id = 1").close();
+            }
+        }
+
+        List<Map<String, Object>> top = statementStatistics.top(10);
+        assertEquals(3, top.size());
+        assertEquals(3L, find(top, "insert into item (id, name) values (?, ?)").get("count"));
+        assertEquals(1L, find(top, SqlStatementStatistics.OTHER_SHAPE).get("count"));
+        assertEquals(3L, registry.get("jdbc.statement").tag("statement", "insert into item (id, name) values (?, ?)").timer().count());
+    }
+
+    @Test
+    public void topWithNegativeLimit_ReturnsEmpty() {
+        statementStatistics.executed("select 1", 1000L, false);
+
+        assertTrue(statementStatistics.top(-1).isEmpty());
+        assertEquals(1, statementStatistics.top(1).size());
+    }
+
+    private Map<String, Object> find(List<Map<String, Object>> top, String statement) {
+        for (Map<String, Object> item : top) {
+            if (statement.equals(item.get("statement"))) {
+                return item;
+            }
+        }
+        throw new AssertionError(statement);
+    }
+}
@@ -0,0 +1,82 @@
+package org.openpaas.servicebroker.test.rest;
+
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openpaas.servicebroker.container.platform.common.CommonStatusCode;
+import org.openpaas.servicebroker.container.platform.controller.KeycloakUserImportController;
+import org.openpaas.servicebroker.container.platform.model.Constants;
+import org.openpaas.servicebroker.container.platform.model.KeycloakUserStatus;
+import org.openpaas.servicebroker.container.platform.service.impl.KeycloakAdminClientService;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KeycloakUserImportControllerTest {
+
+    private static final String IMPORT_PATH = KeycloakUserImportController.BASE_PATH + "/import";
+
+    @Mock
+    KeycloakAdminClientService keycloakAdminClientService;
+
+    @InjectMocks
+    KeycloakUserImportController controller;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(controller, "maxUsers", 2);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    /**
+     * 요청한 사용자를 일괄 생성하고 사용자별 결과로 응답한다. (user_type 이 없으면 NAMESPACE_ADMIN)
+     */
+    @Test
+    public void importKeycloakUsers() throws Exception {
+        Map<String, KeycloakUserStatus> results = new LinkedHashMap<>();
+        results.put("user-a", new KeycloakUserStatus(CommonStatusCode.CREATED.getCode(), "keycloak-user-a"));
+        results.put("user-b", new KeycloakUserStatus(CommonStatusCode.CONFLICT.getCode(), "keycloak-user-b"));
+        when(keycloakAdminClientService.importKeycloakUsers(Arrays.asList("user-a", "user-b"), Constants.AUTH_NAMESPACE_ADMIN)).thenReturn(results);
+
+        mockMvc.perform(post(IMPORT_PATH).contentType(MediaType.APPLICATION_JSON).content("{\"usernames\":[\"user-a\",\"user-b\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.user-a.resultCode").value(CommonStatusCode.CREATED.getCode()))
+                .andExpect(jsonPath("$.user-b.resultCode").value(CommonStatusCode.CONFLICT.getCode()))
+                .andExpect(jsonPath("$.user-b.userId").value("keycloak-user-b"));
+    }
+
+    /**
+     * 사용자 목록이 없거나 max-users 를 넘거나 지원하지 않는 user_type 이면 422 로 응답한다.
+     */
+    @Test
+    public void importKeycloakUsers_InvalidRequest() throws Exception {
+        mockMvc.perform(post(IMPORT_PATH).contentType(MediaType.APPLICATION_JSON).content("{\"usernames\":[]}"))
+                .andExpect(status().isUnprocessableEntity());
+        mockMvc.perform(post(IMPORT_PATH).contentType(MediaType.APPLICATION_JSON).content("{\"usernames\":[\"a\",\"b\",\"c\"]}"))
+                .andExpect(status().isUnprocessableEntity());
+        mockMvc.perform(post(IMPORT_PATH).contentType(MediaType.APPLICATION_JSON).content("{\"usernames\":[\"a\"],\"user_type\":\"USER\"}"))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(keycloakAdminClientService, never()).importKeycloakUsers(anyListOf(String.class), anyString());
+    }
+}